@@ -0,0 +1,51 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.smart.SmartObject;
+import java.util.List;
+
+
+/**
+ * This class defines the attributes that make up a co-signed notary seal.  They are the same
+ * as the attributes of a notary seal except that they cite the certificates of several notaries
+ * and the number of them that must sign the seal for it to be valid.
+ *
+ * @author Derk Norton
+ */
+public final class CoSealAttributes extends SmartObject<CoSealAttributes> {
+
+    /**
+     * The type of document that this seal notarizes.
+     */
+    public String documentType;
+
+    /**
+     * A base 32 encoding of the cryptographic hash of the byte encoding for the
+     * document being notarized.
+     */
+    public String documentHash;
+
+    /**
+     * The version of the algorithms used for hashing the document and signing the seal.
+     */
+    public Watermark watermark;
+
+    /**
+     * Citations to the certificates of the notaries that may sign this seal.
+     */
+    public List<DocumentCitation> verificationCitations;
+
+    /**
+     * The minimum number of the cited notaries that must sign this seal (M of N).
+     */
+    public int threshold;
+
+}
@@ -0,0 +1,36 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.smart.SmartObject;
+import java.util.List;
+
+
+/**
+ * This class defines a notary seal that is signed by several notaries.  Each notary signs the
+ * same attributes independently so the signatures can be generated in parallel, and the seal
+ * is valid once the threshold number of them have been verified.
+ *
+ * @author Derk Norton
+ */
+public final class CoSignedSeal extends SmartObject<CoSignedSeal> {
+
+    /**
+     * The actual attributes that make up the co-signed seal.
+     */
+    public CoSealAttributes attributes;
+
+    /**
+     * The base 32 encoded signatures of the attributes, in the same order as the verification
+     * citations in the attributes.  The signature of a notary that has not signed is null.
+     */
+    public List<String> signatures;
+
+}
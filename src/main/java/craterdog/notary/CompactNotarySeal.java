@@ -0,0 +1,194 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.utils.Base32Utils;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+
+/**
+ * This class provides a compact in-memory representation of a notary seal for applications
+ * that hold very large numbers of seals.  The hashes and the signature are stored as raw bytes
+ * rather than base 32 strings, the timestamps are stored as milliseconds, and the document type,
+ * verification citation and watermark algorithms are shared with every other seal that uses the
+ * same <code>SealInterner</code>.  A compact seal can be converted back into a notary seal whose
+ * attributes serialize to exactly the same bytes as the original, so its signature can still
+ * be verified.
+ * <p>
+ * Instances of this class are immutable.
+ *
+ * @author Derk Norton
+ */
+public final class CompactNotarySeal {
+
+    private final String documentType;
+    private final byte[] documentHash;
+    private final byte[] previousSealHash;
+    private final Watermark algorithms;
+    private final long creationTimestamp;
+    private final long expirationTimestamp;
+    private final DocumentCitation verificationCitation;
+    private final Map<String, Object> additional;
+    private final byte[] selfSignature;
+
+
+    /**
+     * This constructor creates a compact copy of the specified notary seal.
+     *
+     * @param seal The notary seal to be copied.
+     * @param interner The interner used to share values with other compact seals.
+     * @throws IllegalArgumentException The seal is incomplete or its base 32 encodings are not
+     * canonical, so it cannot be reproduced exactly.
+     */
+    public CompactNotarySeal(NotarySeal seal, SealInterner interner) {
+        SealAttributes attributes = seal.attributes;
+        if (attributes == null || attributes.watermark == null) {
+            throw new IllegalArgumentException("The notary seal is incomplete: " + seal);
+        }
+        Watermark watermark = attributes.watermark;
+        if (watermark.creationTimestamp == null || watermark.expirationTimestamp == null) {
+            throw new IllegalArgumentException("The notary seal watermark is incomplete: " + seal);
+        }
+        this.documentType = interner.intern(attributes.documentType);
+        this.documentHash = decode(attributes.documentHash);
+        this.previousSealHash = decode(attributes.previousSealHash);
+        this.algorithms = interner.internAlgorithms(watermark);
+        this.creationTimestamp = watermark.creationTimestamp.getMillis();
+        this.expirationTimestamp = watermark.expirationTimestamp.getMillis();
+        this.verificationCitation = interner.intern(attributes.verificationCitation);
+        this.additional = attributes.additional().isEmpty() ? null : new LinkedHashMap<>(attributes.additional());
+        this.selfSignature = decode(seal.selfSignature);
+    }
+
+
+    /**
+     * This method returns the type of document that the seal notarizes.
+     *
+     * @return The document type.
+     */
+    public String getDocumentType() {
+        return documentType;
+    }
+
+
+    /**
+     * This method returns the hash of the document that the seal notarizes.
+     *
+     * @return A copy of the document hash.
+     */
+    public byte[] getDocumentHash() {
+        return documentHash == null ? null : documentHash.clone();
+    }
+
+
+    /**
+     * This method returns the citation to the certificate that can be used to verify the seal.
+     * The citation is shared and must not be modified.
+     *
+     * @return The verification citation.
+     */
+    public DocumentCitation getVerificationCitation() {
+        return verificationCitation;
+    }
+
+
+    /**
+     * This method reconstructs the notary seal from its compact representation.
+     *
+     * @return A new notary seal that is identical to the original seal.
+     */
+    public NotarySeal toNotarySeal() {
+        Watermark watermark = new Watermark();
+        watermark.hashingAlgorithm = algorithms.hashingAlgorithm;
+        watermark.signingAlgorithm = algorithms.signingAlgorithm;
+        watermark.majorVersion = algorithms.majorVersion;
+        watermark.minorVersion = algorithms.minorVersion;
+        watermark.creationTimestamp = new DateTime(creationTimestamp, DateTimeZone.UTC);
+        watermark.expirationTimestamp = new DateTime(expirationTimestamp, DateTimeZone.UTC);
+
+        SealAttributes attributes = new SealAttributes();
+        attributes.documentType = documentType;
+        attributes.documentHash = encode(documentHash);
+        attributes.watermark = watermark;
+        if (verificationCitation != null) {
+            attributes.verificationCitation = new DocumentCitation();
+            attributes.verificationCitation.documentLocation = verificationCitation.documentLocation;
+            attributes.verificationCitation.documentHash = verificationCitation.documentHash;
+        }
+        attributes.previousSealHash = encode(previousSealHash);
+        if (additional != null) {
+            for (Map.Entry<String, Object> attribute : additional.entrySet()) {
+                attributes.put(attribute.getKey(), attribute.getValue());
+            }
+        }
+
+        NotarySeal seal = new NotarySeal();
+        seal.attributes = attributes;
+        seal.selfSignature = encode(selfSignature);
+        return seal;
+    }
+
+
+    /*
+     * Two seals are only equal if every attribute matches since unsigned seals, or seals
+     * carrying a copied signature, may share the same signature bytes.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof CompactNotarySeal)) return false;
+        CompactNotarySeal that = (CompactNotarySeal) object;
+        return Arrays.equals(selfSignature, that.selfSignature)
+                && Arrays.equals(documentHash, that.documentHash)
+                && Arrays.equals(previousSealHash, that.previousSealHash)
+                && creationTimestamp == that.creationTimestamp
+                && expirationTimestamp == that.expirationTimestamp
+                && Objects.equals(documentType, that.documentType)
+                && Objects.equals(algorithms, that.algorithms)
+                && Objects.equals(verificationCitation, that.verificationCitation)
+                && Objects.equals(additional, that.additional);
+    }
+
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(selfSignature);
+        hash = 31 * hash + Arrays.hashCode(documentHash);
+        hash = 31 * hash + Long.hashCode(creationTimestamp);
+        return hash;
+    }
+
+
+    @Override
+    public String toString() {
+        return toNotarySeal().toString();
+    }
+
+
+    static private byte[] decode(String encoded) {
+        if (encoded == null) return null;
+        byte[] bytes = Base32Utils.decode(encoded);
+        if (!encoded.equals(Base32Utils.encode(bytes))) {
+            throw new IllegalArgumentException("The base 32 encoding is not canonical: " + encoded);
+        }
+        return bytes;
+    }
+
+
+    static private String encode(byte[] bytes) {
+        return bytes == null ? null : Base32Utils.encode(bytes);
+    }
+
+}
@@ -0,0 +1,47 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.security.MessageCryptex;
+import craterdog.security.RsaAesMessageCryptex;
+
+
+/**
+ * This class holds the cryptographic state that is shared by the notarization providers, the
+ * signing backends and the key mappers.  A single message cryptex is created the first time
+ * it is needed so that its algorithms are looked up and initialized only once per process.
+ *
+ * @author Derk Norton
+ */
+public final class CryptoContext {
+
+    private CryptoContext() {
+    }
+
+
+    /**
+     * This method returns the message cryptex that is shared by all notary classes.  The
+     * cryptex is thread safe.
+     *
+     * @return The shared message cryptex.
+     */
+    static public MessageCryptex getCryptex() {
+        return Holder.cryptex;
+    }
+
+
+    /*
+     * The holder defers the creation of the cryptex until it is first used.
+     */
+    static private final class Holder {
+        static private final MessageCryptex cryptex = new RsaAesMessageCryptex();
+    }
+
+}
@@ -0,0 +1,51 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.util.Map;
+
+
+/**
+ * This interface extends the notarization interface with methods that notarize and validate
+ * documents that were hashed by the caller, so that only the digest of a document needs to
+ * be sent to the notary.
+ *
+ * @author Derk Norton
+ */
+public interface DigestNotarization extends Notarization {
+
+    /**
+     * This method generates a digital seal from a digest of a document that was hashed by the
+     * caller using the specified private notary key.  The resulting seal is identical to one
+     * generated by notarizing the document itself using the same hashing algorithm.
+     *
+     * @param documentType The type of document being notarized.
+     * @param digest The cryptographic hash of the document bytes.
+     * @param hashingAlgorithm The hashing algorithm (including any tree mode parameters) that
+     * was used to generate the digest.
+     * @param notaryKey The notary key used to notarize the document.
+     * @return The newly generated digital seal.
+     */
+    NotarySeal notarizeDigest(String documentType, byte[] digest, String hashingAlgorithm, NotaryKey notaryKey);
+
+    /**
+     * This method uses the specified public verification key to verify that the specified
+     * digital seal is valid for a document with the specified digest.
+     *
+     * @param digest The cryptographic hash of the notarized document bytes.
+     * @param hashingAlgorithm The hashing algorithm (including any tree mode parameters) that
+     * was used to generate the digest.
+     * @param seal The digital seal for the document.
+     * @param certificate The verification certificate of the notary that signed the document.
+     * @param errors A map containing any errors that were found.
+     */
+    void validateDigest(byte[] digest, String hashingAlgorithm, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors);
+
+}
@@ -0,0 +1,263 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * This class generates the cryptographic hash of a document.  In its default (sequential) mode
+ * the hash is a plain SHA-256 digest of the document bytes.  In tree mode the document is split
+ * into fixed size chunks that are hashed in parallel using a fork-join pool and the chunk hashes
+ * are combined into a Merkle tree whose root is the hash of the document.  The tree is shaped
+ * the same way regardless of the number of threads so the resulting hash depends only on the
+ * document and the chunk size.
+ * <p>
+ * The hashing mode and chunk size are recorded in the hashing algorithm of the watermark for a
+ * notary seal (e.g. <code>SHA256-TREE-4194304</code>) so that the seal can be validated using
+ * the same mode.
+ *
+ * @author Derk Norton
+ */
+public final class DocumentHasher {
+
+    /**
+     * The marker that separates the base hashing algorithm from the chunk size in the name of
+     * a tree hashing algorithm.
+     */
+    static public final String TREE_MODE = "-TREE-";
+
+    /**
+     * The smallest chunk size allowed for tree hashing.
+     */
+    static public final int MINIMUM_CHUNK_SIZE = 4096;
+
+    /**
+     * The length in bytes of the hash generated for a document.
+     */
+    static public final int DIGEST_LENGTH = 32;
+
+    static private final String DIGEST_ALGORITHM = "SHA-256";
+    static private final byte LEAF_PREFIX = 0x00;
+    static private final byte NODE_PREFIX = 0x01;
+    static private final long MAXIMUM_SEGMENT_SIZE = 1L << 30;  // one gigabyte per memory mapping
+
+    /**
+     * The size of each chunk in bytes for tree hashing, or zero for sequential hashing.
+     */
+    public final int chunkSize;
+
+    private final ForkJoinPool pool;
+
+
+    /**
+     * This default constructor creates a hasher that hashes documents sequentially.
+     */
+    public DocumentHasher() {
+        this.chunkSize = 0;
+        this.pool = null;
+    }
+
+
+    /**
+     * This constructor creates a hasher that hashes the chunks of a document in parallel
+     * using the common fork-join pool.
+     *
+     * @param chunkSize The size of each chunk in bytes.
+     */
+    public DocumentHasher(int chunkSize) {
+        this(chunkSize, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * This constructor creates a hasher that hashes the chunks of a document in parallel
+     * using the specified fork-join pool.
+     *
+     * @param chunkSize The size of each chunk in bytes.
+     * @param pool The fork-join pool used to hash the chunks.
+     */
+    public DocumentHasher(int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < MINIMUM_CHUNK_SIZE) {
+            throw new IllegalArgumentException("The chunk size must be at least " + MINIMUM_CHUNK_SIZE + " bytes: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+
+    /**
+     * This method returns a hasher that can be used to hash documents using the specified
+     * hashing algorithm as recorded in a watermark.
+     *
+     * @param hashingAlgorithm The name of the hashing algorithm.
+     * @return The corresponding hasher, or null if the algorithm name is not valid.
+     */
+    static public DocumentHasher forAlgorithm(String hashingAlgorithm) {
+        if (hashingAlgorithm == null || hashingAlgorithm.endsWith(FieldTree.FIELDS_MODE)) return null;
+        int index = hashingAlgorithm.lastIndexOf(TREE_MODE);
+        if (index < 0) return new DocumentHasher();
+        try {
+            int chunkSize = Integer.parseInt(hashingAlgorithm.substring(index + TREE_MODE.length()));
+            return chunkSize < MINIMUM_CHUNK_SIZE ? null : new DocumentHasher(chunkSize);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * This method returns whether or not this hasher uses tree mode.
+     *
+     * @return Whether or not the chunks of a document are hashed in parallel.
+     */
+    public boolean isTreeMode() {
+        return chunkSize > 0;
+    }
+
+
+    /**
+     * This method returns the name of the hashing algorithm that should be recorded in
+     * a watermark for hashes generated by this hasher.
+     *
+     * @param baseAlgorithm The name of the underlying hashing algorithm.
+     * @return The name of the hashing algorithm including any tree mode parameters.
+     */
+    public String getAlgorithm(String baseAlgorithm) {
+        return isTreeMode() ? baseAlgorithm + TREE_MODE + chunkSize : baseAlgorithm;
+    }
+
+
+    /**
+     * This method generates the hash of the specified document bytes.
+     *
+     * @param document The bytes of the document to be hashed.
+     * @return The hash of the document.
+     */
+    public byte[] hash(byte[] document) {
+        return hash(new ByteBuffer[] { ByteBuffer.wrap(document) }, document.length);
+    }
+
+
+    /**
+     * This method generates the hash of the file at the specified path.  The file is memory
+     * mapped rather than read into the heap.
+     *
+     * @param document The path to the document to be hashed.
+     * @return The hash of the document.
+     * @throws IOException The file could not be read.
+     */
+    public byte[] hash(Path document) throws IOException {
+        try (FileChannel channel = FileChannel.open(document, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long segmentSize = MAXIMUM_SEGMENT_SIZE;
+            if (isTreeMode()) {
+                // keep each chunk within a single segment
+                segmentSize = Math.max(1, MAXIMUM_SEGMENT_SIZE / chunkSize) * chunkSize;
+            }
+            int count = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+            ByteBuffer[] segments = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = i * segmentSize;
+                long length = Math.min(segmentSize, size - offset);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            return hash(segments, size);
+        }
+    }
+
+
+    private byte[] hash(ByteBuffer[] segments, long size) {
+        if (!isTreeMode()) {
+            MessageDigest hasher = createDigest();
+            for (ByteBuffer segment : segments) {
+                hasher.update(segment.duplicate());
+            }
+            return hasher.digest();
+        }
+        long chunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+        SubtreeTask root = new SubtreeTask(segments, size, 0, chunks);
+        return pool.invoke(root);
+    }
+
+
+    static private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("An unexpected exception occurred while attempting to create a " + DIGEST_ALGORITHM + " digest.", e);
+        }
+    }
+
+
+    /*
+     * This task generates the root hash of the subtree that covers a range of chunks.  The
+     * range is split at the largest power of two that is less than its length so that the
+     * shape of the tree depends only on the number of chunks.
+     */
+    private final class SubtreeTask extends RecursiveTask<byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer[] segments;
+        private final long size;
+        private final long first;
+        private final long last;
+
+        SubtreeTask(ByteBuffer[] segments, long size, long first, long last) {
+            this.segments = segments;
+            this.size = size;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected byte[] compute() {
+            long count = last - first;
+            if (count == 1) return hashLeaf();
+            long split = Long.highestOneBit(count - 1);
+            SubtreeTask left = new SubtreeTask(segments, size, first, first + split);
+            SubtreeTask right = new SubtreeTask(segments, size, first + split, last);
+            left.fork();
+            byte[] rightHash = right.compute();
+            byte[] leftHash = left.join();
+            MessageDigest hasher = createDigest();
+            hasher.update(NODE_PREFIX);
+            hasher.update(leftHash);
+            hasher.update(rightHash);
+            return hasher.digest();
+        }
+
+        private byte[] hashLeaf() {
+            MessageDigest hasher = createDigest();
+            hasher.update(LEAF_PREFIX);
+            long offset = first * chunkSize;
+            if (offset < size) {
+                long segmentSize = segments[0].capacity();
+                ByteBuffer chunk = segments[(int) (offset / segmentSize)].duplicate();
+                int position = (int) (offset % segmentSize);
+                chunk.position(position);
+                chunk.limit((int) Math.min(chunk.capacity(), position + (long) chunkSize));
+                hasher.update(chunk);
+            }
+            return hasher.digest();
+        }
+
+    }
+
+}
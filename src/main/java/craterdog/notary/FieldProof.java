@@ -0,0 +1,55 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.smart.SmartObject;
+import java.util.List;
+
+/**
+ * This class defines a proof that a single field belongs to a JSON document that was
+ * notarized field by field.  It discloses the value of the field and the hashes of the
+ * sibling nodes on the path from the field to the root of the Merkle tree, but nothing
+ * about the values of the other fields.
+ *
+ * @author Derk Norton
+ */
+public final class FieldProof extends SmartObject<FieldProof> {
+
+    /**
+     * The JSON pointer to the field within the document (e.g. "/address/city").
+     */
+    public String path;
+
+    /**
+     * The value of the field as canonical JSON text.
+     */
+    public String value;
+
+    /**
+     * The base 32 encoded salt that was mixed into the hash of the field.
+     */
+    public String salt;
+
+    /**
+     * The index of the field within the sorted fields of the document.
+     */
+    public int fieldIndex;
+
+    /**
+     * The total number of fields in the document.
+     */
+    public int fieldCount;
+
+    /**
+     * The base 32 encoded hashes of the sibling nodes from the field up to the root.
+     */
+    public List<String> siblingHashes;
+
+}
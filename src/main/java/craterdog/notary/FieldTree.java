@@ -0,0 +1,370 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import craterdog.smart.SmartObject;
+import craterdog.utils.Base32Utils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * This class maintains a Merkle tree over the fields of a JSON document so that the document
+ * can be notarized field by field.  Each leaf of the tree is a scalar value, or an empty object
+ * or array, identified by its JSON pointer.  The leaves are sorted by their pointers so the
+ * tree does not depend on the order of the fields in the JSON text.  The root of the tree is
+ * signed in place of the hash of the whole document.
+ * <p>
+ * The hash of each leaf mixes in a salt that is derived from a secret salt key and the pointer
+ * of the leaf, so that disclosing one field, along with the hashes on its proof path, does not
+ * allow the values of the other fields to be guessed.  The salt key must be kept with the
+ * document by whoever will need to generate proofs or reseal it.
+ * <p>
+ * Changing the value of an existing field only rehashes that leaf and its ancestors.  Adding or
+ * removing fields rebuilds the interior of the tree, but the other leaves are not rehashed.
+ * This class is not thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class FieldTree {
+
+    /**
+     * The suffix that is appended to the hashing algorithm in the watermark of a notary seal
+     * for a document that was notarized field by field.
+     */
+    static public final String FIELDS_MODE = "-FIELDS";
+
+    static private final ObjectMapper mapper = SmartObject.createMapper();
+    static private final SecureRandom random = new SecureRandom();
+    static private final int SALT_KEY_SIZE = 32;
+    static private final byte LEAF = 0;
+    static private final byte NODE = 1;
+
+    private final byte[] saltKey;
+    private final TreeMap<String, Field> fields = new TreeMap<>();
+    private final List<byte[][]> levels = new ArrayList<>();  // level zero holds the leaf hashes
+
+
+    /**
+     * This constructor creates the tree for a JSON document using a new random salt key.
+     *
+     * @param json The JSON document.
+     * @throws IOException The document is not valid JSON.
+     */
+    public FieldTree(String json) throws IOException {
+        this(json, null);
+    }
+
+
+    /**
+     * This constructor creates the tree for a JSON document using an existing salt key, for
+     * example to reseal or to generate proofs for a document that was notarized earlier.
+     *
+     * @param json The JSON document.
+     * @param saltKey The base 32 encoded salt key, or null to generate a new one.
+     * @throws IOException The document is not valid JSON.
+     */
+    public FieldTree(String json, String saltKey) throws IOException {
+        if (saltKey == null) {
+            this.saltKey = new byte[SALT_KEY_SIZE];
+            random.nextBytes(this.saltKey);
+        } else {
+            this.saltKey = Base32Utils.decode(saltKey);
+        }
+        addFields("", mapper.readTree(json));
+        rebuild();
+    }
+
+
+    /**
+     * This method returns the salt key of the tree.  It must be kept secret along with the
+     * document.
+     *
+     * @return The base 32 encoded salt key.
+     */
+    public String getSaltKey() {
+        return Base32Utils.encode(saltKey);
+    }
+
+
+    /**
+     * This method returns the number of fields (leaves) in the tree.
+     *
+     * @return The number of fields.
+     */
+    public int size() {
+        return fields.size();
+    }
+
+
+    /**
+     * This method returns the value of the specified field.
+     *
+     * @param path The JSON pointer to the field.
+     * @return The value of the field as canonical JSON text, or null if there is no such field.
+     */
+    public String getField(String path) {
+        Field field = fields.get(path);
+        return field == null ? null : field.value;
+    }
+
+
+    /**
+     * This method returns the root hash of the tree, which is signed as the document hash.
+     *
+     * @return The base 32 encoded root hash.
+     */
+    public String getRootHash() {
+        return Base32Utils.encode(levels.get(levels.size() - 1)[0]);
+    }
+
+
+    /**
+     * This method sets the value of the field at the specified path.  Any fields below the
+     * path are replaced by the fields of the new value, and an empty object or array that
+     * contained the path is replaced by the new field.
+     *
+     * @param path The JSON pointer to the field.
+     * @param json The new value of the field as JSON text.
+     * @throws IOException The value is not valid JSON.
+     */
+    public void setField(String path, String json) throws IOException {
+        JsonNode value = mapper.readTree(json);
+        Field field = fields.get(path);
+        if (field != null && isLeaf(value)) {
+            // the common case, an existing value changes so only its path is rehashed
+            field.value = value.toString();
+            field.hash = hashLeaf(path, field.value);
+            updatePath(fields.headMap(path).size(), field.hash);
+            return;
+        }
+        removeFields(path);
+        for (int index = path.lastIndexOf('/'); index >= 0; index = path.lastIndexOf('/', index - 1)) {
+            fields.remove(path.substring(0, index));  // an empty container that held the path
+            if (index == 0) break;
+        }
+        addFields(path, value);
+        rebuild();
+    }
+
+
+    /**
+     * This method removes the field at the specified path along with any fields below it.
+     *
+     * @param path The JSON pointer to the field.
+     */
+    public void removeField(String path) {
+        if (removeFields(path)) {
+            if (fields.isEmpty()) addField("", "{}");
+            rebuild();
+        }
+    }
+
+
+    /**
+     * This method generates a proof that the specified field belongs to the document.
+     *
+     * @param path The JSON pointer to the field.
+     * @return The proof, or null if there is no such field.
+     */
+    public FieldProof proveField(String path) {
+        Field field = fields.get(path);
+        if (field == null) return null;
+        FieldProof proof = new FieldProof();
+        proof.path = path;
+        proof.value = field.value;
+        proof.salt = Base32Utils.encode(saltFor(path));
+        proof.fieldIndex = fields.headMap(path).size();
+        proof.fieldCount = fields.size();
+        proof.siblingHashes = new ArrayList<>();
+        int index = proof.fieldIndex;
+        for (int level = 0; level < levels.size() - 1; level++) {
+            byte[][] nodes = levels.get(level);
+            int sibling = index ^ 1;
+            if (sibling < nodes.length) proof.siblingHashes.add(Base32Utils.encode(nodes[sibling]));
+            index >>= 1;
+        }
+        return proof;
+    }
+
+
+    /**
+     * This method recomputes the root hash of a tree from a field proof.
+     *
+     * @param proof The field proof.
+     * @return The base 32 encoded root hash, or null if the proof is malformed.
+     */
+    static public String computeRootHash(FieldProof proof) {
+        if (proof == null || proof.path == null || proof.value == null || proof.salt == null || proof.siblingHashes == null) return null;
+        if (proof.fieldIndex < 0 || proof.fieldIndex >= proof.fieldCount) return null;
+        try {
+            byte[] hash = hashLeaf(proof.path, proof.value, Base32Utils.decode(proof.salt));
+            Iterator<String> siblings = proof.siblingHashes.iterator();
+            int index = proof.fieldIndex;
+            for (int width = proof.fieldCount; width > 1; width = (width + 1) / 2) {
+                int sibling = index ^ 1;
+                if (sibling < width) {
+                    if (!siblings.hasNext()) return null;
+                    byte[] siblingHash = Base32Utils.decode(siblings.next());
+                    hash = (index & 1) == 0 ? hashNode(hash, siblingHash) : hashNode(siblingHash, hash);
+                }
+                index >>= 1;
+            }
+            return siblings.hasNext() ? null : Base32Utils.encode(hash);
+        } catch (RuntimeException e) {
+            return null;  // the encoding of the salt or a sibling hash is not valid
+        }
+    }
+
+
+    private void addFields(String path, JsonNode value) {
+        if (isLeaf(value)) {
+            addField(path, value.toString());
+        } else if (value.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> iterator = value.fields();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iterator.next();
+                addFields(path + "/" + escape(entry.getKey()), entry.getValue());
+            }
+        } else {
+            for (int i = 0; i < value.size(); i++) {
+                addFields(path + "/" + i, value.get(i));
+            }
+        }
+    }
+
+
+    private void addField(String path, String value) {
+        Field field = new Field();
+        field.value = value;
+        field.hash = hashLeaf(path, value);
+        fields.put(path, field);
+    }
+
+
+    private boolean removeFields(String path) {
+        boolean removed = fields.remove(path) != null;
+        Map<String, Field> descendants = fields.subMap(path + "/", path + "0");  // '0' follows '/'
+        removed |= !descendants.isEmpty();
+        descendants.clear();
+        return removed;
+    }
+
+
+    private void rebuild() {
+        levels.clear();
+        byte[][] nodes = new byte[fields.size()][];
+        int i = 0;
+        for (Field field : fields.values()) nodes[i++] = field.hash;
+        levels.add(nodes);
+        while (nodes.length > 1) {
+            byte[][] parents = new byte[(nodes.length + 1) / 2][];
+            for (int j = 0; j < parents.length; j++) {
+                int left = 2 * j;
+                parents[j] = left + 1 < nodes.length ? hashNode(nodes[left], nodes[left + 1]) : nodes[left];
+            }
+            levels.add(parents);
+            nodes = parents;
+        }
+    }
+
+
+    private void updatePath(int index, byte[] hash) {
+        levels.get(0)[index] = hash;
+        for (int level = 1; level < levels.size(); level++) {
+            byte[][] children = levels.get(level - 1);
+            int left = index & ~1;
+            index >>= 1;
+            levels.get(level)[index] = left + 1 < children.length ? hashNode(children[left], children[left + 1]) : children[left];
+        }
+    }
+
+
+    static private boolean isLeaf(JsonNode value) {
+        return !value.isContainerNode() || value.size() == 0;
+    }
+
+
+    static private String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+
+
+    private byte[] saltFor(String path) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(saltKey, "HmacSHA256"));
+            return mac.doFinal(path.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("An unexpected exception occurred while attempting to generate a field salt.", e);
+        }
+    }
+
+
+    private byte[] hashLeaf(String path, String value) {
+        return hashLeaf(path, value, saltFor(path));
+    }
+
+
+    /*
+     * The lengths of the path and salt are encoded so that no two leaves share an encoding.
+     */
+    static private byte[] hashLeaf(String path, String value, byte[] salt) {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        MessageDigest hasher = newHasher();
+        hasher.update(LEAF);
+        hasher.update(ByteBuffer.allocate(8).putInt(salt.length).putInt(pathBytes.length).array());
+        hasher.update(salt);
+        hasher.update(pathBytes);
+        hasher.update(value.getBytes(StandardCharsets.UTF_8));
+        return hasher.digest();
+    }
+
+
+    static private byte[] hashNode(byte[] left, byte[] right) {
+        MessageDigest hasher = newHasher();
+        hasher.update(NODE);
+        hasher.update(left);
+        hasher.update(right);
+        return hasher.digest();
+    }
+
+
+    static private MessageDigest newHasher() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("An unexpected exception occurred while attempting to create a SHA-256 digest.", e);
+        }
+    }
+
+
+    /*
+     * This class captures the value of a field and its leaf hash.
+     */
+    static private final class Field {
+        String value;
+        byte[] hash;
+    }
+
+}
@@ -0,0 +1,161 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * This class renews the notary key for an identity so that the resulting chain of certificates
+ * forms a skip list.  Every certificate is certified by the previous key as usual.  In
+ * addition, the certificate at (zero based) position <code>i</code> in the chain is a
+ * checkpoint for each level <code>k</code> from one up to the number of trailing zero bits in
+ * <code>i</code>, and carries a checkpoint seal signed by the key of the certificate at
+ * position <code>i - 2^k</code>.  Every second certificate jumps back two positions, every
+ * fourth one four positions, and so on, which allows the
+ * <code>V1NotarizationProvider.validateCertificateHistory</code> method to validate any
+ * certificate against the first one using O(log N) signature verifications.
+ * <p>
+ * To sign the checkpoint seals the chain retains the O(log N) earlier keys that later
+ * certificates will need.  A retained key that has expired is dropped and the corresponding
+ * checkpoint seal is omitted, so the validator falls back to shorter jumps.  The retained keys
+ * must be persisted along with the current key if the chain is to be continued later.  This
+ * class is not thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class IdentityChain {
+
+    private final V1NotarizationProvider notary;
+    private final URI baseUri;
+    private final TreeMap<Integer, NotaryKey> checkpointKeys = new TreeMap<>();  // by position
+    private NotaryKey notaryKey;
+
+
+    /**
+     * This constructor creates a new identity chain starting with a new notary key.
+     *
+     * @param notary The notarization provider used to generate the keys.
+     * @param baseUri The base URI of the identity registry.
+     */
+    public IdentityChain(V1NotarizationProvider notary, URI baseUri) {
+        this(notary, baseUri, notary.generateNotaryKey(baseUri), null);
+    }
+
+
+    /**
+     * This constructor creates an identity chain that continues an existing chain.
+     *
+     * @param notary The notarization provider used to generate the keys.
+     * @param baseUri The base URI of the identity registry.
+     * @param notaryKey The current notary key for the identity.
+     * @param checkpointKeys The earlier keys that were retained by the existing chain, or null
+     * if there are none.
+     */
+    public IdentityChain(V1NotarizationProvider notary, URI baseUri, NotaryKey notaryKey, Collection<NotaryKey> checkpointKeys) {
+        this.notary = notary;
+        this.baseUri = baseUri;
+        this.notaryKey = notaryKey;
+        if (checkpointKeys != null) {
+            for (NotaryKey checkpointKey : checkpointKeys) {
+                this.checkpointKeys.put(positionOf(checkpointKey), checkpointKey);
+            }
+        }
+        retain(notaryKey);
+    }
+
+
+    /**
+     * This method returns the current notary key for the identity.
+     *
+     * @return The current notary key.
+     */
+    public NotaryKey getNotaryKey() {
+        return notaryKey;
+    }
+
+
+    /**
+     * This method returns the earlier keys that are retained to sign future checkpoint seals.
+     * They must be persisted along with the current key to continue the chain later.
+     *
+     * @return The retained keys in chain order.
+     */
+    public List<NotaryKey> getCheckpointKeys() {
+        return new ArrayList<>(checkpointKeys.values());
+    }
+
+
+    /**
+     * This method renews the notary key for the identity, signing any checkpoint seals that
+     * are due for the new certificate.
+     *
+     * @return The new notary key.
+     */
+    public NotaryKey renewNotaryKey() {
+        return renewNotaryKey(null);
+    }
+
+
+    /**
+     * This method renews the notary key for the identity, signing any checkpoint seals that
+     * are due for the new certificate.
+     *
+     * @param additionalAttributes Any additional attributes for the new certificate.
+     * @return The new notary key.
+     */
+    public NotaryKey renewNotaryKey(Map<String, Object> additionalAttributes) {
+        int position = positionOf(notaryKey) + 1;
+        List<NotaryKey> signers = null;
+        int levels = Integer.numberOfTrailingZeros(position);
+        if (levels > 0) {
+            signers = new ArrayList<>(levels);
+            for (int level = 1; level <= levels; level++) {
+                signers.add(checkpointKeys.get(position - (1 << level)));  // null if it was dropped
+            }
+        }
+        notaryKey = notary.generateNotaryKey(baseUri, additionalAttributes, notaryKey, signers);
+        retain(notaryKey);
+        return notaryKey;
+    }
+
+
+    /*
+     * The key at position i is needed by the positions i + 2^k for each level k up to the
+     * number of trailing zero bits in i.  The key at position zero is needed by every power
+     * of two so it is kept until it expires.
+     */
+    private void retain(NotaryKey newKey) {
+        int position = positionOf(newKey);
+        if (position == 0 || (position & 1) == 0) checkpointKeys.put(position, newKey);
+        Iterator<Map.Entry<Integer, NotaryKey>> iterator = checkpointKeys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, NotaryKey> entry = iterator.next();
+            int retained = entry.getKey();
+            boolean needed = retained == 0 || retained + (1L << Integer.numberOfTrailingZeros(retained)) > position;
+            Map<String, Object> errors = new LinkedHashMap<>();
+            notary.validateWatermark(entry.getValue().watermark, errors);
+            if (!needed || !errors.isEmpty()) iterator.remove();
+        }
+    }
+
+
+    static private int positionOf(NotaryKey notaryKey) {
+        return notaryKey.verificationCertificate.attributes.sequenceNumber - 1;
+    }
+
+}
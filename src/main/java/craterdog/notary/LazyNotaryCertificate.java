@@ -0,0 +1,155 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * This class provides a lazily parsed view of a JSON encoded notary certificate.  Only the
+ * location of each top level attribute is recorded when the certificate is created, the
+ * certificate attributes and certification seal are parsed the first time they are accessed.
+ * The self signature of the certificate is verified against the raw bytes of the certificate
+ * attributes as they were received rather than a re-serialization of the parsed attributes.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class LazyNotaryCertificate {
+
+    private final RawJsonObject json;
+    private CertificateAttributes attributes;
+    private NotarySeal certificationSeal;
+    private byte[] signedBytes;
+
+
+    /**
+     * This constructor scans the specified JSON encoded notary certificate.
+     *
+     * @param json The UTF-8 bytes of the JSON encoded notary certificate.
+     * @throws IOException The JSON is not a valid object.
+     */
+    public LazyNotaryCertificate(byte[] json) throws IOException {
+        this.json = new RawJsonObject(json);
+    }
+
+
+    /**
+     * This constructor scans the specified JSON encoded notary certificate.
+     *
+     * @param json The JSON encoded notary certificate.
+     * @throws IOException The JSON is not a valid object.
+     */
+    public LazyNotaryCertificate(String json) throws IOException {
+        this(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * This method returns the base 32 encoded signature of the certificate attributes.
+     *
+     * @return The self signature of the certificate, or null if it is missing.
+     */
+    public String getSelfSignature() {
+        return json.getString("selfSignature");
+    }
+
+
+    /**
+     * This method returns the certificate attributes, parsing them the first time they are
+     * accessed.
+     *
+     * @return The certificate attributes, or null if they are missing.
+     * @throws IOException The attributes could not be parsed.
+     */
+    public CertificateAttributes getAttributes() throws IOException {
+        if (attributes == null) {
+            attributes = json.parse("attributes", CertificateAttributes.class);
+        }
+        return attributes;
+    }
+
+
+    /**
+     * This method returns the certification seal, parsing it the first time it is accessed.
+     *
+     * @return The certification seal, or null if there is none.
+     * @throws IOException The seal could not be parsed.
+     */
+    public NotarySeal getCertificationSeal() throws IOException {
+        if (certificationSeal == null) {
+            certificationSeal = json.parse("certificationSeal", NotarySeal.class);
+        }
+        return certificationSeal;
+    }
+
+
+    /**
+     * This method returns the bytes that were signed to generate the self signature of the
+     * certificate.
+     *
+     * @return The signed bytes.
+     * @throws IOException The attributes could not be parsed for re-serialization.
+     */
+    public byte[] getSignedBytes() throws IOException {
+        if (signedBytes == null) {
+            signedBytes = json.getStandaloneBytes("attributes");
+            if (signedBytes == null) {
+                CertificateAttributes parsed = getAttributes();
+                signedBytes = parsed == null ? null : parsed.toString().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return signedBytes;
+    }
+
+
+    /**
+     * This method returns the bytes of the whole certificate that are hashed by a citation to
+     * the certificate.  These are the bytes that were received if the certificate was pretty
+     * printed, otherwise the parsed certificate is re-serialized.
+     *
+     * @return The cited bytes.
+     * @throws IOException The certificate could not be parsed for re-serialization.
+     */
+    public byte[] getCitedBytes() throws IOException {
+        if (json.getStandaloneBytes("attributes") != null) {
+            byte[] bytes = json.getBytes();
+            int length = bytes.length;
+            while (length > 0 && Character.isWhitespace(bytes[length - 1])) length--;
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+        return toNotaryCertificate().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * This method returns the raw bytes of the certificate as they were received.
+     *
+     * @return The raw bytes of the certificate.
+     */
+    public byte[] getBytes() {
+        return json.getBytes();
+    }
+
+
+    /**
+     * This method fully parses the certificate.
+     *
+     * @return The corresponding notary certificate.
+     * @throws IOException The certificate could not be parsed.
+     */
+    public NotaryCertificate toNotaryCertificate() throws IOException {
+        return RawJsonObject.mapper.readValue(json.getBytes(), NotaryCertificate.class);
+    }
+
+}
@@ -0,0 +1,129 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * This class provides a lazily parsed view of a JSON encoded notary seal.  Only the location
+ * of each top level attribute is recorded when the seal is created, the seal attributes are
+ * parsed the first time they are accessed.  The signature of the seal is verified against the
+ * raw bytes of the seal attributes as they were received rather than a re-serialization of the
+ * parsed attributes.  If the seal was not pretty printed (e.g. it was read from an NDJSON file)
+ * the attributes are re-serialized as a fallback.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class LazyNotarySeal {
+
+    private final RawJsonObject json;
+    private SealAttributes attributes;
+    private byte[] signedBytes;
+
+
+    /**
+     * This constructor scans the specified JSON encoded notary seal.
+     *
+     * @param json The UTF-8 bytes of the JSON encoded notary seal.
+     * @throws IOException The JSON is not a valid object.
+     */
+    public LazyNotarySeal(byte[] json) throws IOException {
+        this.json = new RawJsonObject(json);
+    }
+
+
+    /**
+     * This constructor scans the specified JSON encoded notary seal.
+     *
+     * @param json The JSON encoded notary seal.
+     * @throws IOException The JSON is not a valid object.
+     */
+    public LazyNotarySeal(String json) throws IOException {
+        this(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * This method returns the base 32 encoded signature of the seal attributes.
+     *
+     * @return The self signature of the seal, or null if it is missing.
+     */
+    public String getSelfSignature() {
+        return json.getString("selfSignature");
+    }
+
+
+    /**
+     * This method returns whether or not the seal contains any attributes.
+     *
+     * @return Whether or not the attributes are present.
+     */
+    public boolean hasAttributes() {
+        return json.has("attributes");
+    }
+
+
+    /**
+     * This method returns the seal attributes, parsing them the first time they are accessed.
+     *
+     * @return The seal attributes, or null if they are missing.
+     * @throws IOException The attributes could not be parsed.
+     */
+    public SealAttributes getAttributes() throws IOException {
+        if (attributes == null) {
+            attributes = json.parse("attributes", SealAttributes.class);
+        }
+        return attributes;
+    }
+
+
+    /**
+     * This method returns the bytes that were signed to generate the self signature of the seal.
+     *
+     * @return The signed bytes.
+     * @throws IOException The attributes could not be parsed for re-serialization.
+     */
+    public byte[] getSignedBytes() throws IOException {
+        if (signedBytes == null) {
+            signedBytes = json.getStandaloneBytes("attributes");
+            if (signedBytes == null) {
+                SealAttributes parsed = getAttributes();
+                signedBytes = parsed == null ? null : parsed.toString().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return signedBytes;
+    }
+
+
+    /**
+     * This method returns the raw bytes of the seal as they were received.
+     *
+     * @return The raw bytes of the seal.
+     */
+    public byte[] getBytes() {
+        return json.getBytes();
+    }
+
+
+    /**
+     * This method fully parses the seal.
+     *
+     * @return The corresponding notary seal.
+     * @throws IOException The seal could not be parsed.
+     */
+    public NotarySeal toNotarySeal() throws IOException {
+        return RawJsonObject.mapper.readValue(json.getBytes(), NotarySeal.class);
+    }
+
+}
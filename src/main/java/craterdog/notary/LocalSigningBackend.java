@@ -0,0 +1,31 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.security.MessageCryptex;
+
+
+/**
+ * This class implements a signing backend that signs bytes within the current process using
+ * the private signing key that is held in the notary key.
+ *
+ * @author Derk Norton
+ */
+public final class LocalSigningBackend implements SigningBackend {
+
+    static private final MessageCryptex cryptex = CryptoContext.getCryptex();
+
+
+    @Override
+    public byte[] signBytes(NotaryKey notaryKey, byte[] bytes) {
+        return cryptex.signBytes(notaryKey.signingKey, bytes);
+    }
+
+}
@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.net.URI;
+
+
+/**
+ * This interface defines the method that generates the unique locations of the notary
+ * certificates and identities that are created by a notarization provider.  Implementations
+ * must be thread safe.
+ *
+ * @author Derk Norton
+ */
+public interface LocationGenerator {
+
+    /**
+     * This method generates a new unique location of the form
+     * <code>[baseUri]/[category]/[identifier]</code>.
+     *
+     * @param baseUri The base URI of the identity registry.
+     * @param category The category of the location (e.g. "certificate" or "identity").
+     * @return The new location.
+     */
+    URI generateLocation(URI baseUri, String category);
+
+}
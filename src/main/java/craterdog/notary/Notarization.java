@@ -11,6 +11,9 @@ package craterdog.notary;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 
@@ -174,6 +177,27 @@ public interface Notarization {
      */
     NotarySeal notarizeDocument(String documentType, String document, NotaryKey notaryKey);
 
+    /**
+     * This method generates a digital seal from the document stored in the specified file
+     * using the specified private notary key.  The default implementation reads the file into
+     * a string and notarizes that; implementations should override it to hash the file
+     * without reading it into the heap.
+     * <p>
+     * The default implementation is only defined for files containing text in the default
+     * charset of the platform.  Any other bytes may not survive being decoded into a string,
+     * so the seal would not match the file.  Implementations that hash the raw bytes of the
+     * file must override this method.
+     *
+     * @param documentType The type of document being notarized.
+     * @param document The path to the file containing the document to be notarized.
+     * @param notaryKey The notary key used to notarize the document.
+     * @return The newly generated digital seal.
+     * @throws java.io.IOException The document could not be read.
+     */
+    default NotarySeal notarizeDocument(String documentType, Path document, NotaryKey notaryKey) throws IOException {
+        return notarizeDocument(documentType, new String(Files.readAllBytes(document), Charset.defaultCharset()), notaryKey);
+    }
+
     /**
      * This method uses the specified public verification key to verify that the specified
      * digital seal is valid for the specified document.
@@ -185,6 +209,25 @@ public interface Notarization {
      */
     void validateDocument(String document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors);
 
+    /**
+     * This method uses the specified public verification key to verify that the specified
+     * digital seal is valid for the document stored in the specified file.  The default
+     * implementation reads the file into a string and validates that; implementations should
+     * override it to hash the file without reading it into the heap.
+     * <p>
+     * Like the default <code>notarizeDocument</code> method, the default implementation is only
+     * defined for files containing text in the default charset of the platform.
+     *
+     * @param document The path to the file containing the notarized document to be verified.
+     * @param seal The digital seal for the document.
+     * @param certificate The verification certificate of the notary that signed the document.
+     * @param errors A map containing any errors that were found.
+     * @throws java.io.IOException The document could not be read.
+     */
+    default void validateDocument(Path document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) throws IOException {
+        validateDocument(new String(Files.readAllBytes(document), Charset.defaultCharset()), seal, certificate, errors);
+    }
+
     /**
      * This method checks to see if there are any errors and throws a validation exception
      * containing the errors if there are.
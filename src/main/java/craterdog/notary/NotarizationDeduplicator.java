@@ -0,0 +1,174 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * This class makes the notarization of documents idempotent within a time window.  A request
+ * to notarize a document with the same type and hash using the same notary key as an earlier
+ * request within the window returns the notary seal that was issued for the earlier request
+ * instead of signing a new one.  Concurrent duplicate requests are coalesced so that only one
+ * of them signs the seal and the others wait for it.  If the signing fails, all of the waiting
+ * requests fail with the same exception and nothing is remembered.
+ * <p>
+ * The seals are shared between the duplicate requests so they must not be modified.  A seal
+ * is never returned after the watermark of the notary key that signed it has expired.  The
+ * number of remembered seals is bounded, when the bound is reached the expired seals are
+ * evicted first and then arbitrary ones.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class NotarizationDeduplicator {
+
+    private final long windowMillis;
+    private final int maximumSize;
+    private final Map<String, Issuance> issuances = new ConcurrentHashMap<>();
+
+
+    /**
+     * This constructor creates a new deduplicator.
+     *
+     * @param windowSeconds The number of seconds during which duplicate requests return the
+     * same seal.
+     * @param maximumSize The maximum number of seals that are remembered.
+     */
+    public NotarizationDeduplicator(long windowSeconds, int maximumSize) {
+        if (windowSeconds < 1 || maximumSize < 1) {
+            throw new IllegalArgumentException("The window and maximum size must be positive.");
+        }
+        this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.maximumSize = maximumSize;
+    }
+
+
+    /**
+     * This method returns the number of seals that are remembered, including any that have
+     * expired but not yet been evicted.
+     *
+     * @return The number of remembered seals.
+     */
+    public int size() {
+        return issuances.size();
+    }
+
+
+    /**
+     * This method forgets all of the remembered seals.
+     */
+    public void clear() {
+        issuances.clear();
+    }
+
+
+    /*
+     * This method returns the seal that was issued for an earlier duplicate request, or calls
+     * the signer to issue a new one.
+     */
+    NotarySeal notarize(String documentType, String documentHash, String algorithm, NotaryKey notaryKey, Supplier<NotarySeal> signer) {
+        String key = generateKey(documentType, documentHash, algorithm, notaryKey);
+        if (key == null) return signer.get();
+        while (true) {
+            long now = System.currentTimeMillis();
+            Issuance issuance = issuances.get(key);
+            if (issuance != null && issuance.expiration <= now) {
+                issuances.remove(key, issuance);
+                issuance = null;
+            }
+            if (issuance == null) {
+                long expiration = Math.min(now + windowMillis, expirationOf(notaryKey.watermark));
+                if (expiration <= now) return signer.get();  // let the signer report the expired key
+                Issuance created = new Issuance(expiration);
+                issuance = issuances.putIfAbsent(key, created);
+                if (issuance == null) {
+                    evictIfFull(now);
+                    return issue(key, created, signer);
+                }
+                if (issuance.expiration <= now) continue;
+            }
+            return await(issuance);
+        }
+    }
+
+
+    private NotarySeal issue(String key, Issuance issuance, Supplier<NotarySeal> signer) {
+        try {
+            NotarySeal seal = signer.get();
+            issuance.seal.complete(seal);
+            return seal;
+        } catch (RuntimeException | Error e) {
+            issuances.remove(key, issuance);
+            issuance.seal.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+
+    static private NotarySeal await(Issuance issuance) {
+        try {
+            return issuance.seal.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+
+    private void evictIfFull(long now) {
+        if (issuances.size() <= maximumSize) return;
+        issuances.values().removeIf(issuance -> issuance.expiration <= now);
+        Iterator<Issuance> iterator = issuances.values().iterator();
+        while (issuances.size() > maximumSize && iterator.hasNext()) {
+            Issuance issuance = iterator.next();
+            if (issuance.seal.isDone()) iterator.remove();  // never strand a pending request
+        }
+    }
+
+
+    static private String generateKey(String documentType, String documentHash, String algorithm, NotaryKey notaryKey) {
+        if (notaryKey == null || notaryKey.verificationCertificate == null) return null;
+        CertificateAttributes attributes = notaryKey.verificationCertificate.attributes;
+        if (attributes == null || attributes.myLocation == null) return null;
+        return documentType + "\n" + algorithm + "\n" + documentHash + "\n" + attributes.myLocation;
+    }
+
+
+    static private long expirationOf(Watermark watermark) {
+        if (watermark == null || watermark.expirationTimestamp == null) return Long.MIN_VALUE;
+        return watermark.expirationTimestamp.getMillis();
+    }
+
+
+    /*
+     * This class captures a seal that has been, or is being, issued.
+     */
+    static private final class Issuance {
+
+        final CompletableFuture<NotarySeal> seal = new CompletableFuture<>();
+        final long expiration;
+
+        Issuance(long expiration) {
+            this.expiration = expiration;
+        }
+
+    }
+
+}
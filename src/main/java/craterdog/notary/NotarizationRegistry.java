@@ -0,0 +1,309 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class routes the validation of notary seals and certificates to the notarization
+ * provider that implements the version recorded in their watermarks.  The providers are
+ * discovered using the <code>ServiceLoader</code> mechanism, each provider jar lists its
+ * implementation in a <code>META-INF/services/craterdog.notary.Notarization</code> file.
+ * <p>
+ * A provider supports a watermark if it has the same major version and signing algorithm,
+ * the same minor version or a later one, and the same hashing algorithm optionally extended
+ * with a valid tree or field hashing mode.  The provider chosen for each distinct combination
+ * of watermark fields is cached, so validating a stream of seals with mixed versions only costs
+ * a hash lookup per call.  The watermarks are untrusted when they are looked up, so the cache
+ * is keyed on the base hashing algorithm and only supported combinations are cached.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class NotarizationRegistry {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(NotarizationRegistry.class);
+
+    private final List<Notarization> providers;
+    private final List<Watermark> versions;
+    private final Notarization latestProvider;
+    private final Map<VersionKey, Notarization> cache = new ConcurrentHashMap<>();
+
+
+    /**
+     * This default constructor creates a registry containing the providers that are visible
+     * to the context class loader of the current thread.
+     */
+    public NotarizationRegistry() {
+        this(ServiceLoader.load(Notarization.class));
+    }
+
+
+    /**
+     * This constructor creates a registry containing the providers that are visible to the
+     * specified class loader.
+     *
+     * @param classLoader The class loader used to discover the providers.
+     */
+    public NotarizationRegistry(ClassLoader classLoader) {
+        this(ServiceLoader.load(Notarization.class, classLoader));
+    }
+
+
+    /**
+     * This constructor creates a registry containing the specified providers.
+     *
+     * @param providers The notarization providers.
+     */
+    public NotarizationRegistry(Iterable<? extends Notarization> providers) {
+        List<Notarization> list = new ArrayList<>();
+        List<Watermark> watermarks = new ArrayList<>();
+        Notarization latest = null;
+        Watermark latestVersion = null;
+        for (Notarization provider : providers) {
+            Watermark version = provider.generateWatermark(Notarization.VALID_FOR_ONE_MINUTE);
+            logger.debug("Registering version {}.{} of the notarization provider {}...",
+                    version.majorVersion, version.minorVersion, provider.getClass().getName());
+            list.add(provider);
+            watermarks.add(version);
+            if (latestVersion == null || version.majorVersion > latestVersion.majorVersion
+                    || (version.majorVersion == latestVersion.majorVersion && version.minorVersion > latestVersion.minorVersion)) {
+                latest = provider;
+                latestVersion = version;
+            }
+        }
+        if (latest == null) {
+            throw new IllegalArgumentException("At least one notarization provider must be registered.");
+        }
+        this.providers = Collections.unmodifiableList(list);
+        this.versions = watermarks;
+        this.latestProvider = latest;
+    }
+
+
+    /**
+     * This method returns the providers in this registry.
+     *
+     * @return An unmodifiable list of the providers.
+     */
+    public List<Notarization> getProviders() {
+        return providers;
+    }
+
+
+    /**
+     * This method returns the provider in this registry with the latest version.  It should
+     * be used to generate new notary keys and seals.
+     *
+     * @return The latest provider.
+     */
+    public Notarization getLatestProvider() {
+        return latestProvider;
+    }
+
+
+    /**
+     * This method returns the provider that supports the version recorded in the specified
+     * watermark.
+     *
+     * @param watermark The watermark of a notary seal or certificate.
+     * @return The corresponding provider, or null if no provider supports the watermark.
+     */
+    public Notarization getProvider(Watermark watermark) {
+        VersionKey key = normalize(watermark);
+        if (key == null) return null;
+        Notarization provider = cache.get(key);
+        if (provider == null) {
+            provider = findProvider(key);
+            if (provider != null) cache.putIfAbsent(key, provider);  // bounded by the providers' versions
+        }
+        return provider;
+    }
+
+
+    /**
+     * This method validates a notary certificate using the provider that supports its version.
+     *
+     * @param certificate The notary certificate to be validated.
+     * @param previousCertificate The notary certificate that certified this one.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateNotaryCertificate(NotaryCertificate certificate, NotaryCertificate previousCertificate, Map<String, Object> errors) {
+        Watermark watermark = certificate == null || certificate.attributes == null ? null : certificate.attributes.watermark;
+        Notarization provider = selectProvider(watermark, errors);
+        if (provider != null) provider.validateNotaryCertificate(certificate, previousCertificate, errors);
+    }
+
+
+    /**
+     * This method validates a document using the provider that supports the version of its
+     * notary seal.
+     *
+     * @param document The document to be validated.
+     * @param seal The notary seal for the document.
+     * @param certificate The notary certificate containing the verification key.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateDocument(String document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        Notarization provider = selectProvider(getWatermark(seal), errors);
+        if (provider != null) provider.validateDocument(document, seal, certificate, errors);
+    }
+
+
+    /**
+     * This method validates a document file using the provider that supports the version of
+     * its notary seal.
+     *
+     * @param document The path to the document to be validated.
+     * @param seal The notary seal for the document.
+     * @param certificate The notary certificate containing the verification key.
+     * @param errors A map containing any errors that were found.
+     * @throws IOException The document could not be read.
+     */
+    public void validateDocument(Path document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) throws IOException {
+        Notarization provider = selectProvider(getWatermark(seal), errors);
+        if (provider != null) provider.validateDocument(document, seal, certificate, errors);
+    }
+
+
+    /**
+     * This method validates the digest of a document using the provider that supports the
+     * version of its notary seal.  The provider must implement the
+     * <code>DigestNotarization</code> interface.
+     *
+     * @param digest The digest of the document.
+     * @param hashingAlgorithm The hashing algorithm used to generate the digest.
+     * @param seal The notary seal for the document.
+     * @param certificate The notary certificate containing the verification key.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateDigest(byte[] digest, String hashingAlgorithm, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        Notarization provider = selectProvider(getWatermark(seal), errors);
+        if (provider instanceof DigestNotarization) {
+            ((DigestNotarization) provider).validateDigest(digest, hashingAlgorithm, seal, certificate, errors);
+        } else if (provider != null) {
+            logger.error("The notarization provider does not support the validation of digests...");
+            errors.put("notary.digest.is.not.supported", getWatermark(seal));
+        }
+    }
+
+
+    /*
+     * A missing watermark is reported by the latest provider using its own error messages.
+     */
+    private Notarization selectProvider(Watermark watermark, Map<String, Object> errors) {
+        if (watermark == null) return latestProvider;
+        Notarization provider = getProvider(watermark);
+        if (provider == null) {
+            logger.error("No notarization provider supports the version of the watermark...");
+            errors.put("notary.version.is.not.supported", watermark);
+        }
+        return provider;
+    }
+
+
+    static private Watermark getWatermark(NotarySeal seal) {
+        return seal == null || seal.attributes == null ? null : seal.attributes.watermark;
+    }
+
+
+    /*
+     * The tree and field modes are stripped from the hashing algorithm, after checking that
+     * they are well formed, so that every variant of a base algorithm shares one cache entry.
+     */
+    static private VersionKey normalize(Watermark watermark) {
+        if (watermark == null || watermark.minorVersion < 0) return null;
+        String algorithm = watermark.hashingAlgorithm;
+        if (algorithm == null || watermark.signingAlgorithm == null) return null;
+        if (algorithm.endsWith(FieldTree.FIELDS_MODE)) {
+            algorithm = algorithm.substring(0, algorithm.length() - FieldTree.FIELDS_MODE.length());
+        } else {
+            int index = algorithm.lastIndexOf(DocumentHasher.TREE_MODE);
+            if (index >= 0) {
+                if (DocumentHasher.forAlgorithm(algorithm) == null) return null;
+                algorithm = algorithm.substring(0, index);
+            }
+        }
+        return new VersionKey(watermark.majorVersion, watermark.minorVersion, algorithm, watermark.signingAlgorithm);
+    }
+
+
+    private Notarization findProvider(VersionKey key) {
+        Notarization bestProvider = null;
+        int bestMinorVersion = Integer.MAX_VALUE;
+        for (int i = 0; i < providers.size(); i++) {
+            Watermark version = versions.get(i);
+            if (version.majorVersion == key.majorVersion
+                    && version.minorVersion >= key.minorVersion
+                    && version.minorVersion < bestMinorVersion
+                    && version.signingAlgorithm.equals(key.signingAlgorithm)
+                    && version.hashingAlgorithm.equals(key.hashingAlgorithm)) {
+                bestProvider = providers.get(i);
+                bestMinorVersion = version.minorVersion;
+            }
+        }
+        return bestProvider;
+    }
+
+
+    /*
+     * This class captures the normalized fields of a watermark that determine which provider
+     * supports it.
+     */
+    static private final class VersionKey {
+
+        private final int majorVersion;
+        private final int minorVersion;
+        private final String hashingAlgorithm;
+        private final String signingAlgorithm;
+        private final int hash;
+
+        private VersionKey(int majorVersion, int minorVersion, String hashingAlgorithm, String signingAlgorithm) {
+            this.majorVersion = majorVersion;
+            this.minorVersion = minorVersion;
+            this.hashingAlgorithm = hashingAlgorithm;
+            this.signingAlgorithm = signingAlgorithm;
+            int h = 31 * majorVersion + minorVersion;
+            h = 31 * h + (hashingAlgorithm == null ? 0 : hashingAlgorithm.hashCode());
+            h = 31 * h + (signingAlgorithm == null ? 0 : signingAlgorithm.hashCode());
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) return true;
+            if (!(object instanceof VersionKey)) return false;
+            VersionKey that = (VersionKey) object;
+            return majorVersion == that.majorVersion && minorVersion == that.minorVersion
+                    && hash == that.hash
+                    && Objects.equals(hashingAlgorithm, that.hashingAlgorithm)
+                    && Objects.equals(signingAlgorithm, that.signingAlgorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -11,6 +11,7 @@ package craterdog.notary;
 
 import craterdog.notary.mappers.NotaryModule;
 import craterdog.smart.SmartObject;
+import java.util.List;
 
 
 /**
@@ -38,6 +39,15 @@ public final class NotaryCertificate extends SmartObject<NotaryCertificate> {
      */
     public NotarySeal certificationSeal;
 
+    /**
+     * The notary seals of the self signature of this certificate signed using the notary keys
+     * of earlier certificates in the chain when this certificate is a checkpoint, or null if
+     * it is not.  The seal at index <code>k - 1</code> was signed using the notary key of the
+     * certificate <code>2^k</code> positions earlier in the chain, or is null if that key was
+     * no longer available.  See the <code>IdentityChain</code> class.
+     */
+    public List<NotarySeal> checkpointSeals;
+
 
     /**
      * The default constructor makes sure that the public and private keys can be marshalled
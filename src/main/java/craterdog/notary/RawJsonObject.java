@@ -0,0 +1,124 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import craterdog.notary.mappers.NotaryModule;
+import craterdog.smart.SmartObject;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * This class records the byte span of each top level object or array attribute of a JSON
+ * object without building the objects that they represent.  These attributes are only parsed
+ * when they are requested.  Top level string attributes are kept as strings.  It is used by
+ * the lazy notary seal and certificate classes.
+ *
+ * @author Derk Norton
+ */
+final class RawJsonObject {
+
+    static final ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+
+    static private final JsonFactory factory = mapper.getFactory();
+
+    private final byte[] json;
+    private final Map<String, int[]> spans = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private final Set<String> names = new HashSet<>();
+
+
+    RawJsonObject(byte[] json) throws IOException {
+        this.json = json;
+        try (JsonParser parser = factory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException("Expected a JSON object.", parser.getCurrentLocation());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token.isStructStart()) {
+                    // the parser is positioned just after the opening bracket
+                    int start = (int) parser.getCurrentLocation().getByteOffset() - 1;
+                    parser.skipChildren();
+                    int end = (int) parser.getCurrentLocation().getByteOffset();
+                    spans.put(name, new int[] { start, end });
+                } else if (token == JsonToken.VALUE_STRING) {
+                    strings.put(name, parser.getText());
+                }
+                names.add(name);
+            }
+        }
+    }
+
+
+    byte[] getBytes() {
+        return json;
+    }
+
+
+    String getString(String name) {
+        return strings.get(name);
+    }
+
+
+    boolean has(String name) {
+        return names.contains(name);
+    }
+
+
+    <T> T parse(String name, Class<T> type) throws IOException {
+        int[] span = spans.get(name);
+        if (span == null) return null;
+        return mapper.readValue(json, span[0], span[1] - span[0], type);
+    }
+
+
+    /*
+     * This method returns the exact bytes of the specified nested object as they were formatted
+     * when the object was serialized on its own.  The raw span of a nested object is indented
+     * by its depth, so the indentation of its closing brace is removed from every line of the
+     * span.  If the object was not pretty printed, or its lines are not consistently indented,
+     * null is returned and the caller must re-serialize the object instead.
+     */
+    byte[] getStandaloneBytes(String name) {
+        int[] span = spans.get(name);
+        if (span == null || json[span[0]] != '{') return null;
+        int start = span[0];
+        int end = span[1];
+        int lineStart = end - 1;
+        while (lineStart > start && json[lineStart - 1] != '\n') lineStart--;
+        if (lineStart == start) return null;  // not pretty printed
+        int indent = end - 1 - lineStart;
+        byte[] result = new byte[end - start];
+        int length = 0;
+        int index = start;
+        while (index < end) {
+            byte next = json[index++];
+            result[length++] = next;
+            if (next == '\n') {
+                for (int i = 0; i < indent; i++) {
+                    if (index >= end || json[index++] != ' ') return null;
+                }
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+}
@@ -0,0 +1,281 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.utils.Base32Utils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * This class generates a plain SHA-256 hash of a document whose intermediate state can be
+ * exported and later resumed.  It allows a document that only grows by having bytes appended
+ * to it, like a log file, to be rehashed by hashing only the bytes that were appended since
+ * the state was exported.  The hash that it generates is identical to the one generated by a
+ * sequential <code>DocumentHasher</code>.
+ * <p>
+ * The exported state only covers the whole 64 byte blocks that have been hashed, so it never
+ * contains any bytes of the document.  A resumed hasher must be given the bytes of the
+ * document starting at the length of the state, which is rounded down to a block boundary.
+ * <p>
+ * The JDK message digests do not expose their intermediate state so the compression function
+ * is implemented here.  It is slower than the JDK digest so it should only be used when the
+ * state is needed.  This class is not thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class ResumableHasher {
+
+    static private final int BLOCK_SIZE = 64;
+    static private final int STATE_SIZE = 8 * 4 + 8;  // the chaining values and the length
+    static private final int BUFFER_SIZE = 1 << 20;
+
+    static private final int[] INITIAL = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    static private final int[] K = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+        0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+        0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+        0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+        0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+        0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    private final int[] h = new int[8];
+    private final int[] w = new int[64];
+    private final byte[] pending = new byte[BLOCK_SIZE];
+    private long length;
+
+
+    /**
+     * This default constructor creates a hasher for a new, empty document.
+     */
+    public ResumableHasher() {
+        System.arraycopy(INITIAL, 0, h, 0, h.length);
+    }
+
+
+    /**
+     * This method returns a hasher that resumes from a state that was exported by the
+     * <code>getState</code> method.  Its length is the length of the state, so the bytes of
+     * the document must be added starting from that offset.
+     *
+     * @param state The base 32 encoded state.
+     * @return The resumed hasher, or null if the state is not valid.
+     */
+    static public ResumableHasher fromState(String state) {
+        if (state == null) return null;
+        byte[] bytes;
+        try {
+            bytes = Base32Utils.decode(state);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (bytes.length != STATE_SIZE) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ResumableHasher hasher = new ResumableHasher();
+        for (int i = 0; i < hasher.h.length; i++) {
+            hasher.h[i] = buffer.getInt();
+        }
+        hasher.length = buffer.getLong();
+        if (hasher.length < 0 || hasher.length % BLOCK_SIZE != 0) return null;
+        return hasher;
+    }
+
+
+    /**
+     * This method exports the state of the hasher as of the last block boundary.  The bytes
+     * of the last partial block are not included, so the state is always 40 bytes long
+     * before encoding and contains none of the bytes of the document.
+     *
+     * @return The base 32 encoded state.
+     */
+    public String getState() {
+        ByteBuffer buffer = ByteBuffer.allocate(STATE_SIZE);
+        for (int value : h) {
+            buffer.putInt(value);
+        }
+        buffer.putLong(getStateLength());
+        return Base32Utils.encode(buffer.array());
+    }
+
+
+    /**
+     * This method returns the number of bytes that are covered by the exported state, which
+     * is the number of bytes hashed so far rounded down to a block boundary.
+     *
+     * @return The number of bytes.
+     */
+    public long getStateLength() {
+        return length - length % BLOCK_SIZE;
+    }
+
+
+    /**
+     * This method returns the number of bytes that have been hashed so far.
+     *
+     * @return The number of bytes.
+     */
+    public long getLength() {
+        return length;
+    }
+
+
+    /**
+     * This method adds the specified bytes to the hash.
+     *
+     * @param bytes The bytes to be added.
+     */
+    public void update(byte[] bytes) {
+        update(ByteBuffer.wrap(bytes));
+    }
+
+
+    /**
+     * This method adds the remaining bytes in the specified buffer to the hash.  The position
+     * of the buffer is advanced to its limit.
+     *
+     * @param bytes The bytes to be added.
+     */
+    public void update(ByteBuffer bytes) {
+        int used = (int) (length % BLOCK_SIZE);
+        length += bytes.remaining();
+        if (used > 0) {
+            int count = Math.min(BLOCK_SIZE - used, bytes.remaining());
+            bytes.get(pending, used, count);
+            if (used + count < BLOCK_SIZE) return;
+            compress(ByteBuffer.wrap(pending));
+        }
+        while (bytes.remaining() >= BLOCK_SIZE) {
+            compress(bytes);
+        }
+        bytes.get(pending, 0, bytes.remaining());
+    }
+
+
+    /**
+     * This method adds the bytes of the specified file, starting at the current length of the
+     * hash, to the hash.  Only the bytes that were in the file when this method was called are
+     * added.
+     *
+     * @param document The path to the document.
+     * @return The number of bytes that were added.
+     * @throws IOException The file could not be read, or is shorter than the current length.
+     */
+    public long update(Path document) throws IOException {
+        return update(document, -1);
+    }
+
+
+    /**
+     * This method adds the bytes of the specified file, starting at the current length of the
+     * hash and ending at the specified offset, to the hash.
+     *
+     * @param document The path to the document.
+     * @param end The offset of the end of the bytes to be added, or -1 for the end of the file.
+     * @return The number of bytes that were added.
+     * @throws IOException The file could not be read, or is shorter than the current length
+     * or the end offset.
+     */
+    public long update(Path document, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(document, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (end < 0) end = size;
+            long start = length;
+            if (size < end) {
+                throw new IOException("The document is shorter than the requested length: " + document);
+            }
+            if (end < start) {
+                throw new IOException("The document is shorter than the hashed length, it was not only appended to: " + document);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(end - start, 1)));
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int count = channel.read(buffer, position);
+                if (count < 0) throw new IOException("The document was truncated while it was being hashed: " + document);
+                position += count;
+                buffer.flip();
+                update(buffer);
+            }
+            return end - start;
+        }
+    }
+
+
+    /**
+     * This method generates the hash of all the bytes that have been added so far.  The hasher
+     * is not reset, more bytes may be added afterwards.
+     *
+     * @return The hash of the bytes.
+     */
+    public byte[] digest() {
+        ResumableHasher copy = new ResumableHasher();
+        System.arraycopy(h, 0, copy.h, 0, h.length);
+        System.arraycopy(pending, 0, copy.pending, 0, pending.length);
+        copy.length = length;
+        int used = (int) (length % BLOCK_SIZE);
+        int padding = (used < BLOCK_SIZE - 8 ? BLOCK_SIZE : 2 * BLOCK_SIZE) - used;
+        ByteBuffer trailer = ByteBuffer.allocate(padding);
+        trailer.put((byte) 0x80);
+        trailer.putLong(padding - 8, length * 8);
+        trailer.rewind();
+        copy.update(trailer);
+        ByteBuffer hash = ByteBuffer.allocate(DocumentHasher.DIGEST_LENGTH);
+        for (int value : copy.h) {
+            hash.putInt(value);
+        }
+        return hash.array();
+    }
+
+
+    private void compress(ByteBuffer block) {
+        for (int t = 0; t < 16; t++) {
+            w[t] = block.getInt();
+        }
+        for (int t = 16; t < 64; t++) {
+            int s0 = Integer.rotateRight(w[t - 15], 7) ^ Integer.rotateRight(w[t - 15], 18) ^ (w[t - 15] >>> 3);
+            int s1 = Integer.rotateRight(w[t - 2], 17) ^ Integer.rotateRight(w[t - 2], 19) ^ (w[t - 2] >>> 10);
+            w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+        }
+        int a = h[0], b = h[1], c = h[2], d = h[3], e = h[4], f = h[5], g = h[6], k = h[7];
+        for (int t = 0; t < 64; t++) {
+            int t1 = k + (Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25))
+                    + ((e & f) ^ (~e & g)) + K[t] + w[t];
+            int t2 = (Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22))
+                    + ((a & b) ^ (a & c) ^ (b & c));
+            k = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        h[0] += a;
+        h[1] += b;
+        h[2] += c;
+        h[3] += d;
+        h[4] += e;
+        h[5] += f;
+        h[6] += g;
+        h[7] += k;
+    }
+
+}
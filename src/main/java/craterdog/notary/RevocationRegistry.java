@@ -0,0 +1,227 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * This class records the notary certificates and notary seals that have been revoked (e.g.
+ * because a signing key was compromised).  Certificates are identified by their locations and
+ * seals by their self signatures.  A Bloom filter sits in front of the exact set of revocations
+ * so that the common case, an item that has not been revoked, is answered from a few bits of
+ * the filter without consulting the set.  The filter is probed with a hash of the location or
+ * signature itself, so nothing is allocated unless the filter reports a possible revocation.
+ * <p>
+ * Revocations can be added incrementally at any time and are permanent.  The registry can be
+ * saved to and loaded from a snapshot file containing one revocation per line.  The filter is
+ * sized for an expected number of revocations; adding more than that raises its false positive
+ * rate but never causes a revoked item to be missed.
+ * <p>
+ * This class is thread safe, the lookups do not lock.
+ *
+ * @author Derk Norton
+ */
+public final class RevocationRegistry {
+
+    static private final String CERTIFICATE_PREFIX = "certificate ";
+    static private final String SEAL_PREFIX = "seal ";
+
+    private final Set<String> revocations = ConcurrentHashMap.newKeySet();
+    private final AtomicLongArray filter;
+    private final long bitCount;
+    private final int hashCount;
+
+
+    /**
+     * This constructor creates a new empty revocation registry.
+     *
+     * @param expectedRevocations The expected number of revocations.
+     * @param falsePositiveRate The acceptable rate of filter hits for items that have not been
+     * revoked (e.g. 0.001).
+     */
+    public RevocationRegistry(int expectedRevocations, double falsePositiveRate) {
+        if (expectedRevocations < 1 || falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("The expected revocations must be positive and the false positive rate must be between zero and one.");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedRevocations * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedRevocations * ln2));
+        this.filter = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+
+    /**
+     * This method revokes the notary certificate at the specified location.
+     *
+     * @param certificateLocation The location of the certificate.
+     */
+    public void revokeCertificate(URI certificateLocation) {
+        add(CERTIFICATE_PREFIX, certificateLocation.toString());
+    }
+
+
+    /**
+     * This method revokes the notary seal with the specified self signature.
+     *
+     * @param selfSignature The base 32 encoded self signature of the seal.
+     */
+    public void revokeSeal(String selfSignature) {
+        add(SEAL_PREFIX, selfSignature);
+    }
+
+
+    /**
+     * This method returns whether or not the notary certificate at the specified location has
+     * been revoked.
+     *
+     * @param certificateLocation The location of the certificate.
+     * @return Whether or not the certificate has been revoked.
+     */
+    public boolean isCertificateRevoked(URI certificateLocation) {
+        return certificateLocation != null && contains(CERTIFICATE_PREFIX, certificateLocation.toString());
+    }
+
+
+    /**
+     * This method returns whether or not the notary seal with the specified self signature has
+     * been revoked.
+     *
+     * @param selfSignature The base 32 encoded self signature of the seal.
+     * @return Whether or not the seal has been revoked.
+     */
+    public boolean isSealRevoked(String selfSignature) {
+        return selfSignature != null && contains(SEAL_PREFIX, selfSignature);
+    }
+
+
+    /**
+     * This method returns the number of revocations in the registry.
+     *
+     * @return The number of revocations.
+     */
+    public int size() {
+        return revocations.size();
+    }
+
+
+    /**
+     * This method adds the revocations in the specified snapshot file to this registry.
+     *
+     * @param snapshot The path to the snapshot file.
+     * @throws IOException The snapshot file could not be read or is not valid.
+     */
+    public void loadSnapshot(Path snapshot) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                if (line.startsWith(CERTIFICATE_PREFIX)) {
+                    add(CERTIFICATE_PREFIX, line.substring(CERTIFICATE_PREFIX.length()));
+                } else if (line.startsWith(SEAL_PREFIX)) {
+                    add(SEAL_PREFIX, line.substring(SEAL_PREFIX.length()));
+                } else {
+                    throw new IOException("The revocation snapshot contains an invalid line: " + line);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * This method writes all of the revocations in this registry to the specified snapshot
+     * file.  The snapshot is written to a temporary file that then replaces the snapshot file.
+     *
+     * @param snapshot The path to the snapshot file.
+     * @throws IOException The snapshot file could not be written.
+     */
+    public void saveSnapshot(Path snapshot) throws IOException {
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (String revocation : revocations) {
+                    writer.write(revocation);
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+
+    private void add(String prefix, String identifier) {
+        // add it to the set first so that any filter hit will find it
+        revocations.add(prefix + identifier);
+        long hash = hash(prefix, identifier);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            while (((word = filter.get(index)) & mask) == 0 && !filter.compareAndSet(index, word, word | mask)) {
+                // another thread updated the word, try again
+            }
+        }
+    }
+
+
+    /*
+     * The prefixed revocation string is only built when the filter reports a possible hit.
+     */
+    private boolean contains(String prefix, String identifier) {
+        long hash = hash(prefix, identifier);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            if ((filter.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return revocations.contains(prefix + identifier);
+    }
+
+
+    /*
+     * This method generates a 64 bit FNV-1a hash of the characters in a prefix and an
+     * identifier, without concatenating them, followed by a final mixing step so that both
+     * halves of the hash are well distributed.
+     */
+    static private long hash(String prefix, String identifier) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < prefix.length(); i++) {
+            hash ^= prefix.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        for (int i = 0; i < identifier.length(); i++) {
+            hash ^= identifier.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,191 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class holds the current notary key for a notary and rotates it in the background
+ * before its watermark expires.  The successor key is generated (and certified by the current
+ * key) on a scheduler thread a configurable lead time before the expiration, and is then
+ * swapped in atomically.  Retrieving the current key never blocks, so it can be called on the
+ * signing path for every document:
+ * <pre>
+ * NotarySeal seal = notary.notarizeDocument(documentType, document, rotatingKey.getNotaryKey());
+ * </pre>
+ * After a rotation the certificate of the previous key remains available for an overlap
+ * window so that seals signed just before the rotation can still be validated.
+ *
+ * @author Derk Norton
+ */
+public final class RotatingNotaryKey implements AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(RotatingNotaryKey.class);
+
+    static private final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Notarization notary;
+    private final URI baseUri;
+    private final long rotationLeadMillis;
+    private final long overlapMillis;
+    private final AtomicReference<KeyState> state;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> rotation;  // guarded by this
+
+
+    /**
+     * This constructor creates a new rotating key holder for the specified notary key and
+     * schedules its first rotation.
+     *
+     * @param notary The notarization provider used to generate the successor keys.
+     * @param baseUri The base URI of the identity registry for the notary.
+     * @param notaryKey The current notary key.
+     * @param rotationLeadSeconds The number of seconds before the expiration of a key that its
+     * successor should be generated.
+     * @param overlapSeconds The number of seconds after a rotation that the certificate of the
+     * previous key remains available.
+     */
+    public RotatingNotaryKey(Notarization notary, URI baseUri, NotaryKey notaryKey, long rotationLeadSeconds, long overlapSeconds) {
+        this.notary = notary;
+        this.baseUri = baseUri;
+        this.rotationLeadMillis = TimeUnit.SECONDS.toMillis(rotationLeadSeconds);
+        this.overlapMillis = TimeUnit.SECONDS.toMillis(overlapSeconds);
+        this.state = new AtomicReference<>(new KeyState(notaryKey, null, 0));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notary-key-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleRotation(notaryKey, 0);
+    }
+
+
+    /**
+     * This method returns the current notary key.  It never blocks.
+     *
+     * @return The current notary key.
+     */
+    public NotaryKey getNotaryKey() {
+        return state.get().notaryKey;
+    }
+
+
+    /**
+     * This method returns the certificate of the previous notary key if the overlap window
+     * following the last rotation has not yet closed.
+     *
+     * @return The certificate of the previous notary key, or null if there is none.
+     */
+    public NotaryCertificate getPreviousCertificate() {
+        KeyState current = state.get();
+        if (current.previousCertificate == null || System.currentTimeMillis() > current.overlapEnd) return null;
+        return current.previousCertificate;
+    }
+
+
+    /**
+     * This method returns the certificate that should be used to validate a seal containing
+     * the specified verification citation.  The certificate of the previous key is only
+     * returned during the overlap window.
+     *
+     * @param citation The verification citation from the attributes of a notary seal.
+     * @return The matching certificate, or null if the citation does not refer to the current
+     * or previous certificate.
+     */
+    public NotaryCertificate getVerificationCertificate(DocumentCitation citation) {
+        if (citation == null || citation.documentLocation == null) return null;
+        NotaryCertificate certificate = getNotaryKey().verificationCertificate;
+        if (citation.documentLocation.equals(certificate.attributes.myLocation)) return certificate;
+        certificate = getPreviousCertificate();
+        if (certificate != null && citation.documentLocation.equals(certificate.attributes.myLocation)) return certificate;
+        return null;
+    }
+
+
+    /**
+     * This method generates the successor of the current notary key immediately and swaps
+     * it in.  The calling thread performs the key generation.  The scheduled rotation of the
+     * previous key is cancelled and the next rotation is scheduled from the new key.
+     *
+     * @return The new notary key.
+     */
+    public synchronized NotaryKey rotateNow() {
+        logger.entry();
+        NotaryKey previousKey = state.get().notaryKey;
+        logger.debug("Generating the successor of the current notary key...");
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri, previousKey);
+        logger.debug("Swapping in the new notary key...");
+        state.set(new KeyState(notaryKey, previousKey.verificationCertificate, System.currentTimeMillis() + overlapMillis));
+        // never rotate more often than the retry delay even if the lead time is too long
+        scheduleRotation(notaryKey, RETRY_DELAY_MILLIS);
+        logger.exit(notaryKey);
+        return notaryKey;
+    }
+
+
+    @Override
+    public synchronized void close() {
+        scheduler.shutdownNow();
+    }
+
+
+    private synchronized void scheduleRotation(NotaryKey notaryKey, long minimumDelay) {
+        if (rotation != null) rotation.cancel(false);
+        if (scheduler.isShutdown()) return;
+        long expiration = notaryKey.watermark.expirationTimestamp.getMillis();
+        long delay = Math.max(minimumDelay, expiration - rotationLeadMillis - System.currentTimeMillis());
+        logger.debug("Scheduling the rotation of the notary key in {} milliseconds...", delay);
+        rotation = scheduler.schedule(() -> rotate(notaryKey), delay, TimeUnit.MILLISECONDS);
+    }
+
+
+    /*
+     * A scheduled rotation may start just as the key is rotated explicitly, so it only rotates
+     * the key that it was scheduled for.
+     */
+    private synchronized void rotate(NotaryKey scheduledKey) {
+        if (getNotaryKey() != scheduledKey) return;
+        try {
+            NotaryKey notaryKey = rotateNow();
+            logger.info("The notary key was rotated, the new certificate is {}.", notaryKey.verificationCertificate.attributes.myLocation);
+        } catch (RuntimeException e) {
+            logger.error("The notary key could not be rotated, retrying...", e);
+            scheduleRotation(scheduledKey, RETRY_DELAY_MILLIS);
+        }
+    }
+
+
+    /*
+     * This class captures the current key and the previous certificate so that they can be
+     * swapped together atomically.
+     */
+    static private final class KeyState {
+
+        final NotaryKey notaryKey;
+        final NotaryCertificate previousCertificate;
+        final long overlapEnd;
+
+        KeyState(NotaryKey notaryKey, NotaryCertificate previousCertificate, long overlapEnd) {
+            this.notaryKey = notaryKey;
+            this.previousCertificate = previousCertificate;
+            this.overlapEnd = overlapEnd;
+        }
+
+    }
+
+}
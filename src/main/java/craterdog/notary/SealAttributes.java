@@ -12,6 +12,7 @@ package craterdog.notary;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import craterdog.smart.SmartObject;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -53,10 +54,18 @@ public final class SealAttributes extends SmartObject<SealAttributes> {
      */
     public DocumentCitation verificationCitation;
 
+    /**
+     * A base 32 encoding of the cryptographic hash of the attributes of the previous notary seal
+     * when this seal is part of a seal chain, or null if it is not (or if it is the first seal
+     * in the chain).
+     */
+    public String previousSealHash;
+
     /*
      * This map is used to hold any JSON attributes that are not mappable to the existing attributes.
+     * Most seals have none so it is only allocated when the first one is added or requested.
      */
-    private final Map<String, Object> additional = new LinkedHashMap<>();
+    private Map<String, Object> additional;
 
 
     /**
@@ -67,7 +76,7 @@ public final class SealAttributes extends SmartObject<SealAttributes> {
      * @return The value of the attribute.
      */
     public Object get(String name) {
-        return additional.get(name);
+        return additional == null ? null : additional.get(name);
     }
 
 
@@ -80,6 +89,7 @@ public final class SealAttributes extends SmartObject<SealAttributes> {
      */
     @JsonAnySetter
     public Object put(String name, Object value) {
+        if (additional == null) additional = new LinkedHashMap<>();
         return additional.put(name, value);
     }
 
@@ -87,12 +97,27 @@ public final class SealAttributes extends SmartObject<SealAttributes> {
     /**
      * This method returns a map of the additional attributes that are not explicitly defined.  It
      * is primarily used by the Jackson parser during deserialization of the corresponding JSON.
+     * The map is modifiable and changes to it are reflected in the attributes.
      *
      * @return A map containing the additional attributes.
      */
     @JsonAnyGetter
     public Map<String, Object> any() {
+        if (additional == null) additional = new LinkedHashMap<>();
         return additional;
     }
 
+
+    /**
+     * This method returns a read only view of the additional attributes that are not
+     * explicitly defined.  Unlike the <code>any</code> method it does not allocate a map for
+     * seals that have no additional attributes, so it should be used whenever the attributes
+     * are only being read.
+     *
+     * @return A map containing the additional attributes.
+     */
+    public Map<String, Object> additional() {
+        return additional == null ? Collections.emptyMap() : Collections.unmodifiableMap(additional);
+    }
+
 }
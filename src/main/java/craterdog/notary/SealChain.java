@@ -0,0 +1,148 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.utils.Base32Utils;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * This class notarizes the entries of an append-only log as a chain of notary seals.  The
+ * attributes of each seal contain the hash of the attributes of the previous seal in the chain
+ * so only every Nth seal (a checkpoint) needs to be signed.  A signed checkpoint vouches for
+ * every seal that precedes it in the chain.  The last seal in a chain must always be a
+ * checkpoint, so <code>notarizeCheckpoint</code> should be called for the final entry.
+ * <p>
+ * This class is not thread safe, the entries of a chain must be notarized in order.
+ *
+ * @author Derk Norton
+ */
+public final class SealChain {
+
+    static private final DocumentHasher hasher = new DocumentHasher();
+
+    private final V1NotarizationProvider notary;
+    private final NotaryKey notaryKey;
+    private final int checkpointInterval;
+    private String headHash;
+    private long length;
+
+
+    /**
+     * This constructor creates a new empty seal chain.
+     *
+     * @param notary The notarization provider used to generate the seals.
+     * @param notaryKey The notary key used to sign the checkpoints.
+     * @param checkpointInterval The number of seals between signed checkpoints.
+     */
+    public SealChain(V1NotarizationProvider notary, NotaryKey notaryKey, int checkpointInterval) {
+        this(notary, notaryKey, checkpointInterval, null, 0);
+    }
+
+
+    /**
+     * This constructor creates a seal chain that continues an existing chain.
+     *
+     * @param notary The notarization provider used to generate the seals.
+     * @param notaryKey The notary key used to sign the checkpoints.
+     * @param checkpointInterval The number of seals between signed checkpoints.
+     * @param headHash The hash of the last seal in the existing chain.
+     * @param length The number of seals in the existing chain.
+     */
+    public SealChain(V1NotarizationProvider notary, NotaryKey notaryKey, int checkpointInterval, String headHash, long length) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.notary = notary;
+        this.notaryKey = notaryKey;
+        this.checkpointInterval = checkpointInterval;
+        this.headHash = headHash;
+        this.length = length;
+    }
+
+
+    /**
+     * This method appends a seal for the specified entry to the chain.  The seal is only
+     * signed if it falls on a checkpoint.
+     *
+     * @param documentType The type of the entry being notarized.
+     * @param document The entry being notarized.
+     * @return The notary seal for the entry.
+     */
+    public NotarySeal notarizeEntry(String documentType, String document) {
+        return notarize(documentType, document, (length + 1) % checkpointInterval == 0);
+    }
+
+
+    /**
+     * This method appends a signed checkpoint seal for the specified entry to the chain.
+     *
+     * @param documentType The type of the entry being notarized.
+     * @param document The entry being notarized.
+     * @return The signed notary seal for the entry.
+     */
+    public NotarySeal notarizeCheckpoint(String documentType, String document) {
+        return notarize(documentType, document, true);
+    }
+
+
+    /**
+     * This method returns the hash of the last seal in the chain.
+     *
+     * @return The hash of the head of the chain, or null if the chain is empty.
+     */
+    public String getHeadHash() {
+        return headHash;
+    }
+
+
+    /**
+     * This method returns the number of seals in the chain.
+     *
+     * @return The length of the chain.
+     */
+    public long getLength() {
+        return length;
+    }
+
+
+    /**
+     * This method generates the hash of the specified seal that is recorded in the next seal
+     * in a chain.
+     *
+     * @param seal The notary seal to be hashed.
+     * @return A base 32 encoding of the hash of the seal attributes.
+     */
+    static public String hashSeal(NotarySeal seal) {
+        return hashAttributes(seal.attributes.toString());
+    }
+
+
+    static String hashAttributes(String attributes) {
+        byte[] hash = hasher.hash(attributes.getBytes(StandardCharsets.UTF_8));
+        return Base32Utils.encode(hash);
+    }
+
+
+    private NotarySeal notarize(String documentType, String document, boolean checkpoint) {
+        SealAttributes attributes = notary.generateSealAttributes(documentType, document, notaryKey);
+        attributes.previousSealHash = headHash;
+        String text = attributes.toString();
+        NotarySeal seal = new NotarySeal();
+        seal.attributes = attributes;
+        if (checkpoint) {
+            seal.selfSignature = notary.generateDocumentSignature(text, notaryKey);
+        }
+        headHash = hashAttributes(text);
+        length++;
+        return seal;
+    }
+
+}
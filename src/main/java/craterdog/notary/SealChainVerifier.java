@@ -0,0 +1,199 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.security.PublicKey;
+import java.util.Iterator;
+import java.util.Map;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class verifies a chain of notary seals generated by the <code>SealChain</code> class in a
+ * single sequential pass using constant memory.  Each seal is checked against the hash of the
+ * previous seal and only the signed checkpoints require a signature verification.  The seals
+ * are fed to the verifier in order and <code>finish</code> must be called after the last seal
+ * to make sure that the chain ends with a signed checkpoint.
+ *
+ * @author Derk Norton
+ */
+public final class SealChainVerifier {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(SealChainVerifier.class);
+
+    private final V1NotarizationProvider notary;
+    private final NotaryCertificate certificate;
+    private final Map<String, Object> errors;
+    private final int errorCount;  // record it to see if it changes
+    private final String certificateHash;
+    private final PublicKey verificationKey;
+    private String headHash;
+    private long length;
+    private boolean checkpointed = true;
+
+
+    /**
+     * This constructor creates a verifier for a chain that was signed using the notary key
+     * associated with the specified certificate.
+     *
+     * @param notary The notarization provider used to verify the seals.
+     * @param certificate The verification certificate of the notary that signed the chain.
+     * @param errors A map containing any errors that were found.
+     */
+    public SealChainVerifier(V1NotarizationProvider notary, NotaryCertificate certificate, Map<String, Object> errors) {
+        this(notary, certificate, null, errors);
+    }
+
+
+    /**
+     * This constructor creates a verifier for the continuation of a chain that has already
+     * been verified up to the seal with the specified hash.
+     *
+     * @param notary The notarization provider used to verify the seals.
+     * @param certificate The verification certificate of the notary that signed the chain.
+     * @param headHash The hash of the last verified seal in the chain.
+     * @param errors A map containing any errors that were found.
+     */
+    public SealChainVerifier(V1NotarizationProvider notary, NotaryCertificate certificate, String headHash, Map<String, Object> errors) {
+        this.notary = notary;
+        this.certificate = certificate;
+        this.errors = errors;
+        this.headHash = headHash;
+        this.errorCount = errors.size();
+        notary.validateNotaryCertificate(certificate, errors);
+        if (isValid()) {
+            this.certificateHash = notary.generateDocumentCitation(certificate.attributes.myLocation, certificate.toString()).documentHash;
+            this.verificationKey = certificate.attributes.verificationKey;
+        } else {
+            this.certificateHash = null;
+            this.verificationKey = null;
+        }
+    }
+
+
+    /**
+     * This method verifies the next seal in the chain without checking the entry it notarizes.
+     *
+     * @param seal The next seal in the chain.
+     * @return Whether or not the chain is still valid.
+     */
+    public boolean verifySeal(NotarySeal seal) {
+        return verifyEntry(null, seal);
+    }
+
+
+    /**
+     * This method verifies the next seal in the chain along with the entry it notarizes.
+     *
+     * @param document The entry that was notarized, or null if it should not be checked.
+     * @param seal The next seal in the chain.
+     * @return Whether or not the chain is still valid.
+     */
+    public boolean verifyEntry(String document, NotarySeal seal) {
+        if (!isValid()) return false;
+        length++;
+        if (seal == null || seal.attributes == null || seal.attributes.watermark == null) {
+            logger.error("The notary seal at position {} in the chain is incomplete...", length);
+            errors.put("chain.seal.is.incomplete", length);
+            return false;
+        }
+        SealAttributes attributes = seal.attributes;
+        String previous = attributes.previousSealHash;
+        if (headHash == null ? previous != null : !headHash.equals(previous)) {
+            logger.error("The notary seal at position {} does not link to the previous seal...", length);
+            errors.put("chain.seal.link.is.broken", length);
+            return false;
+        }
+        if (document != null) {
+            DocumentHasher hasher = DocumentHasher.forAlgorithm(attributes.watermark.hashingAlgorithm);
+            if (hasher == null || !notary.hashDocument(document, hasher).equals(attributes.documentHash)) {
+                logger.error("The entry at position {} does not match its notary seal...", length);
+                errors.put("chain.entry.hash.is.invalid", length);
+                return false;
+            }
+        }
+        String text = attributes.toString();
+        if (seal.selfSignature != null) {
+            DocumentCitation citation = attributes.verificationCitation;
+            if (citation == null || !certificateHash.equals(citation.documentHash)) {
+                logger.error("The checkpoint at position {} was not signed by the certificate...", length);
+                errors.put("chain.checkpoint.citation.is.invalid", length);
+                return false;
+            }
+            notary.validateDocumentSignature(text, seal.selfSignature, verificationKey, errors);
+            if (!isValid()) {
+                errors.put("chain.checkpoint.signature.is.invalid", length);
+                return false;
+            }
+            checkpointed = true;
+        } else {
+            checkpointed = false;
+        }
+        headHash = SealChain.hashAttributes(text);
+        return true;
+    }
+
+
+    /**
+     * This method verifies all of the seals produced by the specified iterator and then
+     * finishes the verification.
+     *
+     * @param seals An iterator over the seals in the chain in order.
+     * @return Whether or not the chain is valid.
+     */
+    public boolean verifySeals(Iterator<NotarySeal> seals) {
+        while (seals.hasNext()) {
+            if (!verifySeal(seals.next())) return false;
+        }
+        return finish();
+    }
+
+
+    /**
+     * This method completes the verification of the chain by making sure that the last seal
+     * in the chain was a signed checkpoint.
+     *
+     * @return Whether or not the chain is valid.
+     */
+    public boolean finish() {
+        if (isValid() && !checkpointed) {
+            logger.error("The seal chain does not end with a signed checkpoint...");
+            errors.put("chain.is.not.checkpointed", length);
+        }
+        return isValid();
+    }
+
+
+    /**
+     * This method returns the hash of the last verified seal in the chain.
+     *
+     * @return The hash of the head of the chain.
+     */
+    public String getHeadHash() {
+        return headHash;
+    }
+
+
+    /**
+     * This method returns the number of seals that have been verified.
+     *
+     * @return The number of seals verified so far.
+     */
+    public long getLength() {
+        return length;
+    }
+
+
+    private boolean isValid() {
+        return errors.size() == errorCount;
+    }
+
+}
@@ -0,0 +1,87 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * This class interns the parts of notary seals that are shared by many seals (document types,
+ * verification citations and watermark algorithms) so that each distinct value is held in
+ * memory only once across all of the <code>CompactNotarySeal</code> instances that use the
+ * interner.  The interned values are never released, so an interner should only be used for
+ * seals with a bounded number of document types and notary keys.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Derk Norton
+ */
+public final class SealInterner {
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DocumentCitation> citations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Watermark> algorithms = new ConcurrentHashMap<>();
+
+
+    /**
+     * This method returns the canonical instance of the specified string.
+     *
+     * @param string The string to be interned.
+     * @return The canonical instance of the string.
+     */
+    public String intern(String string) {
+        if (string == null) return null;
+        String existing = strings.putIfAbsent(string, string);
+        return existing == null ? string : existing;
+    }
+
+
+    /**
+     * This method returns the canonical instance of the specified document citation.  The
+     * canonical instance must not be modified.
+     *
+     * @param citation The document citation to be interned.
+     * @return The canonical instance of the document citation.
+     */
+    public DocumentCitation intern(DocumentCitation citation) {
+        if (citation == null) return null;
+        String key = citation.documentLocation + " " + citation.documentHash;
+        return citations.computeIfAbsent(key, k -> {
+            DocumentCitation canonical = new DocumentCitation();
+            canonical.documentLocation = citation.documentLocation;
+            canonical.documentHash = intern(citation.documentHash);
+            return canonical;
+        });
+    }
+
+
+    /**
+     * This method returns a canonical watermark containing only the algorithms and version
+     * numbers of the specified watermark.  The timestamps of the watermark are not included.
+     * The canonical instance must not be modified.
+     *
+     * @param watermark The watermark whose algorithms are to be interned.
+     * @return The canonical watermark for the algorithms and version numbers.
+     */
+    public Watermark internAlgorithms(Watermark watermark) {
+        if (watermark == null) return null;
+        String key = watermark.hashingAlgorithm + " " + watermark.signingAlgorithm + " " + watermark.majorVersion + "." + watermark.minorVersion;
+        return algorithms.computeIfAbsent(key, k -> {
+            Watermark canonical = new Watermark();
+            canonical.hashingAlgorithm = intern(watermark.hashingAlgorithm);
+            canonical.signingAlgorithm = intern(watermark.signingAlgorithm);
+            canonical.majorVersion = watermark.majorVersion;
+            canonical.minorVersion = watermark.minorVersion;
+            return canonical;
+        });
+    }
+
+}
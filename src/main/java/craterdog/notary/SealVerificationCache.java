@@ -0,0 +1,247 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.utils.Base32Utils;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * This class caches the successful verifications of notary seals against notary certificates
+ * so that a seal that is validated repeatedly (e.g. at every hop of a request) only needs its
+ * signatures verified once.  Each entry is keyed by a digest of the exact seal attribute bytes
+ * that were verified, the self signature of the seal, and the location and self signature of
+ * the certificate.  Any change to the seal changes the key, so a cached entry can never vouch
+ * for a different seal, even one that reuses a signature.  The certificate is identified by
+ * its self signature rather than by serializing it, since that signature already covers all
+ * of its attributes.
+ * <p>
+ * A caller that validates a seal should generate its key once using the
+ * <code>generateKey</code> method and pass it to both <code>isVerified</code> and
+ * <code>addVerified</code>.
+ * <p>
+ * The cache is bounded and split into independently locked stripes, each of which evicts its
+ * least recently used entries.  An entry expires after the time to live of the cache or when
+ * the watermark of the seal or the certificate expires, whichever comes first.  Failed
+ * verifications and expired watermarks are never cached.
+ *
+ * @author Derk Norton
+ */
+public final class SealVerificationCache {
+
+    static private final int STRIPE_COUNT = 16;  // must be a power of two
+
+    private final long timeToLiveMillis;
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+
+    /**
+     * This constructor creates a new empty verification cache.
+     *
+     * @param maximumSize The maximum number of verifications that are cached.
+     * @param timeToLiveSeconds The number of seconds that a verification remains cached.
+     */
+    public SealVerificationCache(int maximumSize, long timeToLiveSeconds) {
+        if (maximumSize < STRIPE_COUNT) {
+            throw new IllegalArgumentException("The maximum size must be at least " + STRIPE_COUNT + ": " + maximumSize);
+        }
+        this.timeToLiveMillis = TimeUnit.SECONDS.toMillis(timeToLiveSeconds);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(maximumSize / STRIPE_COUNT);
+        }
+    }
+
+
+    /**
+     * This method returns whether or not the specified notary seal has already been verified
+     * successfully against the specified notary certificate.
+     *
+     * @param seal The notary seal.
+     * @param certificate The notary certificate.
+     * @return Whether or not a current successful verification is cached.
+     */
+    public boolean isVerified(NotarySeal seal, NotaryCertificate certificate) {
+        return isVerified(generateKey(seal, certificate));
+    }
+
+
+    /**
+     * This method returns whether or not the notary seal and certificate with the specified
+     * key have already been verified successfully.
+     *
+     * @param key The key that was generated for the seal and certificate, or null if they
+     * could not be keyed.
+     * @return Whether or not a current successful verification is cached.
+     */
+    public boolean isVerified(String key) {
+        if (key == null) return false;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Long expiration = stripe.get(key);
+            if (expiration == null) return false;
+            if (expiration <= System.currentTimeMillis()) {
+                stripe.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * This method records a successful verification of the specified notary seal against
+     * the specified notary certificate.  It must only be called after both the certificate
+     * and the seal have been fully validated.  Nothing is cached if either watermark has
+     * expired.
+     *
+     * @param seal The notary seal that was verified.
+     * @param certificate The notary certificate that was used to verify the seal.
+     */
+    public void addVerified(NotarySeal seal, NotaryCertificate certificate) {
+        addVerified(generateKey(seal, certificate), seal, certificate);
+    }
+
+
+    /**
+     * This method records a successful verification of the specified notary seal against
+     * the specified notary certificate using a key that was already generated for them.  It
+     * must only be called after both the certificate and the seal have been fully validated.
+     * Nothing is cached if either watermark has expired.
+     *
+     * @param key The key that was generated for the seal and certificate, or null if they
+     * could not be keyed.
+     * @param seal The notary seal that was verified.
+     * @param certificate The notary certificate that was used to verify the seal.
+     */
+    public void addVerified(String key, NotarySeal seal, NotaryCertificate certificate) {
+        if (key == null) return;
+        long now = System.currentTimeMillis();
+        long expiration = now + timeToLiveMillis;
+        expiration = Math.min(expiration, expirationOf(seal.attributes.watermark));
+        expiration = Math.min(expiration, expirationOf(certificate.attributes.watermark));
+        if (expiration <= now) return;  // never cache an expired watermark
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, expiration);
+        }
+    }
+
+
+    /**
+     * This method returns the number of verifications in the cache, including any that have
+     * expired but not yet been evicted.
+     *
+     * @return The number of cached verifications.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * This method removes all verifications from the cache.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+
+    /**
+     * This method generates the cache key for the specified notary seal and certificate by
+     * serializing the seal attributes.
+     *
+     * @param seal The notary seal.
+     * @param certificate The notary certificate.
+     * @return The cache key, or null if the seal or certificate cannot be keyed.
+     */
+    static public String generateKey(NotarySeal seal, NotaryCertificate certificate) {
+        if (seal == null || seal.attributes == null) return null;
+        return generateKey(seal, seal.attributes.toString().getBytes(StandardCharsets.UTF_8), certificate);
+    }
+
+
+    /**
+     * This method generates the cache key for the specified notary seal and certificate from
+     * the signed bytes of the seal attributes that are being verified.
+     *
+     * @param seal The notary seal.
+     * @param signedBytes The signed bytes of the seal attributes.
+     * @param certificate The notary certificate.
+     * @return The cache key, or null if the seal or certificate cannot be keyed.
+     */
+    static public String generateKey(NotarySeal seal, byte[] signedBytes, NotaryCertificate certificate) {
+        if (seal == null || seal.selfSignature == null || seal.attributes == null || seal.attributes.watermark == null || signedBytes == null) return null;
+        if (certificate == null || certificate.selfSignature == null || certificate.attributes == null || certificate.attributes.myLocation == null) return null;
+        try {
+            MessageDigest hasher = MessageDigest.getInstance("SHA-256");
+            hasher.update(signedBytes);
+            hasher.update((byte) 0);
+            hasher.update(seal.selfSignature.getBytes(StandardCharsets.UTF_8));
+            hasher.update((byte) 0);
+            hasher.update(certificate.attributes.myLocation.toString().getBytes(StandardCharsets.UTF_8));
+            hasher.update((byte) 0);
+            hasher.update(certificate.selfSignature.getBytes(StandardCharsets.UTF_8));
+            return Base32Utils.encode(hasher.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("An unexpected exception occurred while attempting to create a SHA-256 digest.", e);
+        }
+    }
+
+
+    static private long expirationOf(Watermark watermark) {
+        if (watermark == null || watermark.expirationTimestamp == null) return Long.MIN_VALUE;
+        return watermark.expirationTimestamp.getMillis();
+    }
+
+
+    /*
+     * This class implements a single stripe of the cache as a least recently used map.  It
+     * must only be accessed while holding its lock.
+     */
+    static private final class Stripe extends LinkedHashMap<String, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > capacity;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+
+/**
+ * This interface defines the service provider interface for the component that generates the
+ * digital signatures for notary seals.  Implementations that keep the private signing key
+ * outside of the application identify the key using the location of its verification
+ * certificate (<code>notaryKey.verificationCitation.documentLocation</code>) and may ignore the
+ * <code>signingKey</code> attribute of the notary key, which can then be null.
+ *
+ * @author Derk Norton
+ */
+public interface SigningBackend {
+
+    /**
+     * This method generates a digital signature of the specified bytes using the private
+     * signing key associated with the specified notary key.
+     *
+     * @param notaryKey The notary key whose signing key should be used.
+     * @param bytes The bytes to be signed.
+     * @return The digital signature of the bytes.
+     */
+    byte[] signBytes(NotaryKey notaryKey, byte[] bytes);
+
+}
@@ -0,0 +1,67 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary;
+
+import craterdog.primitives.Tag;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+
+/**
+ * This class generates unique locations using a separate deterministic random bit generator
+ * for each thread, so that threads generating locations in bulk do not contend on a shared
+ * random source.  Each generator is seeded from the shared source once, the first time it is
+ * used by a thread.  The identifiers have the same size and encoding as the default
+ * <code>Tag</code> identifiers.
+ *
+ * @author Derk Norton
+ */
+public final class ThreadLocalLocationGenerator implements LocationGenerator {
+
+    static private final int IDENTIFIER_SIZE = 20;  // the same size as a default tag
+    static private final int SEED_SIZE = 32;
+
+    private final SecureRandom seeder = new SecureRandom();
+    private final ThreadLocal<SecureRandom> generators = ThreadLocal.withInitial(this::createGenerator);
+
+
+    @Override
+    public URI generateLocation(URI baseUri, String category) {
+        byte[] bytes = new byte[IDENTIFIER_SIZE];
+        generators.get().nextBytes(bytes);
+        String base = baseUri.toString();
+        String identifier = new Tag(bytes).toString();
+        StringBuilder builder = new StringBuilder(base.length() + category.length() + identifier.length() + 2);
+        builder.append(base).append('/').append(category).append('/').append(identifier);
+        return URI.create(builder.toString());
+    }
+
+
+    private SecureRandom createGenerator() {
+        byte[] seed = new byte[SEED_SIZE];
+        synchronized (seeder) {
+            seeder.nextBytes(seed);
+        }
+        SecureRandom generator;
+        try {
+            generator = SecureRandom.getInstance("DRBG");  // JDK 9 and later
+        } catch (NoSuchAlgorithmException e) {
+            try {
+                generator = SecureRandom.getInstance("SHA1PRNG");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new RuntimeException("An unexpected exception occurred while attempting to create a random bit generator.", ex);
+            }
+        }
+        generator.setSeed(seed);  // seeding before first use makes the SHA1PRNG depend only on the seed
+        return generator;
+    }
+
+}
@@ -11,23 +11,39 @@ package craterdog.notary;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import craterdog.primitives.Tag;
+import craterdog.notary.events.KeyDeserializationEvent;
+import craterdog.notary.events.KeyGenerationEvent;
+import craterdog.notary.events.KeySerializationEvent;
+import craterdog.notary.events.NotarizationEvent;
+import craterdog.notary.events.NotaryEvents;
+import craterdog.notary.events.ValidationEvent;
 import craterdog.notary.mappers.NotaryModule;
 import craterdog.security.MessageCryptex;
-import craterdog.security.RsaAesMessageCryptex;
 import craterdog.smart.SmartObject;
 import craterdog.utils.Base32Utils;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyPair;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import org.joda.time.DateTime;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -39,11 +55,27 @@ import org.slf4j.ext.XLoggerFactory;
  *
  * @author Derk Norton
  */
-public final class V1NotarizationProvider implements Notarization {
+public final class V1NotarizationProvider implements DigestNotarization {
 
     static private final XLogger logger = XLoggerFactory.getXLogger(V1NotarizationProvider.class);
 
-    static private final MessageCryptex cryptex = new RsaAesMessageCryptex();
+    static private final MessageCryptex cryptex = CryptoContext.getCryptex();
+
+    static private final DocumentHasher sequentialHasher = new DocumentHasher();
+
+    static private final SigningBackend localBackend = new LocalSigningBackend();
+
+    static private final LocationGenerator threadLocalGenerator = new ThreadLocalLocationGenerator();
+
+    static private final int WARM_UP_CYCLES = 20;
+
+    static private final String HASHED_LENGTH = "hashedLength";  // seal attributes for appended documents
+
+    static private final String HASH_STATE = "hashState";
+
+    static private final String DOCUMENT_LENGTH = "documentLength";
+
+    static private final String CHECKPOINT_SIGNATURE = "Checkpoint Signature";
 
     /**
      * The hashing algorithm used to generate hash values for the documents.
@@ -65,6 +97,119 @@ public final class V1NotarizationProvider implements Notarization {
      */
     public final int minorVersion = 0;
 
+    private final DocumentHasher documentHasher;
+
+    private final SigningBackend signingBackend;
+
+    private final SealVerificationCache verificationCache;
+
+    private final RevocationRegistry revocationRegistry;
+
+    private final LocationGenerator locationGenerator;
+
+    private final NotarizationDeduplicator deduplicator;
+
+
+    /**
+     * This default constructor creates a notarization provider that hashes documents
+     * sequentially and signs notary seals using the signing key in the notary key.
+     */
+    public V1NotarizationProvider() {
+        this(sequentialHasher, localBackend, null, null, threadLocalGenerator, null);
+    }
+
+
+    private V1NotarizationProvider(DocumentHasher documentHasher, SigningBackend signingBackend,
+            SealVerificationCache verificationCache, RevocationRegistry revocationRegistry, LocationGenerator locationGenerator,
+            NotarizationDeduplicator deduplicator) {
+        this.documentHasher = documentHasher;
+        this.signingBackend = signingBackend;
+        this.verificationCache = verificationCache;
+        this.revocationRegistry = revocationRegistry;
+        this.locationGenerator = locationGenerator;
+        this.deduplicator = deduplicator;
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that notarizes documents using
+     * tree hashing.  The chunks of each document are hashed in parallel and combined into a
+     * Merkle tree.  The chunk size is recorded in the hashing algorithm of the watermark for
+     * each notary seal so that any provider can validate the seal.
+     *
+     * @param chunkSize The size of each chunk in bytes.
+     * @return A notarization provider that uses tree hashing.
+     */
+    public V1NotarizationProvider withTreeHashing(int chunkSize) {
+        return new V1NotarizationProvider(new DocumentHasher(chunkSize), signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that signs notary seals using
+     * the specified signing backend.  This allows the private signing keys to be kept outside
+     * of the application process.
+     *
+     * @param signingBackend The signing backend used to sign notary seals.
+     * @return A notarization provider that uses the signing backend.
+     */
+    public V1NotarizationProvider withSigningBackend(SigningBackend signingBackend) {
+        return new V1NotarizationProvider(documentHasher, signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that caches the successful
+     * verifications of notary seals.  A document that is validated again against the same
+     * seal and certificate then only needs to be hashed, the signatures are not verified
+     * again.
+     *
+     * @param verificationCache The cache of successful seal verifications.
+     * @return A notarization provider that uses the verification cache.
+     */
+    public V1NotarizationProvider withVerificationCache(SealVerificationCache verificationCache) {
+        return new V1NotarizationProvider(documentHasher, signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that rejects notary seals that
+     * have been revoked, or that were signed using a notary certificate that has been revoked.
+     *
+     * @param revocationRegistry The registry of revoked certificates and seals.
+     * @return A notarization provider that checks the revocation registry.
+     */
+    public V1NotarizationProvider withRevocationRegistry(RevocationRegistry revocationRegistry) {
+        return new V1NotarizationProvider(documentHasher, signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that generates the locations
+     * of new notary certificates and identities using the specified generator.  By default
+     * each thread uses its own random bit generator.
+     *
+     * @param locationGenerator The generator of certificate and identity locations.
+     * @return A notarization provider that uses the location generator.
+     */
+    public V1NotarizationProvider withLocationGenerator(LocationGenerator locationGenerator) {
+        return new V1NotarizationProvider(documentHasher, signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
+
+    /**
+     * This method returns a copy of this notarization provider that returns the notary seal
+     * that was already issued when the same document is notarized again using the same notary
+     * key within the window of the deduplicator (e.g. when an upstream request is retried).
+     * Concurrent duplicate requests are signed only once.
+     *
+     * @param deduplicator The deduplicator that remembers the issued seals.
+     * @return A notarization provider that notarizes documents idempotently.
+     */
+    public V1NotarizationProvider withDeduplication(NotarizationDeduplicator deduplicator) {
+        return new V1NotarizationProvider(documentHasher, signingBackend, verificationCache, revocationRegistry, locationGenerator, deduplicator);
+    }
+
 
     @Override
     public Watermark generateWatermark(int secondsToLive) {
@@ -178,38 +323,70 @@ public final class V1NotarizationProvider implements Notarization {
     @Override
     public NotaryKey generateNotaryKey(URI baseUri, Map<String, Object> additionalAttributes, NotaryKey previousKey) {
         logger.entry(baseUri, additionalAttributes, previousKey);
+        NotaryKey notaryKey = generateNotaryKey(baseUri, additionalAttributes, previousKey, null);
+        logger.exit(notaryKey);
+        return notaryKey;
+    }
 
-        logger.debug("Generating a new RSA key pair...");
-        KeyPair keyPair = cryptex.generateKeyPair();
-        PrivateKey privateKey = keyPair.getPrivate();
-        PublicKey publicKey = keyPair.getPublic();
-
-        logger.debug("Creating the watermark...");
-        Watermark watermark = generateWatermark(VALID_FOR_ONE_YEAR);
-
-        logger.debug("Wrapping the verification key in a certificate...");
-        NotaryCertificate certificate = generateNotaryCertificate(baseUri, publicKey, privateKey, additionalAttributes, watermark, previousKey);
-
-        logger.debug("Creating a document citation to the verification certificate...");
-        URI documentLocation = certificate.attributes.myLocation;
-        String document = certificate.toString();
-        DocumentCitation citation = generateDocumentCitation(documentLocation, document);
 
-        logger.debug("Assembling the notary key...");
-        NotaryKey notaryKey = new NotaryKey();
-        notaryKey.watermark = watermark;
-        notaryKey.signingKey = privateKey;
-        notaryKey.verificationCertificate = certificate;
-        notaryKey.verificationCitation = citation;
+    /*
+     * This method is also used by the identity chain class in this package.  The checkpoint
+     * keys are the keys that sign the checkpoint seals of the new certificate, or null if it
+     * is not a checkpoint.
+     */
+    NotaryKey generateNotaryKey(URI baseUri, Map<String, Object> additionalAttributes, NotaryKey previousKey, List<NotaryKey> checkpointKeys) {
+        KeyGenerationEvent event = NotaryEvents.keyGeneration();
+        event.start();
+        try {
+            logger.debug("Generating a new RSA key pair...");
+            KeyPair keyPair = cryptex.generateKeyPair();
+            PrivateKey privateKey = keyPair.getPrivate();
+            PublicKey publicKey = keyPair.getPublic();
+            event.keyPairGenerated();
+
+            logger.debug("Creating the watermark...");
+            Watermark watermark = generateWatermark(VALID_FOR_ONE_YEAR);
+
+            logger.debug("Wrapping the verification key in a certificate...");
+            NotaryCertificate certificate = generateNotaryCertificate(baseUri, publicKey, privateKey, additionalAttributes, watermark, previousKey);
+            if (checkpointKeys != null) {
+                logger.debug("Signing the checkpoint seals for the certificate...");
+                certificate.checkpointSeals = new ArrayList<>(checkpointKeys.size());
+                for (NotaryKey checkpointKey : checkpointKeys) {
+                    NotarySeal seal = null;
+                    if (checkpointKey != null) {
+                        seal = notarizeDocument(CHECKPOINT_SIGNATURE, certificate.selfSignature, checkpointKey);
+                    }
+                    certificate.checkpointSeals.add(seal);
+                }
+            }
 
-        logger.exit(notaryKey);
-        return notaryKey;
+            logger.debug("Creating a document citation to the verification certificate...");
+            URI documentLocation = certificate.attributes.myLocation;
+            String document = certificate.toString();
+            DocumentCitation citation = generateDocumentCitation(documentLocation, document);
+            event.certified(certificate);
+
+            logger.debug("Assembling the notary key...");
+            NotaryKey notaryKey = new NotaryKey();
+            notaryKey.watermark = watermark;
+            notaryKey.signingKey = privateKey;
+            notaryKey.verificationCertificate = certificate;
+            notaryKey.verificationCitation = citation;
+            event.succeed();
+            return notaryKey;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
     }
 
 
     @Override
     public String serializeNotaryKey(NotaryKey notaryKey, char[] password) {
         logger.entry(notaryKey);
+        KeySerializationEvent event = NotaryEvents.keySerialization();
+        event.start();
 
         logger.debug("Marshalling the notary key into a JSON string...");
         String json;
@@ -217,9 +394,12 @@ public final class V1NotarizationProvider implements Notarization {
             ObjectMapper mapper = SmartObject.createMapper(new NotaryModule(password));
             json = mapper.writeValueAsString(notaryKey);
         } catch (Exception e) {
+            event.fail(e);
             RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to serialize a notary key.", e);
             throw logger.throwing(exception);
         }
+        event.marshalled(notaryKey, json);
+        event.succeed();
 
         logger.exit(json);
         return json;
@@ -229,30 +409,39 @@ public final class V1NotarizationProvider implements Notarization {
     @Override
     public NotaryKey deserializeNotaryKey(String json, char[] password) throws IOException {
         logger.entry(json);
-
-        logger.debug("Unmarshalling the notary key from a JSON string...");
-        NotaryKey notaryKey;
+        KeyDeserializationEvent event = NotaryEvents.keyDeserialization();
+        event.start();
         try {
-            ObjectMapper mapper = SmartObject.createMapper(new NotaryModule(password));
-            notaryKey = mapper.readValue(json, NotaryKey.class);
-        } catch (JsonMappingException e) {
-            String messageTag = "invalid.notary.key.password";
+            logger.debug("Unmarshalling the notary key from a JSON string...");
+            NotaryKey notaryKey;
+            try {
+                ObjectMapper mapper = SmartObject.createMapper(new NotaryModule(password));
+                notaryKey = mapper.readValue(json, NotaryKey.class);
+            } catch (JsonMappingException e) {
+                String messageTag = "invalid.notary.key.password";
+                Map<String, Object> errors = new LinkedHashMap<>();
+                errors.put("json.string", json);
+                logger.error("The notary key password is invalid for the following notary key: {}", json);
+                throw new ValidationException(messageTag, errors);
+            } catch (Exception e) {
+                RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to deserialize a notary key: " + json, e);
+                throw logger.throwing(exception);
+            }
+            event.unmarshalled(json);
+
+            logger.debug("Validating the notary key...");
             Map<String, Object> errors = new LinkedHashMap<>();
-            errors.put("json.string", json);
-            logger.error("The notary key password is invalid for the following notary key: {}", json);
-            throw new ValidationException(messageTag, errors);
-        } catch (Exception e) {
-            RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to deserialize a notary key: " + json, e);
-            throw logger.throwing(exception);
+            validateNotaryKey(notaryKey, errors);
+            throwExceptionOnErrors("invalid.serialized.notary.key", errors);
+            event.validated(notaryKey);
+            event.succeed();
+
+            logger.exit(notaryKey);
+            return notaryKey;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
         }
-
-        logger.debug("Validating the notary key...");
-        Map<String, Object> errors = new LinkedHashMap<>();
-        validateNotaryKey(notaryKey, errors);
-        throwExceptionOnErrors("invalid.serialized.notary.key", errors);
-
-        logger.exit(notaryKey);
-        return notaryKey;
     }
 
 
@@ -277,10 +466,776 @@ public final class V1NotarizationProvider implements Notarization {
     }
 
 
+    /**
+     * This method validates that a certificate descends from a trusted earlier certificate in
+     * the same identity chain.  Rather than walking every certification seal back to the
+     * trusted certificate, it follows the checkpoint seals generated by the
+     * <code>IdentityChain</code> class, taking the longest available jump at each step, so only
+     * O(log N) certificates and signatures are verified.  Chains without checkpoint seals are
+     * still validated, one certificate at a time.  Any errors that are found are added to the
+     * specified error map.
+     *
+     * @param certificate The certificate to be validated.
+     * @param trustedCertificate An earlier certificate in the chain that is already trusted,
+     * typically the first one.
+     * @param certificates A function that returns the certificate in the chain with a given
+     * sequence number, or null if it is not available.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateCertificateHistory(NotaryCertificate certificate, NotaryCertificate trustedCertificate,
+            IntFunction<NotaryCertificate> certificates, Map<String, Object> errors) {
+        logger.entry(certificate, trustedCertificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+
+        logger.debug("Validating the certificate and the trusted certificate...");
+        validateNotaryCertificate(certificate, errors);
+        validateNotaryCertificate(trustedCertificate, errors);
+        if (errors.size() == errorCount) {
+            URI identity = trustedCertificate.attributes.identityLocation;
+            if (identity == null || !identity.equals(certificate.attributes.identityLocation)
+                    || certificate.attributes.sequenceNumber < trustedCertificate.attributes.sequenceNumber) {
+                logger.error("The certificate does not descend from the trusted certificate...");
+                errors.put("certificate.history.is.invalid", certificate.attributes.myLocation);
+            }
+        }
+
+        int trusted = trustedCertificate == null ? 0 : trustedCertificate.attributes.sequenceNumber;
+        NotaryCertificate current = certificate;
+        while (errors.size() == errorCount && current.attributes.sequenceNumber > trusted) {
+            int sequenceNumber = current.attributes.sequenceNumber;
+            int index = sequenceNumber - 1;  // the first certificate is at index zero
+            int level = Integer.numberOfTrailingZeros(index);
+            while (level > 0 && ((1 << level) > sequenceNumber - trusted || getCheckpointSeal(current, level) == null)) {
+                level--;
+            }
+            NotarySeal seal = level == 0 ? current.certificationSeal : getCheckpointSeal(current, level);
+            int target = sequenceNumber - (1 << level);
+            logger.debug("Validating the jump from certificate {} to certificate {}...", sequenceNumber, target);
+            NotaryCertificate signer = target == trusted ? trustedCertificate : certificates.apply(target);
+            if (signer == null || signer.attributes == null || signer.attributes.sequenceNumber != target
+                    || !trustedCertificate.attributes.identityLocation.equals(signer.attributes.identityLocation)) {
+                logger.error("The certificate at position {} in the chain is not available...", target);
+                errors.put("certificate.history.is.incomplete", target);
+                break;
+            }
+            if (signer != trustedCertificate) validateNotaryCertificate(signer, errors);
+            validateNotarySeal(seal, signer, errors);
+            if (errors.size() == errorCount) {
+                DocumentHasher hasher = DocumentHasher.forAlgorithm(seal.attributes.watermark.hashingAlgorithm);
+                if (hasher == null || !hashDocument(current.selfSignature, hasher).equals(seal.attributes.documentHash)) {
+                    logger.error("The seal at position {} does not certify the certificate...", sequenceNumber);
+                    errors.put("certificate.history.is.invalid", current.attributes.myLocation);
+                }
+            }
+            current = signer;
+        }
+
+        logger.exit(errors);
+    }
+
+
     @Override
     public NotarySeal notarizeDocument(String documentType, String document, NotaryKey notaryKey) {
         logger.entry(documentType, document, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            String algorithm = documentHasher.getAlgorithm(hashingAlgorithm);
+            byte[] bytes = document.getBytes();
+            String documentHash = hashDocument(bytes, documentHasher);
+            event.hashed(documentType, bytes.length);
+            NotarySeal seal = notarizeHash(documentType, documentHash, algorithm, notaryKey, event);
+            logger.exit(seal);
+            return seal;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+
+    @Override
+    public NotarySeal notarizeDocument(String documentType, Path document, NotaryKey notaryKey) throws IOException {
+        logger.entry(documentType, document, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            String algorithm = documentHasher.getAlgorithm(hashingAlgorithm);
+            String documentHash = hashDocument(document, documentHasher);
+            event.hashed(documentType, event.isEnabled() ? Files.size(document) : 0);
+            NotarySeal seal = notarizeHash(documentType, documentHash, algorithm, notaryKey, event);
+            logger.exit(seal);
+            return seal;
+        } catch (IOException | RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+
+    @Override
+    public NotarySeal notarizeDigest(String documentType, byte[] digest, String hashingAlgorithm, NotaryKey notaryKey) {
+        logger.entry(documentType, digest, hashingAlgorithm, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            logger.debug("Validating the document digest...");
+            Map<String, Object> errors = new LinkedHashMap<>();
+            validateDigest(digest, hashingAlgorithm, errors);
+            throwExceptionOnErrors("invalid.document.digest", errors);
+            event.hashed(documentType, 0);  // the document itself is not known
+
+            NotarySeal seal = notarizeHash(documentType, Base32Utils.encode(digest), hashingAlgorithm, notaryKey, event);
+            logger.exit(seal);
+            return seal;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void validateDocument(String document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        logger.entry(document, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            if (document == null || document.isEmpty()) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", document);
+            }
+            DocumentHasher hasher = validateHashingAlgorithm(seal, errors);
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the hash of the document...");
+                String documentHash = seal.attributes.documentHash;
+                byte[] bytes = document.getBytes();
+                if (!documentHash.equals(hashDocument(bytes, hasher))) {
+                    logger.error("The document hash does not match the hash in the notary seal...");
+                    errors.put("document.hash.is.invalid", document);
+                }
+                event.hashed(bytes.length);
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    @Override
+    public void validateDocument(Path document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) throws IOException {
+        logger.entry(document, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            if (document == null) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", document);
+            }
+            DocumentHasher hasher = validateHashingAlgorithm(seal, errors);
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the hash of the document...");
+                String documentHash = seal.attributes.documentHash;
+                if (!documentHash.equals(hashDocument(document, hasher))) {
+                    logger.error("The document hash does not match the hash in the notary seal...");
+                    errors.put("document.hash.is.invalid", document);
+                }
+                event.hashed(event.isEnabled() ? Files.size(document) : 0);
+            }
+            event.finish(errors, errorCount);
+        } catch (IOException | RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    @Override
+    public void validateDigest(byte[] digest, String hashingAlgorithm, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        logger.entry(digest, hashingAlgorithm, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            logger.debug("Validating the document digest...");
+            validateDigest(digest, hashingAlgorithm, errors);
+
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the digest of the document...");
+                if (!hashingAlgorithm.equals(seal.attributes.watermark.hashingAlgorithm)) {
+                    logger.error("The digest hashing algorithm does not match the hashing algorithm in the notary seal...");
+                    errors.put("document.hashing.algorithm.does.not.match", hashingAlgorithm);
+                }
+                String documentHash = seal.attributes.documentHash;
+                if (!documentHash.equals(Base32Utils.encode(digest))) {
+                    logger.error("The document digest does not match the hash in the notary seal...");
+                    errors.put("document.digest.is.invalid", digest);
+                }
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    /**
+     * This method notarizes a JSON document field by field by signing the root hash of its
+     * field tree.  The hashing algorithm in the watermark of the seal is suffixed with
+     * <code>FieldTree.FIELDS_MODE</code>.  A single field of the document can later be
+     * validated using only a proof generated by the tree.
+     *
+     * @param documentType The type of document being notarized.
+     * @param fields The field tree for the JSON document.
+     * @param notaryKey The notary key to be used to notarize the document.
+     * @return The notary seal for the document.
+     */
+    public NotarySeal notarizeFields(String documentType, FieldTree fields, NotaryKey notaryKey) {
+        logger.entry(documentType, fields, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            String algorithm = hashingAlgorithm + FieldTree.FIELDS_MODE;
+            event.hashed(documentType, 0);  // the fields were hashed by the tree
+            NotarySeal seal = notarizeHash(documentType, fields.getRootHash(), algorithm, notaryKey, event);
+            logger.exit(seal);
+            return seal;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+
+    /**
+     * This method validates a JSON document that was notarized field by field against its
+     * notary seal.  Any errors that are found are added to the specified error map.
+     *
+     * @param fields The field tree for the JSON document.
+     * @param seal The notary seal for the document.
+     * @param certificate The certificate of the notary that signed the document.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateFields(FieldTree fields, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        logger.entry(fields, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            if (fields == null) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", fields);
+            }
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the root hash of the document fields...");
+                validateFieldsAlgorithm(seal, errors);
+                if (!seal.attributes.documentHash.equals(fields.getRootHash())) {
+                    logger.error("The document hash does not match the hash in the notary seal...");
+                    errors.put("document.hash.is.invalid", fields.getRootHash());
+                }
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    /**
+     * This method validates a single field of a JSON document that was notarized field by
+     * field, using only a proof for that field.  The other fields of the document are not
+     * needed.  Any errors that are found are added to the specified error map.
+     *
+     * @param proof The proof for the field.
+     * @param seal The notary seal for the document.
+     * @param certificate The certificate of the notary that signed the document.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateField(FieldProof proof, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        logger.entry(proof, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            if (proof == null) {
+                logger.error("The field proof is missing...");
+                errors.put("field.proof.is.missing", proof);
+            }
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the proof of the field...");
+                validateFieldsAlgorithm(seal, errors);
+                String rootHash = FieldTree.computeRootHash(proof);
+                if (rootHash == null) {
+                    logger.error("The field proof is malformed...");
+                    errors.put("field.proof.is.invalid", proof);
+                } else if (!seal.attributes.documentHash.equals(rootHash)) {
+                    logger.error("The field proof does not match the hash in the notary seal...");
+                    errors.put("document.hash.is.invalid", proof.path);
+                }
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    /**
+     * This method notarizes a document that only grows by having bytes appended to it, like a
+     * rotating log file.  The seal records the number of bytes that were hashed and the
+     * intermediate state of the hash, so that the next notarization of the document only
+     * hashes the bytes that were appended since the previous seal.  The seal is chained to
+     * the previous seal and its document hash is a plain sequential hash of the whole
+     * document, so it can also be validated like any other seal for the document.
+     *
+     * @param documentType The type of document being notarized.
+     * @param document The path to the document being notarized.
+     * @param previousSeal The seal from the previous notarization of the document, or null
+     * if this is the first one.
+     * @param notaryKey The notary key to be used to notarize the document.
+     * @return The notary seal for the document.
+     * @throws IOException The document could not be read, or is shorter than it was when the
+     * previous seal was generated.
+     */
+    public NotarySeal notarizeAppendedDocument(String documentType, Path document, NotarySeal previousSeal, NotaryKey notaryKey) throws IOException {
+        logger.entry(documentType, document, previousSeal, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            ResumableHasher hasher = new ResumableHasher();
+            if (previousSeal != null) {
+                logger.debug("Resuming the hash state of the previous seal...");
+                Map<String, Object> errors = new LinkedHashMap<>();
+                hasher = resumeHasher(document, previousSeal, errors);
+                throwExceptionOnErrors("invalid.previous.seal", errors);
+            }
+            long appended = hasher.update(document);
+            event.hashed(documentType, appended);
+
+            SealAttributes attributes = generateSealAttributes(documentType, Base32Utils.encode(hasher.digest()), hashingAlgorithm, notaryKey);
+            if (previousSeal != null) attributes.previousSealHash = SealChain.hashSeal(previousSeal);
+            attributes.put(DOCUMENT_LENGTH, hasher.getLength());
+            attributes.put(HASHED_LENGTH, hasher.getStateLength());
+            attributes.put(HASH_STATE, hasher.getState());
+
+            logger.debug("Signing the notary seal...");
+            NotarySeal seal = new NotarySeal();
+            seal.attributes = attributes;
+            seal.selfSignature = generateDocumentSignature(attributes.toString(), notaryKey);
+            event.signed(notaryKey);
+            event.succeed();
+            logger.exit(seal);
+            return seal;
+        } catch (IOException | RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+
+    /**
+     * This method validates one link in the chain of seals for a document that only grows by
+     * having bytes appended to it.  Only the bytes that were appended between the previous
+     * seal and this seal are hashed, so the whole chain can be validated by hashing the
+     * document once.  The previous seal is vouched for by the signature on this seal so it
+     * need not be validated again.  The document may have grown since the seal was generated.
+     * Any errors that are found are added to the specified error map.
+     *
+     * @param document The path to the document to be validated.
+     * @param previousSeal The previous seal in the chain, or null if this is the first one.
+     * @param seal The notary seal to be validated.
+     * @param certificate The certificate of the notary that signed the seal.
+     * @param errors A map containing any errors that were found.
+     * @throws IOException The document could not be read.
+     */
+    public void validateAppendedDocument(Path document, NotarySeal previousSeal, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) throws IOException {
+        logger.entry(document, previousSeal, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the notary certificate and digital seal...");
+            validateNotarization(seal, certificate, errors);
+            event.verified(seal, certificate);
+
+            if (document == null) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", document);
+            }
+            ResumableHasher hasher = new ResumableHasher();
+            if (errorCount == errors.size() && previousSeal != null) {
+                logger.debug("Validating the link to the previous seal...");
+                hasher = resumeHasher(document, previousSeal, errors);
+                if (errorCount == errors.size() && !SealChain.hashSeal(previousSeal).equals(seal.attributes.previousSealHash)) {
+                    logger.error("The previous seal hash does not match the previous seal...");
+                    errors.put("seal.previous.hash.is.invalid", seal.attributes.previousSealHash);
+                }
+            }
+            Long documentLength = getLength(seal, DOCUMENT_LENGTH);
+            if (errorCount == errors.size() && documentLength == null) {
+                logger.error("The notary seal does not contain a document length...");
+                errors.put("seal.hash.state.is.invalid", seal.attributes.get(DOCUMENT_LENGTH));
+            }
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the hash of the appended bytes...");
+                if (documentLength < hasher.getLength() || Files.size(document) < documentLength) {
+                    logger.error("The document is shorter than the length in the notary seal...");
+                    errors.put("document.hash.is.invalid", document);
+                } else {
+                    event.hashed(hasher.update(document, documentLength));
+                    if (!seal.attributes.documentHash.equals(Base32Utils.encode(hasher.digest()))) {
+                        logger.error("The document hash does not match the hash in the notary seal...");
+                        errors.put("document.hash.is.invalid", document);
+                    } else if (!hasher.getState().equals(seal.attributes.get(HASH_STATE))
+                            || !Long.valueOf(hasher.getStateLength()).equals(getLength(seal, HASHED_LENGTH))) {
+                        logger.error("The hash state does not match the hash state in the notary seal...");
+                        errors.put("seal.hash.state.is.invalid", seal.attributes.get(HASH_STATE));
+                    }
+                }
+            }
+            event.finish(errors, errorCount);
+        } catch (IOException | RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    /**
+     * This method generates an unsigned co-signed seal for a document that must be signed by
+     * at least the threshold number of the notaries with the specified certificates.  The
+     * notaries then sign it independently, and possibly in parallel, using the
+     * <code>coSignSeal</code> method.
+     *
+     * @param documentType The type of document being notarized.
+     * @param document The document being notarized.
+     * @param certificates The certificates of the notaries that may sign the seal.
+     * @param threshold The number of the notaries that must sign the seal.
+     * @return The unsigned co-signed seal.
+     */
+    public CoSignedSeal generateCoSignedSeal(String documentType, String document, List<NotaryCertificate> certificates, int threshold) {
+        logger.entry(documentType, document, certificates, threshold);
+        if (threshold < 1 || threshold > certificates.size()) {
+            throw new IllegalArgumentException("The threshold must be between one and the number of notaries: " + threshold);
+        }
+        Set<URI> locations = new HashSet<>();
+        for (NotaryCertificate certificate : certificates) {
+            if (!locations.add(certificate.attributes.myLocation)) {
+                throw new IllegalArgumentException("Each notary may only be cited once: " + certificate.attributes.myLocation);
+            }
+        }
+        CoSealAttributes attributes = new CoSealAttributes();
+        attributes.documentType = documentType;
+        attributes.documentHash = hashDocument(document, documentHasher);
+        attributes.watermark = generateWatermark(Notarization.VALID_FOR_FOREVER);
+        attributes.watermark.hashingAlgorithm = documentHasher.getAlgorithm(hashingAlgorithm);
+        attributes.verificationCitations = new ArrayList<>(certificates.size());
+        for (NotaryCertificate certificate : certificates) {
+            attributes.verificationCitations.add(generateDocumentCitation(certificate.attributes.myLocation, certificate.toString()));
+        }
+        attributes.threshold = threshold;
+        CoSignedSeal seal = new CoSignedSeal();
+        seal.attributes = attributes;
+        seal.signatures = new ArrayList<>(Collections.nCopies(certificates.size(), (String) null));
+        logger.exit(seal);
+        return seal;
+    }
+
+
+    /**
+     * This method adds the signature of a notary to a co-signed seal.  Several notaries may
+     * sign the same seal concurrently.
+     *
+     * @param seal The co-signed seal.
+     * @param notaryKey The notary key of one of the notaries cited by the seal.
+     */
+    public void coSignSeal(CoSignedSeal seal, NotaryKey notaryKey) {
+        logger.entry(seal, notaryKey);
+        NotarizationEvent event = NotaryEvents.notarization();
+        event.start();
+        try {
+            Map<String, Object> errors = new LinkedHashMap<>();
+            validateWatermark(notaryKey.watermark, errors);
+            throwExceptionOnErrors("notary.key.has.expired", errors);
+            int index = seal.attributes.verificationCitations.indexOf(notaryKey.verificationCitation);
+            if (index < 0) {
+                logger.error("The notary key is not cited by the co-signed seal...");
+                errors.put("notary.key.is.not.cited", notaryKey.verificationCitation);
+                throwExceptionOnErrors("invalid.co.signer", errors);
+            }
+            event.hashed(seal.attributes.documentType, 0);  // the document was hashed when the seal was generated
+
+            logger.debug("Signing the co-signed seal...");
+            String signature = generateDocumentSignature(seal.attributes.toString(), notaryKey);
+            synchronized (seal) {
+                seal.signatures.set(index, signature);
+            }
+            event.signed(notaryKey);
+            event.succeed();
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+        logger.exit();
+    }
+
+
+    /**
+     * This method notarizes a document using the notary keys of several local notaries, which
+     * sign the seal in parallel.
+     *
+     * @param documentType The type of document being notarized.
+     * @param document The document being notarized.
+     * @param notaryKeys The notary keys of the notaries that sign the seal.
+     * @param threshold The number of the notaries that must sign the seal.
+     * @return The co-signed seal.
+     */
+    public CoSignedSeal notarizeCoSignedDocument(String documentType, String document, List<NotaryKey> notaryKeys, int threshold) {
+        logger.entry(documentType, document, notaryKeys, threshold);
+        List<NotaryCertificate> certificates = new ArrayList<>(notaryKeys.size());
+        for (NotaryKey notaryKey : notaryKeys) {
+            certificates.add(notaryKey.verificationCertificate);
+        }
+        CoSignedSeal seal = generateCoSignedSeal(documentType, document, certificates, threshold);
+        CompletableFuture<?>[] signers = new CompletableFuture<?>[notaryKeys.size()];
+        for (int i = 0; i < signers.length; i++) {
+            NotaryKey notaryKey = notaryKeys.get(i);
+            signers[i] = CompletableFuture.runAsync(() -> coSignSeal(seal, notaryKey));
+        }
+        try {
+            CompletableFuture.allOf(signers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        logger.exit(seal);
+        return seal;
+    }
+
+
+    /**
+     * This method validates a document against a co-signed seal.  The signatures are verified
+     * concurrently and the verification stops as soon as the threshold number of them are
+     * valid, or as soon as the threshold can no longer be met.  Any errors that are found are
+     * added to the specified error map.
+     *
+     * @param document The document to be validated.
+     * @param seal The co-signed seal for the document.
+     * @param certificates The certificates of the notaries that signed the seal, in any order.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateCoSignedDocument(String document, CoSignedSeal seal, List<NotaryCertificate> certificates, Map<String, Object> errors) {
+        logger.entry(document, seal, certificates, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Validating the co-signed seal...");
+            validateCoSignedSeal(seal, errors);
+            if (document == null || document.isEmpty()) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", document);
+            }
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the hash of the document...");
+                DocumentHasher hasher = DocumentHasher.forAlgorithm(seal.attributes.watermark.hashingAlgorithm);
+                byte[] bytes = document.getBytes();
+                if (hasher == null) {
+                    logger.error("The co-signed seal hashing algorithm is not supported...");
+                    errors.put("seal.hashing.algorithm.is.not.supported", seal.attributes.watermark.hashingAlgorithm);
+                } else if (!seal.attributes.documentHash.equals(hashDocument(bytes, hasher))) {
+                    logger.error("The document hash does not match the hash in the co-signed seal...");
+                    errors.put("document.hash.is.invalid", document);
+                }
+                event.hashed(bytes.length);
+            }
+            if (errorCount == errors.size()) {
+                logger.debug("Verifying the signatures of the co-signed seal...");
+                validateCoSignatures(seal, certificates, errors);
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
 
+        logger.exit(errors);
+    }
+
+
+    /**
+     * This method validates a document against a lazily parsed notary seal and certificate.
+     * The signatures are verified against the exact bytes of the seal and certificate
+     * attributes as they were received so the attributes are never re-serialized, and the
+     * certification seal of the certificate is never parsed.  Any errors that are found are
+     * added to the specified error map.
+     *
+     * @param document The document to be validated.
+     * @param seal The lazily parsed notary seal for the document.
+     * @param certificate The lazily parsed certificate of the notary that signed the document.
+     * @param errors A map containing any errors that were found.
+     */
+    public void validateDocument(String document, LazyNotarySeal seal, LazyNotaryCertificate certificate, Map<String, Object> errors) {
+        logger.entry(document, seal, certificate, errors);
+        int errorCount = errors.size();  // record it to see if it changes
+        ValidationEvent event = NotaryEvents.validation();
+        event.start();
+        try {
+            logger.debug("Parsing the notary certificate and digital seal attributes...");
+            NotaryCertificate parsedCertificate = parseCertificate(certificate, errors);
+            NotarySeal parsedSeal = parseSeal(seal, errors);
+
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be well formed
+                try {
+                    logger.debug("Validating the notary certificate...");
+                    validateNotaryCertificate(parsedCertificate, certificate.getSignedBytes(), errors);
+
+                    logger.debug("Validating the digital seal...");
+                    validateNotarySeal(parsedSeal, seal.getSignedBytes(), parsedCertificate, certificate.getCitedBytes(), errors);
+                } catch (IOException e) {
+                    RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to re-serialize the parsed attributes.", e);
+                    throw logger.throwing(exception);
+                }
+            }
+            event.verified(parsedSeal, parsedCertificate);
+
+            if (document == null || document.isEmpty()) {
+                logger.error("The document to be validated is missing...");
+                errors.put("document.is.missing", document);
+            }
+            DocumentHasher hasher = validateHashingAlgorithm(parsedSeal, errors);
+            if (errorCount == errors.size()) {
+                // no new errors, so parameters should be valid
+                logger.debug("Validating the hash of the document...");
+                String documentHash = parsedSeal.attributes.documentHash;
+                byte[] bytes = document.getBytes();
+                if (!documentHash.equals(hashDocument(bytes, hasher))) {
+                    logger.error("The document hash does not match the hash in the notary seal...");
+                    errors.put("document.hash.is.invalid", document);
+                }
+                event.hashed(bytes.length);
+            }
+            event.finish(errors, errorCount);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+
+        logger.exit(errors);
+    }
+
+
+    @Override
+    public void throwExceptionOnErrors(String messageTag, Map<String, Object> errors) throws ValidationException {
+        logger.entry(messageTag, errors);
+        if (!errors.isEmpty()) {
+            logger.error("A validation exception \"" + messageTag + "\" was thrown with the following errors: {}", errors);
+            throw new ValidationException(messageTag, errors);
+        }
+        logger.exit();
+    }
+
+
+    /**
+     * This method warms up this notarization provider so that the first real notarization
+     * does not pay for the lazy initialization of the cryptographic algorithms, key factories
+     * and mappers, or for running in the interpreter.  It generates a throwaway notary key,
+     * serializes and deserializes it, and then notarizes and validates a synthetic document
+     * the default number of times.  The synthetic seals are always signed in process, any
+     * signing backend, verification cache, revocation registry or deduplicator is left untouched.
+     */
+    public void warmUp() {
+        warmUp(WARM_UP_CYCLES);
+    }
+
+
+    /**
+     * This method warms up this notarization provider by running the specified number of
+     * synthetic sign and verify cycles.
+     *
+     * @param cycles The number of synthetic documents to notarize and validate.
+     */
+    public void warmUp(int cycles) {
+        logger.entry(cycles);
+        V1NotarizationProvider local = new V1NotarizationProvider(documentHasher, localBackend, null, null, locationGenerator, null);
+
+        logger.debug("Generating and marshalling a throwaway notary key...");
+        NotaryKey notaryKey = local.generateNotaryKey(URI.create("http://localhost/WarmUp"));
+        char[] password = "warm up".toCharArray();
+        try {
+            notaryKey = local.deserializeNotaryKey(local.serializeNotaryKey(notaryKey, password), password);
+
+            logger.debug("Notarizing and validating the synthetic documents...");
+            ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+            NotaryCertificate certificate = mapper.readValue(notaryKey.verificationCertificate.toString(), NotaryCertificate.class);
+            Map<String, Object> errors = new LinkedHashMap<>();
+            for (int i = 0; i < cycles; i++) {
+                String document = "This is synthetic warm up document number " + i + ".";
+                NotarySeal seal = local.notarizeDocument("Warm Up", document, notaryKey);
+                seal = mapper.readValue(mapper.writeValueAsString(seal), NotarySeal.class);
+                local.validateDocument(document, seal, certificate, errors);
+            }
+            throwExceptionOnErrors("warm.up.failed", errors);
+        } catch (IOException e) {
+            RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to warm up the notarization provider.", e);
+            throw logger.throwing(exception);
+        }
+
+        logger.exit();
+    }
+
+
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    SealAttributes generateSealAttributes(String documentType, String documentHash, String algorithm, NotaryKey notaryKey) {
         logger.debug("Verifying that the notary key has not expired...");
         Map<String, Object> errors = new LinkedHashMap<>();
         Watermark watermark = notaryKey.watermark;
@@ -290,58 +1245,313 @@ public final class V1NotarizationProvider implements Notarization {
         logger.debug("Creating the notary seal attributes...");
         SealAttributes attributes = new SealAttributes();
         attributes.documentType = documentType;
-        attributes.documentHash = hashDocument(document);
+        attributes.documentHash = documentHash;
         attributes.verificationCitation = notaryKey.verificationCitation;
         attributes.watermark = generateWatermark(Notarization.VALID_FOR_FOREVER);
+        attributes.watermark.hashingAlgorithm = algorithm;
+        return attributes;
+    }
+
+
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    SealAttributes generateSealAttributes(String documentType, String document, NotaryKey notaryKey) {
+        String algorithm = documentHasher.getAlgorithm(hashingAlgorithm);
+        return generateSealAttributes(documentType, hashDocument(document, documentHasher), algorithm, notaryKey);
+    }
+
+
+    private NotarySeal notarizeHash(String documentType, String documentHash, String algorithm, NotaryKey notaryKey, NotarizationEvent event) {
+        NotarySeal seal;
+        if (deduplicator != null) {
+            seal = deduplicator.notarize(documentType, documentHash, algorithm, notaryKey,
+                    () -> signHash(documentType, documentHash, algorithm, notaryKey));
+        } else {
+            seal = signHash(documentType, documentHash, algorithm, notaryKey);
+        }
+        event.signed(notaryKey);
+        event.succeed();
+        return seal;
+    }
+
+
+    private NotarySeal signHash(String documentType, String documentHash, String algorithm, NotaryKey notaryKey) {
+        SealAttributes attributes = generateSealAttributes(documentType, documentHash, algorithm, notaryKey);
 
         logger.debug("Signing the notary seal...");
         NotarySeal seal = new NotarySeal();
-        PrivateKey signingKey = notaryKey.signingKey;
         seal.attributes = attributes;
-        seal.selfSignature = generateDocumentSignature(attributes.toString(), signingKey);
-
-        logger.exit(seal);
+        seal.selfSignature = generateDocumentSignature(attributes.toString(), notaryKey);
         return seal;
     }
 
 
-    @Override
-    public void validateDocument(String document, NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
-        logger.entry(document, seal, certificate, errors);
-        int errorCount = errors.size();  // record it to see if it changes
+    private void validateDigest(byte[] digest, String algorithm, Map<String, Object> errors) {
+        if (digest == null || digest.length == 0) {
+            logger.error("The document digest is missing...");
+            errors.put("document.digest.is.missing", digest);
+        } else if (digest.length != DocumentHasher.DIGEST_LENGTH) {
+            logger.error("The document digest has the wrong length...");
+            errors.put("document.digest.length.is.invalid", digest.length);
+        }
+        DocumentHasher hasher = DocumentHasher.forAlgorithm(algorithm);
+        if (hasher == null || !hasher.getAlgorithm(hashingAlgorithm).equals(algorithm)) {
+            logger.error("The document hashing algorithm is not supported...");
+            errors.put("document.hashing.algorithm.is.not.supported", algorithm);
+        }
+    }
 
-        logger.debug("Validating the notary certificate...");
-        validateNotaryCertificate(certificate, errors);
 
-        logger.debug("Validating the digital seal...");
-        validateNotarySeal(seal, certificate, errors);
+    private void validateFieldsAlgorithm(NotarySeal seal, Map<String, Object> errors) {
+        String algorithm = seal.attributes.watermark.hashingAlgorithm;
+        if (!(hashingAlgorithm + FieldTree.FIELDS_MODE).equals(algorithm)) {
+            logger.error("The notary seal was not generated for the fields of a document...");
+            errors.put("document.hashing.algorithm.does.not.match", algorithm);
+        }
+    }
+
 
-        if (document == null || document.isEmpty()) {
-            logger.error("The document to be validated is missing...");
-            errors.put("document.is.missing", document);
+    /*
+     * The hash state in a seal only covers the whole blocks of the document, so the partial
+     * block that follows it is re-read from the document.  The resumed hasher is only trusted
+     * once it has been shown to produce the document hash in the seal.
+     */
+    private ResumableHasher resumeHasher(Path document, NotarySeal seal, Map<String, Object> errors) throws IOException {
+        Object state = seal.attributes == null || seal.attributes.watermark == null ? null : seal.attributes.get(HASH_STATE);
+        ResumableHasher hasher = state instanceof String ? ResumableHasher.fromState((String) state) : null;
+        Long documentLength = hasher == null ? null : getLength(seal, DOCUMENT_LENGTH);
+        if (hasher == null || documentLength == null
+                || !Long.valueOf(hasher.getLength()).equals(getLength(seal, HASHED_LENGTH))
+                || documentLength < hasher.getLength() || documentLength - hasher.getLength() >= 64
+                || !hashingAlgorithm.equals(seal.attributes.watermark.hashingAlgorithm)) {
+            logger.error("The hash state in the previous notary seal is invalid...");
+            errors.put("seal.hash.state.is.invalid", state);
+            return new ResumableHasher();
         }
-        if (errorCount == errors.size()) {
-            // no new errors, so parameters should be valid
-            logger.debug("Validating the hash of the document...");
-            String documentHash = seal.attributes.documentHash;
-            if (!documentHash.equals(hashDocument(document))) {
-                logger.error("The document hash does not match the hash in the notary seal...");
-                errors.put("document.hash.is.invalid", document);
+        if (Files.size(document) < documentLength) {
+            logger.error("The document is shorter than the length in the previous notary seal...");
+            errors.put("document.hash.is.invalid", document);
+            return new ResumableHasher();
+        }
+        hasher.update(document, documentLength);
+        if (!Base32Utils.encode(hasher.digest()).equals(seal.attributes.documentHash)) {
+            logger.error("The document does not match the hash in the previous notary seal...");
+            errors.put("document.hash.is.invalid", document);
+            return new ResumableHasher();
+        }
+        return hasher;
+    }
+
+
+    private Long getLength(NotarySeal seal, String name) {
+        Object length = seal.attributes.get(name);
+        return length instanceof Number ? ((Number) length).longValue() : null;  // parsed as an integer or long
+    }
+
+
+    private void validateCoSignedSeal(CoSignedSeal seal, Map<String, Object> errors) {
+        if (seal == null || seal.attributes == null) {
+            logger.error("The co-signed seal attributes are missing...");
+            errors.put("seal.attributes.are.missing", seal);
+            return;
+        }
+        CoSealAttributes attributes = seal.attributes;
+        if (attributes.documentType == null || attributes.documentType.isEmpty()) {
+            logger.error("The co-signed seal document type is missing...");
+            errors.put("seal.document.type.is.missing", seal);
+        }
+        if (attributes.documentHash == null || attributes.documentHash.isEmpty()) {
+            logger.error("The co-signed seal document hash is missing...");
+            errors.put("seal.document.hash.is.missing", seal);
+        }
+        if (attributes.watermark == null) {
+            logger.error("The co-signed seal watermark is missing...");
+            errors.put("seal.watermark.is.missing", seal);
+        }
+        List<DocumentCitation> citations = attributes.verificationCitations;
+        if (citations == null || citations.isEmpty() || citations.contains(null)) {
+            logger.error("The co-signed seal verification citations are missing...");
+            errors.put("seal.verification.citation.is.missing", seal);
+        } else if (hasDuplicateLocations(citations)) {
+            logger.error("The co-signed seal cites the same notary more than once...");
+            errors.put("seal.verification.citation.is.duplicated", seal);
+        } else if (attributes.threshold < 1 || attributes.threshold > citations.size()) {
+            logger.error("The co-signed seal threshold is not valid...");
+            errors.put("seal.signature.threshold.is.invalid", attributes.threshold);
+        } else if (seal.signatures == null || seal.signatures.size() != citations.size()) {
+            logger.error("The co-signed seal signatures do not match the citations...");
+            errors.put("seal.self.signature.is.missing", seal);
+        }
+    }
+
+
+    private boolean hasDuplicateLocations(List<DocumentCitation> citations) {
+        Set<URI> locations = new HashSet<>();
+        for (DocumentCitation citation : citations) {
+            if (!locations.add(citation.documentLocation)) return true;
+        }
+        return false;
+    }
+
+
+    /*
+     * The signatures are verified on the common fork-join pool.  Once the outcome is known the
+     * remaining verifications are cancelled.  Each valid verification yields the location of
+     * its signer so that a notary is only counted once no matter how many slots it fills.
+     */
+    private void validateCoSignatures(CoSignedSeal seal, List<NotaryCertificate> certificates, Map<String, Object> errors) {
+        List<DocumentCitation> citations = seal.attributes.verificationCitations;
+        int threshold = seal.attributes.threshold;
+        byte[] signedBytes = toBytes(seal.attributes.toString());
+        CompletionService<URI> verifications = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+        List<Future<URI>> pending = new ArrayList<>();
+        for (int i = 0; i < citations.size(); i++) {
+            DocumentCitation citation = citations.get(i);
+            String signature = seal.signatures.get(i);
+            NotaryCertificate certificate = findCertificate(certificates, citation);
+            if (signature != null && certificate != null) {
+                pending.add(verifications.submit(() -> isValidCoSignature(signedBytes, signature, citation, certificate)
+                        ? certificate.attributes.myLocation : null));
             }
         }
+        int remaining = pending.size();
+        Set<URI> signers = new HashSet<>();
+        try {
+            while (signers.size() < threshold && signers.size() + remaining >= threshold) {
+                URI signer = verifications.take().get();
+                if (signer != null) signers.add(signer);
+                remaining--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("An unexpected exception occurred while attempting to verify a co-signature.", e.getCause());
+        } finally {
+            for (Future<URI> verification : pending) {
+                verification.cancel(true);
+            }
+        }
+        if (signers.size() < threshold) {
+            logger.error("The co-signed seal does not have enough distinct valid signers...");
+            errors.put("seal.signature.threshold.is.not.met", signers.size());
+        }
+    }
 
-        logger.exit(errors);
+
+    private NotaryCertificate findCertificate(List<NotaryCertificate> certificates, DocumentCitation citation) {
+        for (NotaryCertificate certificate : certificates) {
+            if (certificate != null && certificate.attributes != null
+                    && citation.documentLocation.equals(certificate.attributes.myLocation)) {
+                return certificate;
+            }
+        }
+        return null;
     }
 
 
-    @Override
-    public void throwExceptionOnErrors(String messageTag, Map<String, Object> errors) throws ValidationException {
-        logger.entry(messageTag, errors);
-        if (!errors.isEmpty()) {
-            logger.error("A validation exception \"" + messageTag + "\" was thrown with the following errors: {}", errors);
-            throw new ValidationException(messageTag, errors);
+    private boolean isValidCoSignature(byte[] signedBytes, String signature, DocumentCitation citation, NotaryCertificate certificate) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        validateNotaryCertificate(certificate, errors);
+        if (errors.isEmpty()) {
+            validateDocumentCitation(citation, certificate.toString(), errors);
+            try {
+                validateDocumentSignature(signedBytes, signature, certificate.attributes.verificationKey, errors);
+            } catch (RuntimeException e) {
+                logger.error("The co-signature is not well formed...");
+                errors.put("document.signature.is.not.valid", signature);
+            }
+        }
+        if (errors.isEmpty() && revocationRegistry != null
+                && (revocationRegistry.isCertificateRevoked(certificate.attributes.myLocation) || revocationRegistry.isSealRevoked(signature))) {
+            logger.error("The co-signer certificate or signature has been revoked...");
+            errors.put("certificate.has.been.revoked", certificate.attributes.myLocation);
+        }
+        return errors.isEmpty();
+    }
+
+
+    private NotarySeal getCheckpointSeal(NotaryCertificate certificate, int level) {
+        List<NotarySeal> seals = certificate.checkpointSeals;
+        return seals == null || level > seals.size() ? null : seals.get(level - 1);
+    }
+
+
+    private DocumentHasher validateHashingAlgorithm(NotarySeal seal, Map<String, Object> errors) {
+        DocumentHasher hasher = null;
+        if (seal != null && seal.attributes != null && seal.attributes.watermark != null) {
+            String algorithm = seal.attributes.watermark.hashingAlgorithm;
+            hasher = DocumentHasher.forAlgorithm(algorithm);
+            if (hasher == null) {
+                logger.error("The notary seal hashing algorithm is not supported...");
+                errors.put("seal.hashing.algorithm.is.not.supported", algorithm);
+            }
+        }
+        return hasher;
+    }
+
+
+    private NotaryCertificate parseCertificate(LazyNotaryCertificate certificate, Map<String, Object> errors) {
+        if (certificate == null) {
+            logger.error("The notary certificate is missing...");
+            errors.put("certificate.is.missing", certificate);
+            return null;
+        }
+        try {
+            NotaryCertificate parsed = new NotaryCertificate();
+            parsed.attributes = certificate.getAttributes();
+            parsed.selfSignature = certificate.getSelfSignature();
+            return parsed;
+        } catch (IOException e) {
+            logger.error("The notary certificate attributes are not well formed...");
+            errors.put("certificate.attributes.are.invalid", e.getMessage());
+            return null;
+        }
+    }
+
+
+    private NotarySeal parseSeal(LazyNotarySeal seal, Map<String, Object> errors) {
+        if (seal == null) {
+            logger.error("The notary seal is missing...");
+            errors.put("seal.is.missing", seal);
+            return null;
+        }
+        try {
+            NotarySeal parsed = new NotarySeal();
+            parsed.attributes = seal.getAttributes();
+            parsed.selfSignature = seal.getSelfSignature();
+            return parsed;
+        } catch (IOException e) {
+            logger.error("The notary seal attributes are not well formed...");
+            errors.put("seal.attributes.are.invalid", e.getMessage());
+            return null;
+        }
+    }
+
+
+    /*
+     * The seal attributes are serialized once and the same bytes are used for both the cache
+     * key and the signature verification.
+     */
+    private void validateNotarization(NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        byte[] signedBytes = null;
+        String key = null;
+        if (verificationCache != null && seal != null && seal.attributes != null) {
+            signedBytes = toBytes(seal.attributes.toString());
+            key = SealVerificationCache.generateKey(seal, signedBytes, certificate);
+        }
+        if (verificationCache != null && verificationCache.isVerified(key)) {
+            logger.debug("The notary seal has already been verified against the certificate...");
+            validateRevocation(seal, certificate, errors);  // it may have been revoked since
+            return;
+        }
+        int errorCount = errors.size();  // record it to see if it changes
+        validateNotaryCertificate(certificate, errors);
+        validateNotarySeal(seal, signedBytes, certificate, null, errors);
+        if (verificationCache != null && errors.size() == errorCount) {
+            // only successful verifications are cached
+            verificationCache.addVerified(key, seal, certificate);
         }
-        logger.exit();
     }
 
 
@@ -376,6 +1586,15 @@ public final class V1NotarizationProvider implements Notarization {
 
 
     private void validateNotarySeal(NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        validateNotarySeal(seal, null, certificate, null, errors);
+    }
+
+
+    /*
+     * The signed bytes of the seal and the cited bytes of the certificate are the exact bytes
+     * that were received, or null if they must be regenerated by serializing the objects.
+     */
+    private void validateNotarySeal(NotarySeal seal, byte[] signedBytes, NotaryCertificate certificate, byte[] certificateBytes, Map<String, Object> errors) {
         if (seal == null) {
             logger.error("The notary seal is missing...");
             errors.put("seal.is.missing", seal);
@@ -415,10 +1634,32 @@ public final class V1NotarizationProvider implements Notarization {
             if (errors.size() == errorCount) {
                 // no new errors, so parameters should be valid
                 PublicKey verificationKey = certificate.attributes.verificationKey;
-                String document = seal.attributes.toString();
-                validateDocumentSignature(document, selfSignature, verificationKey, errors);
+                if (signedBytes == null) signedBytes = toBytes(seal.attributes.toString());
+                validateDocumentSignature(signedBytes, selfSignature, verificationKey, errors);
                 DocumentCitation verificationCitation = seal.attributes.verificationCitation;
-                validateDocumentCitation(verificationCitation, certificate.toString(), errors);
+                if (certificateBytes == null) {
+                    validateDocumentCitation(verificationCitation, certificate.toString(), errors);
+                } else if (!verificationCitation.documentHash.equals(hashDocument(certificateBytes))) {
+                    logger.error("The document citation hash does not match the document hash...");
+                    errors.put("citation.hash.is.invalid", verificationCitation);
+                    errors.put("cited.document.does.not.match", new String(certificateBytes, StandardCharsets.UTF_8));
+                }
+                validateRevocation(seal, certificate, errors);
+            }
+        }
+    }
+
+
+    private void validateRevocation(NotarySeal seal, NotaryCertificate certificate, Map<String, Object> errors) {
+        if (revocationRegistry != null) {
+            URI certificateLocation = certificate.attributes.myLocation;
+            if (revocationRegistry.isCertificateRevoked(certificateLocation)) {
+                logger.error("The notary certificate has been revoked...");
+                errors.put("certificate.has.been.revoked", certificateLocation);
+            }
+            if (revocationRegistry.isSealRevoked(seal.selfSignature)) {
+                logger.error("The notary seal has been revoked...");
+                errors.put("seal.has.been.revoked", seal);
             }
         }
     }
@@ -427,17 +1668,17 @@ public final class V1NotarizationProvider implements Notarization {
     private NotaryCertificate generateNotaryCertificate(URI baseUri, PublicKey publicKey, PrivateKey privateKey, Map<String, Object> additionalAttributes, Watermark watermark, NotaryKey previousKey) {
         CertificateAttributes attributes = new CertificateAttributes();
         try {
-            attributes.myLocation = new URI(baseUri + "/certificate/" + new Tag());
+            attributes.myLocation = locationGenerator.generateLocation(baseUri, "certificate");
             if (previousKey != null) {
                 // the identity already exists so use it
                 attributes.identityLocation = previousKey.verificationCertificate.attributes.identityLocation;
                 attributes.sequenceNumber = previousKey.verificationCertificate.attributes.sequenceNumber + 1;
             } else {
                 // this is a new identity
-                attributes.identityLocation = new URI(baseUri + "/identity/" + new Tag());
+                attributes.identityLocation = locationGenerator.generateLocation(baseUri, "identity");
                 attributes.sequenceNumber = 1;  // first one in the list
             }
-        } catch (URISyntaxException e) {
+        } catch (IllegalArgumentException e) {
             RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to create location URIs from base URI: " + baseUri, e);
             throw logger.throwing(exception);
         }
@@ -460,7 +1701,19 @@ public final class V1NotarizationProvider implements Notarization {
     }
 
 
-    private void validateNotaryCertificate(NotaryCertificate certificate, Map<String, Object> errors) {
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    void validateNotaryCertificate(NotaryCertificate certificate, Map<String, Object> errors) {
+        validateNotaryCertificate(certificate, (byte[]) null, errors);
+    }
+
+
+    /*
+     * The signed bytes are the exact bytes of the certificate attributes that were received,
+     * or null if they must be regenerated by serializing the attributes.
+     */
+    private void validateNotaryCertificate(NotaryCertificate certificate, byte[] signedBytes, Map<String, Object> errors) {
         if (certificate == null) {
             logger.error("The notary certificate is missing...");
             errors.put("certificate.is.missing", certificate);
@@ -490,10 +1743,10 @@ public final class V1NotarizationProvider implements Notarization {
             }
             if (errors.size() == errorCount) {
                 // the error count did not change so the parameters should be valid
-                String document = certificate.attributes.toString();
+                if (signedBytes == null) signedBytes = toBytes(certificate.attributes.toString());
                 String signature = certificate.selfSignature;
                 PublicKey verificationKey = certificate.attributes.verificationKey;
-                validateDocumentSignature(document, signature, verificationKey, errors);
+                validateDocumentSignature(signedBytes, signature, verificationKey, errors);
             }
 
             // We cannot valid the certification seal without the previous certificate
@@ -516,34 +1769,75 @@ public final class V1NotarizationProvider implements Notarization {
     }
 
 
-    private void validateDocumentSignature(String document, String signature, PublicKey verificationKey, Map<String, Object> errors) {
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    String generateDocumentSignature(String document, NotaryKey notaryKey) {
         try {
             byte[] documentBytes = document.getBytes("UTF-8");
-            byte[] signatureBytes = Base32Utils.decode(signature);
-            if (!cryptex.bytesAreValid(verificationKey, documentBytes, signatureBytes)) {
-                logger.error("The document signature is not valid...");
-                errors.put("document.is.not.valid", document);
-                errors.put("document.signature.is.not.valid", signature);
-                errors.put("document.verification.key.does.not.match", verificationKey);
-            }
-        } catch (UnsupportedEncodingException e) {
-            RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to validate the following document: " + document, e);
+            byte[] signatureBytes = signingBackend.signBytes(notaryKey, documentBytes);
+            String signature = Base32Utils.encode(signatureBytes);
+            return signature;
+        } catch (Exception e) {
+            RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to notarize the following document: " + document, e);
             throw logger.throwing(exception);
         }
     }
 
 
-    private String hashDocument(String document) {
-        try {
-            byte[] bytes = document.getBytes();
-            MessageDigest hasher = MessageDigest.getInstance("SHA-256");
-            byte[] hash = hasher.digest(bytes);
-            String hashString = Base32Utils.encode(hash);
-            return hashString;
-        } catch (NoSuchAlgorithmException e) {
-            RuntimeException exception = new RuntimeException("An unexpected exception occurred while attempting to hash the following document: " + document, e);
-            throw logger.throwing(exception);
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    void validateDocumentSignature(String document, String signature, PublicKey verificationKey, Map<String, Object> errors) {
+        validateDocumentSignature(toBytes(document), signature, verificationKey, errors);
+    }
+
+
+    private void validateDocumentSignature(byte[] documentBytes, String signature, PublicKey verificationKey, Map<String, Object> errors) {
+        byte[] signatureBytes = Base32Utils.decode(signature);
+        if (!cryptex.bytesAreValid(verificationKey, documentBytes, signatureBytes)) {
+            logger.error("The document signature is not valid...");
+            errors.put("document.is.not.valid", new String(documentBytes, StandardCharsets.UTF_8));
+            errors.put("document.signature.is.not.valid", signature);
+            errors.put("document.verification.key.does.not.match", verificationKey);
         }
     }
 
+
+    static private byte[] toBytes(String document) {
+        return document.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    private String hashDocument(String document) {
+        return hashDocument(document, sequentialHasher);
+    }
+
+
+    private String hashDocument(byte[] document) {
+        return Base32Utils.encode(sequentialHasher.hash(document));
+    }
+
+
+    /*
+     * This method is also used by the seal chain classes in this package.
+     */
+    String hashDocument(String document, DocumentHasher hasher) {
+        return hashDocument(document.getBytes(), hasher);
+    }
+
+
+    private String hashDocument(byte[] document, DocumentHasher hasher) {
+        byte[] hash = hasher.hash(document);
+        String hashString = Base32Utils.encode(hash);
+        return hashString;
+    }
+
+
+    private String hashDocument(Path document, DocumentHasher hasher) throws IOException {
+        byte[] hash = hasher.hash(document);
+        String hashString = Base32Utils.encode(hash);
+        return hashString;
+    }
+
 }
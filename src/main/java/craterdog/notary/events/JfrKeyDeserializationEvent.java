@@ -0,0 +1,73 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * This class defines the event that is recorded when a notary key is deserialized from an
+ * encrypted JSON string.
+ *
+ * @author Derk Norton
+ */
+@Name("craterdog.notary.KeyDeserialization")
+@Label("Key Deserialization")
+@Description("A notary key was deserialized.")
+final class JfrKeyDeserializationEvent extends JfrNotaryEvent implements KeyDeserializationEvent {
+
+    @Label("JSON Size")
+    @Description("The number of characters in the serialized notary key.")
+    @DataAmount
+    long jsonSize;
+
+    @Label("Unmarshalling Duration")
+    @Description("The time taken to unmarshal the notary key and decrypt the signing key.")
+    @Timespan
+    long unmarshallingDuration;
+
+    @Label("Validation Duration")
+    @Timespan
+    long validationDuration;
+
+
+    /**
+     * This method records the end of the unmarshalling phase.
+     *
+     * @param json The serialized notary key.
+     */
+    @Override
+    public void unmarshalled(String json) {
+        if (isEnabled()) {
+            this.unmarshallingDuration = endPhase();
+            if (json != null) this.jsonSize = json.length();
+        }
+    }
+
+
+    /**
+     * This method records the end of the validation phase.
+     *
+     * @param notaryKey The notary key that was deserialized.
+     */
+    @Override
+    public void validated(NotaryKey notaryKey) {
+        if (isEnabled()) {
+            this.validationDuration = endPhase();
+            setCertificate(notaryKey.verificationCertificate);
+        }
+    }
+
+}
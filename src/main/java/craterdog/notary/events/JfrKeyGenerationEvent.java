@@ -0,0 +1,64 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * This class defines the event that is recorded when a new notary key is generated.
+ *
+ * @author Derk Norton
+ */
+@Name("craterdog.notary.KeyGeneration")
+@Label("Key Generation")
+@Description("A new notary key was generated.")
+final class JfrKeyGenerationEvent extends JfrNotaryEvent implements KeyGenerationEvent {
+
+    @Label("Key Pair Duration")
+    @Description("The time taken to generate the key pair.")
+    @Timespan
+    long keyPairDuration;
+
+    @Label("Certification Duration")
+    @Description("The time taken to create, sign and cite the notary certificate.")
+    @Timespan
+    long certificationDuration;
+
+
+    /**
+     * This method records the end of the key pair generation phase.
+     */
+    @Override
+    public void keyPairGenerated() {
+        if (isEnabled()) {
+            this.keyPairDuration = endPhase();
+        }
+    }
+
+
+    /**
+     * This method records the end of the certification phase.
+     *
+     * @param certificate The new notary certificate.
+     */
+    @Override
+    public void certified(NotaryCertificate certificate) {
+        if (isEnabled()) {
+            this.certificationDuration = endPhase();
+            setCertificate(certificate);
+        }
+    }
+
+}
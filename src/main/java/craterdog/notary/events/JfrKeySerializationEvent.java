@@ -0,0 +1,57 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * This class defines the event that is recorded when a notary key is serialized into an
+ * encrypted JSON string.
+ *
+ * @author Derk Norton
+ */
+@Name("craterdog.notary.KeySerialization")
+@Label("Key Serialization")
+@Description("A notary key was serialized.")
+final class JfrKeySerializationEvent extends JfrNotaryEvent implements KeySerializationEvent {
+
+    @Label("JSON Size")
+    @Description("The number of characters in the serialized notary key.")
+    @DataAmount
+    long jsonSize;
+
+    @Label("Marshalling Duration")
+    @Description("The time taken to encrypt the signing key and marshal the notary key.")
+    @Timespan
+    long marshallingDuration;
+
+
+    /**
+     * This method records the end of the marshalling phase.
+     *
+     * @param notaryKey The notary key that was serialized.
+     * @param json The serialized notary key.
+     */
+    @Override
+    public void marshalled(NotaryKey notaryKey, String json) {
+        if (isEnabled()) {
+            this.marshallingDuration = endPhase();
+            this.jsonSize = json.length();
+            setCertificate(notaryKey.verificationCertificate);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * This class defines the event that is recorded when a document is notarized.
+ *
+ * @author Derk Norton
+ */
+@Name("craterdog.notary.Notarization")
+@Label("Notarization")
+@Description("A document was notarized.")
+final class JfrNotarizationEvent extends JfrNotaryEvent implements NotarizationEvent {
+
+    @Label("Document Type")
+    String documentType;
+
+    @Label("Document Size")
+    @Description("The size of the document, or zero if only its digest was notarized.")
+    @DataAmount
+    long documentSize;
+
+    @Label("Hashing Duration")
+    @Timespan
+    long hashingDuration;
+
+    @Label("Signing Duration")
+    @Timespan
+    long signingDuration;
+
+
+    /**
+     * This method records the end of the hashing phase.
+     *
+     * @param documentType The type of the document.
+     * @param documentSize The size of the document in bytes.
+     */
+    @Override
+    public void hashed(String documentType, long documentSize) {
+        if (isEnabled()) {
+            this.hashingDuration = endPhase();
+            this.documentType = documentType;
+            this.documentSize = documentSize;
+        }
+    }
+
+
+    /**
+     * This method records the end of the signing phase.
+     *
+     * @param notaryKey The notary key that signed the seal.
+     */
+    @Override
+    public void signed(NotaryKey notaryKey) {
+        if (isEnabled()) {
+            this.signingDuration = endPhase();
+            setCertificate(notaryKey.verificationCertificate);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.ValidationException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * This abstract class defines the fields and methods that are shared by the JDK Flight
+ * Recorder events emitted by the notarization providers.  All of the methods return
+ * immediately when the event is not enabled in the current recording, so an instrumented
+ * operation pays for little more than the allocation of the event, which the JIT compiler
+ * normally eliminates.  It is only loaded when the flight recorder is available.
+ *
+ * @author Derk Norton
+ */
+@Category("Digital Notary")
+@StackTrace(false)
+abstract class JfrNotaryEvent extends Event implements NotaryEvent {
+
+    @Label("Certificate Location")
+    @Description("The location of the notary certificate that was used.")
+    String certificateLocation;
+
+    @Label("Outcome")
+    @Description("The message tag of the first error that occurred, or success.")
+    String outcome;
+
+    private transient long phaseStart;
+
+
+    /**
+     * This method starts timing the event and its first phase.
+     */
+    @Override
+    public final void start() {
+        begin();
+        if (isEnabled()) phaseStart = System.nanoTime();
+    }
+
+
+    /**
+     * This method commits the event for an operation that succeeded.
+     */
+    @Override
+    public final void succeed() {
+        finish(SUCCESS);
+    }
+
+
+    /**
+     * This method commits the event for an operation that failed with an exception.  The
+     * outcome is the message tag of a validation exception or the name of any other exception.
+     *
+     * @param exception The exception that was thrown.
+     */
+    @Override
+    public final void fail(Throwable exception) {
+        if (shouldCommit()) {
+            finish(exception instanceof ValidationException ? exception.getMessage() : exception.getClass().getName());
+        }
+    }
+
+
+    /**
+     * This method commits the event for a validation.  The outcome is the first error that
+     * was added to the error map during the validation, if any.
+     *
+     * @param errors The error map for the validation.
+     * @param errorCount The number of errors in the map when the validation started.
+     */
+    @Override
+    public final void finish(Map<String, Object> errors, int errorCount) {
+        if (shouldCommit()) {
+            String result = SUCCESS;
+            if (errors.size() > errorCount) {
+                Iterator<String> keys = errors.keySet().iterator();
+                for (int i = 0; i < errorCount; i++) keys.next();
+                result = keys.next();
+            }
+            finish(result);
+        }
+    }
+
+
+    /*
+     * This method must only be called when the event is enabled.
+     */
+    final long endPhase() {
+        long now = System.nanoTime();
+        long duration = now - phaseStart;
+        phaseStart = now;
+        return duration;
+    }
+
+
+    /*
+     * This method must only be called when the event is enabled.
+     */
+    final void setCertificate(NotaryCertificate certificate) {
+        if (certificate != null && certificate.attributes != null) setCertificateLocation(certificate.attributes.myLocation);
+    }
+
+
+    /*
+     * This method must only be called when the event is enabled.
+     */
+    final void setCertificateLocation(URI location) {
+        if (location != null) certificateLocation = location.toString();
+    }
+
+
+    private void finish(String outcome) {
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+}
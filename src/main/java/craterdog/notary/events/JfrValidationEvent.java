@@ -0,0 +1,79 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotarySeal;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+
+/**
+ * This class defines the event that is recorded when a document is validated against its
+ * notary seal.
+ *
+ * @author Derk Norton
+ */
+@Name("craterdog.notary.Validation")
+@Label("Validation")
+@Description("A document was validated against its notary seal.")
+final class JfrValidationEvent extends JfrNotaryEvent implements ValidationEvent {
+
+    @Label("Document Type")
+    String documentType;
+
+    @Label("Document Size")
+    @Description("The size of the document, or zero if it was not hashed.")
+    @DataAmount
+    long documentSize;
+
+    @Label("Verification Duration")
+    @Description("The time taken to verify the certificate and seal signatures.")
+    @Timespan
+    long verificationDuration;
+
+    @Label("Hashing Duration")
+    @Timespan
+    long hashingDuration;
+
+
+    /**
+     * This method records the end of the signature verification phase.
+     *
+     * @param seal The notary seal that was verified.
+     * @param certificate The notary certificate that was used to verify it.
+     */
+    @Override
+    public void verified(NotarySeal seal, NotaryCertificate certificate) {
+        if (isEnabled()) {
+            this.verificationDuration = endPhase();
+            if (seal != null && seal.attributes != null) this.documentType = seal.attributes.documentType;
+            setCertificate(certificate);
+        }
+    }
+
+
+    /**
+     * This method records the end of the document hashing phase.
+     *
+     * @param documentSize The size of the document in bytes.
+     */
+    @Override
+    public void hashed(long documentSize) {
+        if (isEnabled()) {
+            this.hashingDuration = endPhase();
+            this.documentSize = documentSize;
+        }
+    }
+
+}
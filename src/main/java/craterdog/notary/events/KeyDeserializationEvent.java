@@ -0,0 +1,37 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+
+
+/**
+ * This interface defines the event that is recorded when a notary key is deserialized from
+ * an encrypted JSON string.
+ *
+ * @author Derk Norton
+ */
+public interface KeyDeserializationEvent extends NotaryEvent {
+
+    /**
+     * This method records the end of the unmarshalling phase.
+     *
+     * @param json The serialized notary key.
+     */
+    void unmarshalled(String json);
+
+    /**
+     * This method records the end of the validation phase.
+     *
+     * @param notaryKey The notary key that was deserialized.
+     */
+    void validated(NotaryKey notaryKey);
+
+}
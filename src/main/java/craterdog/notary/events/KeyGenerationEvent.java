@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+
+
+/**
+ * This interface defines the event that is recorded when a new notary key is generated.
+ *
+ * @author Derk Norton
+ */
+public interface KeyGenerationEvent extends NotaryEvent {
+
+    /**
+     * This method records the end of the key pair generation phase.
+     */
+    void keyPairGenerated();
+
+    /**
+     * This method records the end of the certification phase.
+     *
+     * @param certificate The new notary certificate.
+     */
+    void certified(NotaryCertificate certificate);
+
+}
@@ -0,0 +1,90 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import java.util.Map;
+
+
+/**
+ * This class implements every notary event as a stateless no-op.  It is used in place of the
+ * flight recorder events on runtimes that do not include the JDK Flight Recorder, so a single
+ * shared instance suffices.
+ *
+ * @author Derk Norton
+ */
+final class NoOpNotaryEvent implements NotarizationEvent, ValidationEvent, KeyGenerationEvent,
+        KeySerializationEvent, KeyDeserializationEvent {
+
+    static final NoOpNotaryEvent INSTANCE = new NoOpNotaryEvent();
+
+    private NoOpNotaryEvent() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void succeed() {
+    }
+
+    @Override
+    public void fail(Throwable exception) {
+    }
+
+    @Override
+    public void finish(Map<String, Object> errors, int errorCount) {
+    }
+
+    @Override
+    public void hashed(String documentType, long documentSize) {
+    }
+
+    @Override
+    public void signed(NotaryKey notaryKey) {
+    }
+
+    @Override
+    public void verified(NotarySeal seal, NotaryCertificate certificate) {
+    }
+
+    @Override
+    public void hashed(long documentSize) {
+    }
+
+    @Override
+    public void keyPairGenerated() {
+    }
+
+    @Override
+    public void certified(NotaryCertificate certificate) {
+    }
+
+    @Override
+    public void marshalled(NotaryKey notaryKey, String json) {
+    }
+
+    @Override
+    public void unmarshalled(String json) {
+    }
+
+    @Override
+    public void validated(NotaryKey notaryKey) {
+    }
+
+}
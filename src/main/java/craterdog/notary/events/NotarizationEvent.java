@@ -0,0 +1,37 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+
+
+/**
+ * This interface defines the event that is recorded when a document is notarized.
+ *
+ * @author Derk Norton
+ */
+public interface NotarizationEvent extends NotaryEvent {
+
+    /**
+     * This method records the end of the hashing phase.
+     *
+     * @param documentType The type of the document.
+     * @param documentSize The size of the document in bytes.
+     */
+    void hashed(String documentType, long documentSize);
+
+    /**
+     * This method records the end of the signing phase.
+     *
+     * @param notaryKey The notary key that signed the seal.
+     */
+    void signed(NotaryKey notaryKey);
+
+}
@@ -0,0 +1,66 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import java.util.Map;
+
+
+/**
+ * This interface defines the methods that are shared by the events emitted by the
+ * notarization providers.  Each event is started before an operation begins and records the
+ * duration of each phase of the operation as it completes.  The events are created by the
+ * <code>NotaryEvents</code> factory and are recorded by the JDK Flight Recorder when it is
+ * available.
+ *
+ * @author Derk Norton
+ */
+public interface NotaryEvent {
+
+    /**
+     * The outcome of a successful operation.
+     */
+    static public final String SUCCESS = "success";
+
+    /**
+     * This method returns whether or not the event will be recorded, so that any costly
+     * values passed to it need only be computed when they will be used.
+     *
+     * @return Whether or not the event is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * This method starts timing the event and its first phase.
+     */
+    void start();
+
+    /**
+     * This method commits the event for an operation that succeeded.
+     */
+    void succeed();
+
+    /**
+     * This method commits the event for an operation that failed with an exception.  The
+     * outcome is the message tag of a validation exception or the name of any other exception.
+     *
+     * @param exception The exception that was thrown.
+     */
+    void fail(Throwable exception);
+
+    /**
+     * This method commits the event for a validation.  The outcome is the first error that
+     * was added to the error map during the validation, if any.
+     *
+     * @param errors The error map for the validation.
+     * @param errorCount The number of errors in the map when the validation started.
+     */
+    void finish(Map<String, Object> errors, int errorCount);
+
+}
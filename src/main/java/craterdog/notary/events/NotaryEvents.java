@@ -0,0 +1,112 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class creates the events emitted by the notarization providers.  It checks once
+ * whether the JDK Flight Recorder is available.  If it is, each method returns a new flight
+ * recorder event; otherwise it returns a shared no-op event so that the providers still run
+ * on Java 8 runtimes that do not include the flight recorder.  The flight recorder event
+ * classes are only loaded when they are used.
+ *
+ * @author Derk Norton
+ */
+public final class NotaryEvents {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(NotaryEvents.class);
+
+    static private final boolean FLIGHT_RECORDER_AVAILABLE = checkFlightRecorder();
+
+
+    private NotaryEvents() {
+    }
+
+
+    /**
+     * This method returns whether or not the notary events are emitted to the JDK Flight
+     * Recorder.
+     *
+     * @return Whether or not the flight recorder is available.
+     */
+    static public boolean isFlightRecorderAvailable() {
+        return FLIGHT_RECORDER_AVAILABLE;
+    }
+
+
+    /**
+     * This method creates an event for the notarization of a document.
+     *
+     * @return A new notarization event.
+     */
+    static public NotarizationEvent notarization() {
+        if (FLIGHT_RECORDER_AVAILABLE) return new JfrNotarizationEvent();
+        return NoOpNotaryEvent.INSTANCE;
+    }
+
+
+    /**
+     * This method creates an event for the validation of a document.
+     *
+     * @return A new validation event.
+     */
+    static public ValidationEvent validation() {
+        if (FLIGHT_RECORDER_AVAILABLE) return new JfrValidationEvent();
+        return NoOpNotaryEvent.INSTANCE;
+    }
+
+
+    /**
+     * This method creates an event for the generation of a notary key.
+     *
+     * @return A new key generation event.
+     */
+    static public KeyGenerationEvent keyGeneration() {
+        if (FLIGHT_RECORDER_AVAILABLE) return new JfrKeyGenerationEvent();
+        return NoOpNotaryEvent.INSTANCE;
+    }
+
+
+    /**
+     * This method creates an event for the serialization of a notary key.
+     *
+     * @return A new key serialization event.
+     */
+    static public KeySerializationEvent keySerialization() {
+        if (FLIGHT_RECORDER_AVAILABLE) return new JfrKeySerializationEvent();
+        return NoOpNotaryEvent.INSTANCE;
+    }
+
+
+    /**
+     * This method creates an event for the deserialization of a notary key.
+     *
+     * @return A new key deserialization event.
+     */
+    static public KeyDeserializationEvent keyDeserialization() {
+        if (FLIGHT_RECORDER_AVAILABLE) return new JfrKeyDeserializationEvent();
+        return NoOpNotaryEvent.INSTANCE;
+    }
+
+
+    static private boolean checkFlightRecorder() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, NotaryEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            logger.info("The JDK Flight Recorder is not available so no notary events will be recorded.");
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotarySeal;
+
+
+/**
+ * This interface defines the event that is recorded when a document is validated against
+ * its notary seal.
+ *
+ * @author Derk Norton
+ */
+public interface ValidationEvent extends NotaryEvent {
+
+    /**
+     * This method records the end of the signature verification phase.
+     *
+     * @param seal The notary seal that was verified.
+     * @param certificate The notary certificate that was used to verify it.
+     */
+    void verified(NotarySeal seal, NotaryCertificate certificate);
+
+    /**
+     * This method records the end of the document hashing phase.
+     *
+     * @param documentSize The size of the document in bytes.
+     */
+    void hashed(long documentSize);
+
+}
@@ -0,0 +1,270 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.index;
+
+import craterdog.notary.DocumentHasher;
+import craterdog.utils.Base32Utils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * This class implements an off-heap hash index from the document hashes of notary seals to
+ * references to the seals (e.g. the offsets of the seals in an NDJSON file).  The index is an
+ * open addressing hash table with linear probing that is stored in a memory mapped file, so it
+ * can hold far more entries than would fit in the heap, and it can be reopened after a restart
+ * without being rebuilt.  Since document hashes are uniformly distributed the first eight
+ * bytes of each hash are used directly to choose its slot.
+ * <p>
+ * The capacity of the index is fixed when its file is created, so it should be sized for the
+ * expected number of seals.  Entries are added by a single writer at a time while any number of
+ * threads perform lookups without locking.  A lookup allocates nothing and sees every entry
+ * whose addition completed before the lookup started.  An entry that is being added during a
+ * lookup may or may not be found.
+ *
+ * @author Derk Norton
+ */
+public final class SealIndex implements Closeable {
+
+    static private final long MAGIC = 0x5345414C49445831L;  // "SEALIDX1"
+    static private final int HEADER_SIZE = 64;
+    static private final int MAGIC_OFFSET = 0;
+    static private final int CAPACITY_OFFSET = 8;
+    static private final int SIZE_OFFSET = 16;
+    static private final int SLOT_SIZE = DocumentHasher.DIGEST_LENGTH + 8;  // hash followed by reference
+    static private final int SEGMENT_SHIFT = 24;  // sixteen million slots per memory mapping
+    static private final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    static private final int MINIMUM_CAPACITY = 1024;
+    static private final double MAXIMUM_LOAD = 0.75;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+    private volatile long size;  // written only by the writer, read first by every lookup
+
+
+    /**
+     * This constructor opens the index stored in the specified file.  If the file does not
+     * exist it is created with enough capacity for the expected number of entries.
+     *
+     * @param file The path to the index file.
+     * @param expectedEntries The expected number of entries, used only when creating the file.
+     * @throws IOException The index file could not be opened or is not valid.
+     */
+    public SealIndex(Path file, long expectedEntries) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean isNew = channel.size() == 0;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (isNew) {
+                long required = (long) Math.ceil(expectedEntries / MAXIMUM_LOAD);
+                this.capacity = Math.max(MINIMUM_CAPACITY, Long.highestOneBit(Math.max(1, required - 1)) << 1);
+                header.putLong(CAPACITY_OFFSET, capacity);
+                header.putLong(SIZE_OFFSET, 0);
+                header.putLong(MAGIC_OFFSET, MAGIC);
+            } else {
+                if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                    throw new IOException("The file does not contain a seal index: " + file);
+                }
+                this.capacity = header.getLong(CAPACITY_OFFSET);
+            }
+            if (Long.bitCount(capacity) != 1 || channel.size() > HEADER_SIZE + capacity * SLOT_SIZE) {
+                throw new IOException("The seal index file is corrupted: " + file);
+            }
+            this.mask = capacity - 1;
+            this.size = header.getLong(SIZE_OFFSET);
+            int count = (int) ((capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long slots = Math.min(SEGMENT_MASK + 1, capacity - ((long) i << SEGMENT_SHIFT));
+                long offset = HEADER_SIZE + ((long) i << SEGMENT_SHIFT) * SLOT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, slots * SLOT_SIZE);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * This method returns the reference associated with the specified document hash.
+     *
+     * @param documentHash The 32 byte document hash.
+     * @return The reference to the seal, or -1 if the document hash is not in the index.
+     */
+    public long get(byte[] documentHash) {
+        checkHash(documentHash);
+        if (size == 0) return -1;  // the volatile read makes all completed additions visible
+        long first = readLong(documentHash, 0);
+        long second = readLong(documentHash, 8);
+        long third = readLong(documentHash, 16);
+        long fourth = readLong(documentHash, 24);
+        long slot = first & mask;
+        while (true) {
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int offset = (int) (slot & SEGMENT_MASK) * SLOT_SIZE;
+            long reference = segment.getLong(offset + DocumentHasher.DIGEST_LENGTH);
+            if (reference == 0) return -1;  // an empty slot ends the probe sequence
+            if (segment.getLong(offset) == first && segment.getLong(offset + 8) == second
+                    && segment.getLong(offset + 16) == third && segment.getLong(offset + 24) == fourth) {
+                return reference - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+
+    /**
+     * This method returns the reference associated with the specified base 32 encoded
+     * document hash (e.g. from the attributes of a notary seal).
+     *
+     * @param documentHash The base 32 encoded document hash.
+     * @return The reference to the seal, or -1 if the document hash is not in the index.
+     */
+    public long get(String documentHash) {
+        return get(Base32Utils.decode(documentHash));
+    }
+
+
+    /**
+     * This method returns whether or not the specified document hash is in the index.
+     *
+     * @param documentHash The 32 byte document hash.
+     * @return Whether or not the document hash has been indexed.
+     */
+    public boolean contains(byte[] documentHash) {
+        return get(documentHash) >= 0;
+    }
+
+
+    /**
+     * This method associates a reference with the specified document hash, replacing any
+     * existing reference for the document hash.
+     *
+     * @param documentHash The 32 byte document hash.
+     * @param reference The non-negative reference to the seal.
+     * @return The previous reference for the document hash, or -1 if there was none.
+     * @throws IllegalStateException The index has reached its maximum load.
+     */
+    public synchronized long put(byte[] documentHash, long reference) {
+        checkHash(documentHash);
+        if (reference < 0 || reference == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("The reference must be a non-negative long: " + reference);
+        }
+        long first = readLong(documentHash, 0);
+        long slot = first & mask;
+        while (true) {
+            MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int offset = (int) (slot & SEGMENT_MASK) * SLOT_SIZE;
+            long existing = segment.getLong(offset + DocumentHasher.DIGEST_LENGTH);
+            if (existing == 0) {
+                if (size >= capacity * MAXIMUM_LOAD) {
+                    throw new IllegalStateException("The seal index is full: " + size + " entries");
+                }
+                // the hash must be written before the reference that marks the slot as occupied
+                for (int i = 0; i < DocumentHasher.DIGEST_LENGTH; i += 8) {
+                    segment.putLong(offset + i, readLong(documentHash, i));
+                }
+                segment.putLong(offset + DocumentHasher.DIGEST_LENGTH, reference + 1);
+                header.putLong(SIZE_OFFSET, size + 1);
+                size = size + 1;  // the volatile write publishes the new entry
+                return -1;
+            }
+            if (segment.getLong(offset) == first && segment.getLong(offset + 8) == readLong(documentHash, 8)
+                    && segment.getLong(offset + 16) == readLong(documentHash, 16)
+                    && segment.getLong(offset + 24) == readLong(documentHash, 24)) {
+                segment.putLong(offset + DocumentHasher.DIGEST_LENGTH, reference + 1);
+                return existing - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+
+    /**
+     * This method associates a reference with the specified base 32 encoded document hash.
+     *
+     * @param documentHash The base 32 encoded document hash.
+     * @param reference The non-negative reference to the seal.
+     * @return The previous reference for the document hash, or -1 if there was none.
+     */
+    public long put(String documentHash, long reference) {
+        return put(Base32Utils.decode(documentHash), reference);
+    }
+
+
+    /**
+     * This method returns the number of document hashes in the index.
+     *
+     * @return The number of entries.
+     */
+    public long size() {
+        return size;
+    }
+
+
+    /**
+     * This method returns the number of slots in the index.  At most three quarters of the
+     * slots can be used.
+     *
+     * @return The capacity of the index.
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+
+    /**
+     * This method forces all changes to the index to be written to the storage device.
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+
+    /**
+     * This method flushes the index and closes its file.  The memory mappings are released
+     * when they are garbage collected.
+     *
+     * @throws IOException The file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+
+    static private void checkHash(byte[] documentHash) {
+        if (documentHash == null || documentHash.length != DocumentHasher.DIGEST_LENGTH) {
+            throw new IllegalArgumentException("The document hash must be " + DocumentHasher.DIGEST_LENGTH + " bytes long.");
+        }
+    }
+
+
+    static private long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+}
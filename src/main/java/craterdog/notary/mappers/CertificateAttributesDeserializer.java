@@ -0,0 +1,54 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.CertificateAttributes;
+import craterdog.notary.Watermark;
+import java.io.IOException;
+import java.security.PublicKey;
+
+/**
+ * This class handles the unmarshaling of a set of notary certificate attributes field by field.
+ *
+ * @author Derk Norton
+ */
+public class CertificateAttributesDeserializer extends NotaryObjectDeserializer<CertificateAttributes> {
+
+    @Override
+    CertificateAttributes createObject() {
+        return new CertificateAttributes();
+    }
+
+    @Override
+    void deserializeField(CertificateAttributes attributes, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "myLocation":
+                attributes.myLocation = readUri(p);
+                break;
+            case "identityLocation":
+                attributes.identityLocation = readUri(p);
+                break;
+            case "sequenceNumber":
+                attributes.sequenceNumber = p.getValueAsInt();
+                break;
+            case "verificationKey":
+                attributes.verificationKey = readObject(p, ctxt, PublicKey.class);
+                break;
+            case "watermark":
+                attributes.watermark = readObject(p, ctxt, Watermark.class);
+                break;
+            default:
+                attributes.put(name, readObject(p, ctxt, Object.class));
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.CertificateAttributes;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a set of notary certificate attributes field by field.
+ *
+ * @author Derk Norton
+ */
+public class CertificateAttributesSerializer extends NotaryObjectSerializer<CertificateAttributes> {
+
+    @Override
+    void serializeFields(CertificateAttributes attributes, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeUri(generator, "myLocation", attributes.myLocation);
+        writeUri(generator, "identityLocation", attributes.identityLocation);
+        generator.writeNumberField("sequenceNumber", attributes.sequenceNumber);
+        writeObject(generator, provider, "verificationKey", attributes.verificationKey);
+        writeObject(generator, provider, "watermark", attributes.watermark);
+        writeAdditional(generator, provider, attributes.any());
+    }
+
+}
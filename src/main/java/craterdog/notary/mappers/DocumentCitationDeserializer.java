@@ -0,0 +1,43 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.DocumentCitation;
+import java.io.IOException;
+
+/**
+ * This class handles the unmarshaling of a document citation field by field.
+ *
+ * @author Derk Norton
+ */
+public class DocumentCitationDeserializer extends NotaryObjectDeserializer<DocumentCitation> {
+
+    @Override
+    DocumentCitation createObject() {
+        return new DocumentCitation();
+    }
+
+    @Override
+    void deserializeField(DocumentCitation citation, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "documentLocation":
+                citation.documentLocation = readUri(p);
+                break;
+            case "documentHash":
+                citation.documentHash = readString(p);
+                break;
+            default:
+                p.skipChildren();  // unknown fields are ignored
+        }
+    }
+
+}
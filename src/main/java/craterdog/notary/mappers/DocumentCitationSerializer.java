@@ -0,0 +1,30 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.DocumentCitation;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a document citation field by field.
+ *
+ * @author Derk Norton
+ */
+public class DocumentCitationSerializer extends NotaryObjectSerializer<DocumentCitation> {
+
+    @Override
+    void serializeFields(DocumentCitation citation, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeUri(generator, "documentLocation", citation.documentLocation);
+        writeString(generator, "documentHash", citation.documentHash);
+    }
+
+}
@@ -0,0 +1,355 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import craterdog.notary.DocumentCitation;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotarySeal;
+import craterdog.smart.SmartObject;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * This class reads and writes newline delimited JSON (NDJSON) files containing one notary
+ * record (e.g. a <code>NotarySeal</code>) per line.  The records are streamed through the
+ * Jackson parser and generator one at a time so the memory used is independent of the number
+ * of records.  A file can also be read as a parallel stream that is split on line boundaries,
+ * which can be fed directly into a bulk validation:
+ * <pre>
+ * try (Stream&lt;NotarySeal&gt; seals = NdjsonCodec.forSeals().stream(path, true)) {
+ *     seals.forEach(seal -&gt; ...);
+ * }
+ * </pre>
+ *
+ * @author Derk Norton
+ * @param <T> The type of record in the file.
+ */
+public final class NdjsonCodec<T> {
+
+    static private final ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+
+    static private final int BLOCK_SIZE = 64 * 1024;
+    static private final byte NEWLINE = '\n';
+
+    private final Class<T> type;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+
+    /**
+     * This constructor creates a codec for the specified type of record.
+     *
+     * @param type The type of record.
+     */
+    public NdjsonCodec(Class<T> type) {
+        this.type = type;
+        this.reader = mapper.readerFor(type);
+        this.writer = mapper.writerFor(type).without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+
+    /**
+     * This method returns a codec for notary seals.
+     *
+     * @return A codec for notary seals.
+     */
+    static public NdjsonCodec<NotarySeal> forSeals() {
+        return new NdjsonCodec<>(NotarySeal.class);
+    }
+
+
+    /**
+     * This method returns a codec for notary certificates.
+     *
+     * @return A codec for notary certificates.
+     */
+    static public NdjsonCodec<NotaryCertificate> forCertificates() {
+        return new NdjsonCodec<>(NotaryCertificate.class);
+    }
+
+
+    /**
+     * This method returns a codec for document citations.
+     *
+     * @return A codec for document citations.
+     */
+    static public NdjsonCodec<DocumentCitation> forCitations() {
+        return new NdjsonCodec<>(DocumentCitation.class);
+    }
+
+
+    /**
+     * This method returns the type of record handled by this codec.
+     *
+     * @return The type of record.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+
+    /**
+     * This method creates a writer that writes records to the specified output stream, one
+     * record per line.  Closing the writer closes the output stream.
+     *
+     * @param output The output stream.
+     * @return A new record writer.
+     * @throws IOException The writer could not be created.
+     */
+    public RecordWriter createWriter(OutputStream output) throws IOException {
+        return new RecordWriter(mapper.getFactory().createGenerator(output));
+    }
+
+
+    /**
+     * This method returns an iterator that parses the records from the specified input
+     * stream one at a time.
+     *
+     * @param input The input stream.
+     * @return An iterator over the records.
+     * @throws IOException The input stream could not be read.
+     */
+    public Iterator<T> read(InputStream input) throws IOException {
+        return reader.readValues(input);
+    }
+
+
+    /**
+     * This method parses a single record from the specified line.
+     *
+     * @param line The JSON encoded record.
+     * @return The parsed record.
+     * @throws IOException The line could not be parsed.
+     */
+    public T parse(String line) throws IOException {
+        return reader.readValue(line);
+    }
+
+
+    /**
+     * This method returns a stream of the records in the specified file.  A parallel stream
+     * splits the file into byte ranges on line boundaries and parses each range independently.
+     * The stream must be closed to release the file.
+     *
+     * @param file The path to the file.
+     * @param parallel Whether or not the stream should be parallel.
+     * @return A stream of the records in the file.
+     * @throws IOException The file could not be opened.
+     */
+    public Stream<T> stream(Path file, boolean parallel) throws IOException {
+        return stream(file, parallel, null);
+    }
+
+
+    /**
+     * This method returns a stream of the records in the specified file.  Any line that cannot
+     * be parsed is passed to the specified handler and skipped rather than ending the stream.
+     * The handler may be called concurrently for a parallel stream.  The stream must be closed
+     * to release the file.
+     *
+     * @param file The path to the file.
+     * @param parallel Whether or not the stream should be parallel.
+     * @param malformed The handler for lines that cannot be parsed, or null if they should end
+     * the stream with an exception.
+     * @return A stream of the records in the file.
+     * @throws IOException The file could not be opened.
+     */
+    public Stream<T> stream(Path file, boolean parallel, Consumer<JsonProcessingException> malformed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        LineSpliterator spliterator = new LineSpliterator(channel, 0, channel.size(), malformed);
+        return StreamSupport.stream(spliterator, parallel).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+
+    /**
+     * This class writes records to an output stream using a single JSON generator.
+     */
+    public final class RecordWriter implements Closeable, Flushable {
+
+        private final JsonGenerator generator;
+
+        private RecordWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.generator.setRootValueSeparator(null);
+        }
+
+        /**
+         * This method writes the specified record on its own line.
+         *
+         * @param record The record to be written.
+         * @throws IOException The record could not be written.
+         */
+        public void write(T record) throws IOException {
+            writer.writeValue(generator, record);
+            generator.writeRaw((char) NEWLINE);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+
+    }
+
+
+    /*
+     * This class splits a range of bytes in a file into lines and parses each line as a record.
+     * Splitting always happens just after a newline so that no record is split across ranges.
+     */
+    private final class LineSpliterator implements Spliterator<T> {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+        private final Consumer<JsonProcessingException> malformed;
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+        private byte[] line = new byte[1024];
+
+        LineSpliterator(FileChannel channel, long start, long end, Consumer<JsonProcessingException> malformed) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+            this.malformed = malformed;
+            this.block.limit(0);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (true) {
+                    int length = readLine();
+                    if (length < 0) return false;
+                    if (isBlank(length)) continue;
+                    T record;
+                    try {
+                        record = reader.readValue(line, 0, length);
+                    } catch (JsonProcessingException e) {
+                        if (malformed == null) throw e;
+                        malformed.accept(e);
+                        continue;
+                    }
+                    action.accept(record);
+                    return true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long start = position - block.remaining();
+            long middle = start + (end - start) / 2;
+            if (end - start < 2 * BLOCK_SIZE) return null;
+            try {
+                long split = nextLineStart(middle);
+                if (split >= end) return null;
+                LineSpliterator prefix = new LineSpliterator(channel, start, split, malformed);
+                position = split;
+                block.limit(0);
+                return prefix;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position + block.remaining();
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private int readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (!block.hasRemaining() && !fillBlock()) {
+                    return length == 0 ? -1 : length;
+                }
+                byte next = block.get();
+                if (next == NEWLINE) return length;
+                if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                line[length++] = next;
+            }
+        }
+
+        private boolean fillBlock() throws IOException {
+            if (position >= end) return false;
+            block.clear();
+            block.limit((int) Math.min(BLOCK_SIZE, end - position));
+            while (block.hasRemaining()) {
+                int count = channel.read(block, position + block.position());
+                if (count < 0) break;
+            }
+            block.flip();
+            position += block.limit();
+            return block.hasRemaining();
+        }
+
+        private long nextLineStart(long offset) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            while (offset < end) {
+                buffer.clear();
+                int count = channel.read(buffer, offset);
+                if (count <= 0) break;
+                for (int i = 0; i < count; i++) {
+                    if (buffer.get(i) == NEWLINE) return offset + i + 1;
+                }
+                offset += count;
+            }
+            return end;
+        }
+
+        private boolean isBlank(int length) {
+            for (int i = 0; i < length; i++) {
+                byte next = line[i];
+                if (next != ' ' && next != '\t' && next != '\r') return false;
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.CertificateAttributes;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotarySeal;
+import java.io.IOException;
+
+/**
+ * This class handles the unmarshaling of a notary certificate field by field.
+ *
+ * @author Derk Norton
+ */
+public class NotaryCertificateDeserializer extends NotaryObjectDeserializer<NotaryCertificate> {
+
+    @Override
+    NotaryCertificate createObject() {
+        return new NotaryCertificate();
+    }
+
+    @Override
+    void deserializeField(NotaryCertificate certificate, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "attributes":
+                certificate.attributes = readObject(p, ctxt, CertificateAttributes.class);
+                break;
+            case "selfSignature":
+                certificate.selfSignature = readString(p);
+                break;
+            case "certificationSeal":
+                certificate.certificationSeal = readObject(p, ctxt, NotarySeal.class);
+                break;
+            case "checkpointSeals":
+                certificate.checkpointSeals = readList(p, ctxt, NotarySeal.class);
+                break;
+            default:
+                p.skipChildren();  // unknown fields are ignored
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.NotaryCertificate;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a notary certificate field by field.
+ *
+ * @author Derk Norton
+ */
+public class NotaryCertificateSerializer extends NotaryObjectSerializer<NotaryCertificate> {
+
+    @Override
+    void serializeFields(NotaryCertificate certificate, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeObject(generator, provider, "attributes", certificate.attributes);
+        writeString(generator, "selfSignature", certificate.selfSignature);
+        writeObject(generator, provider, "certificationSeal", certificate.certificationSeal);
+        writeObject(generator, provider, "checkpointSeals", certificate.checkpointSeals);
+    }
+
+}
@@ -10,12 +10,19 @@
 package craterdog.notary.mappers;
 
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import craterdog.notary.CertificateAttributes;
+import craterdog.notary.DocumentCitation;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.SealAttributes;
+import craterdog.notary.Watermark;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 
 /**
  * This class is a Jackson module that can be added to an object mapper to handle the serialization
- * of a notary keys.  The private signing key is password protected.
+ * of a notary keys.  The private signing key is password protected.  The module also marshals
+ * the notary types field by field without using reflection.
  *
  * @author Derk Norton
  */
@@ -32,6 +39,7 @@ public class NotaryModule extends SimpleModule {
         addDeserializer(PublicKey.class, new PublicKeyDeserializer());
         addSerializer(PrivateKey.class, new PrivateKeySerializer());
         addDeserializer(PrivateKey.class, new PrivateKeyDeserializer());
+        addNotaryTypes();
     }
 
 
@@ -46,6 +54,28 @@ public class NotaryModule extends SimpleModule {
         addDeserializer(PublicKey.class, new PublicKeyDeserializer());
         addSerializer(PrivateKey.class, new PrivateKeySerializer(password));
         addDeserializer(PrivateKey.class, new PrivateKeyDeserializer(password));
+        addNotaryTypes();
+    }
+
+
+    /*
+     * The notary types are marshaled field by field rather than through bean introspection.
+     * The output is identical to that of the bean serializers so existing signatures remain
+     * valid.
+     */
+    private void addNotaryTypes() {
+        addSerializer(NotarySeal.class, new NotarySealSerializer());
+        addDeserializer(NotarySeal.class, new NotarySealDeserializer());
+        addSerializer(NotaryCertificate.class, new NotaryCertificateSerializer());
+        addDeserializer(NotaryCertificate.class, new NotaryCertificateDeserializer());
+        addSerializer(SealAttributes.class, new SealAttributesSerializer());
+        addDeserializer(SealAttributes.class, new SealAttributesDeserializer());
+        addSerializer(CertificateAttributes.class, new CertificateAttributesSerializer());
+        addDeserializer(CertificateAttributes.class, new CertificateAttributesDeserializer());
+        addSerializer(Watermark.class, new WatermarkSerializer());
+        addDeserializer(Watermark.class, new WatermarkDeserializer());
+        addSerializer(DocumentCitation.class, new DocumentCitationSerializer());
+        addDeserializer(DocumentCitation.class, new DocumentCitationDeserializer());
     }
 
 }
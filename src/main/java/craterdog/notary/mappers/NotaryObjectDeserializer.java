@@ -0,0 +1,71 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * This abstract class handles the unmarshaling of a notary object field by field without
+ * using reflection.
+ *
+ * @author Derk Norton
+ * @param <T> The type of notary object.
+ */
+abstract class NotaryObjectDeserializer<T> extends JsonDeserializer<T> {
+
+    @Override
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) token = p.nextToken();
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            throw ctxt.mappingException("Expected a JSON object but found: " + token);
+        }
+        T object = createObject();
+        while (token == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            deserializeField(object, name, p, ctxt);
+            token = p.nextToken();
+        }
+        return object;
+    }
+
+    abstract T createObject();
+
+    /*
+     * The parser is positioned on the value of the field.  Unknown fields must be skipped.
+     */
+    abstract void deserializeField(T object, String name, JsonParser p, DeserializationContext ctxt) throws IOException;
+
+    static String readString(JsonParser p) throws IOException {
+        return p.getCurrentToken() == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+    }
+
+    static URI readUri(JsonParser p) throws IOException {
+        String value = readString(p);
+        return value == null ? null : URI.create(value);
+    }
+
+    static <V> V readObject(JsonParser p, DeserializationContext ctxt, Class<V> type) throws IOException {
+        return p.getCurrentToken() == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, type);
+    }
+
+    static <V> List<V> readList(JsonParser p, DeserializationContext ctxt, Class<V> type) throws IOException {
+        if (p.getCurrentToken() == JsonToken.VALUE_NULL) return null;
+        return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(List.class, type));
+    }
+
+}
@@ -0,0 +1,58 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * This abstract class handles the marshaling of a notary object field by field without using
+ * reflection.  Null fields are omitted and the fields are written in the order in which they
+ * are declared, followed by any additional attributes, so the output is identical to that of
+ * the default bean serializer.
+ *
+ * @author Derk Norton
+ * @param <T> The type of notary object.
+ */
+abstract class NotaryObjectSerializer<T> extends JsonSerializer<T> {
+
+    @Override
+    public void serialize(T object, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        serializeFields(object, generator, provider);
+        generator.writeEndObject();
+    }
+
+    abstract void serializeFields(T object, JsonGenerator generator, SerializerProvider provider) throws IOException;
+
+    static void writeString(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) generator.writeStringField(name, value);
+    }
+
+    static void writeUri(JsonGenerator generator, String name, URI value) throws IOException {
+        if (value != null) generator.writeStringField(name, value.toString());
+    }
+
+    static void writeObject(JsonGenerator generator, SerializerProvider provider, String name, Object value) throws IOException {
+        if (value != null) provider.defaultSerializeField(name, value, generator);
+    }
+
+    static void writeAdditional(JsonGenerator generator, SerializerProvider provider, Map<String, Object> additional) throws IOException {
+        // like the bean serializers, null additional attributes are written
+        for (Map.Entry<String, Object> attribute : additional.entrySet()) {
+            provider.defaultSerializeField(attribute.getKey(), attribute.getValue(), generator);
+        }
+    }
+
+}
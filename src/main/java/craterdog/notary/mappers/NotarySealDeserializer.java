@@ -0,0 +1,44 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.SealAttributes;
+import java.io.IOException;
+
+/**
+ * This class handles the unmarshaling of a notary seal field by field.
+ *
+ * @author Derk Norton
+ */
+public class NotarySealDeserializer extends NotaryObjectDeserializer<NotarySeal> {
+
+    @Override
+    NotarySeal createObject() {
+        return new NotarySeal();
+    }
+
+    @Override
+    void deserializeField(NotarySeal seal, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "attributes":
+                seal.attributes = readObject(p, ctxt, SealAttributes.class);
+                break;
+            case "selfSignature":
+                seal.selfSignature = readString(p);
+                break;
+            default:
+                p.skipChildren();  // unknown fields are ignored
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.NotarySeal;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a notary seal field by field.
+ *
+ * @author Derk Norton
+ */
+public class NotarySealSerializer extends NotaryObjectSerializer<NotarySeal> {
+
+    @Override
+    void serializeFields(NotarySeal seal, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeObject(generator, provider, "attributes", seal.attributes);
+        writeString(generator, "selfSignature", seal.selfSignature);
+    }
+
+}
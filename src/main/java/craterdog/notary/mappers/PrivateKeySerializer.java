@@ -13,8 +13,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.CryptoContext;
 import craterdog.security.MessageCryptex;
-import craterdog.security.RsaAesMessageCryptex;
 import java.io.IOException;
 import java.security.PrivateKey;
 
@@ -26,7 +26,7 @@ import java.security.PrivateKey;
  */
 public class PrivateKeySerializer extends JsonSerializer<PrivateKey> {
 
-    static private final MessageCryptex cryptex = new RsaAesMessageCryptex();
+    static private final MessageCryptex cryptex = CryptoContext.getCryptex();
 
     private final char[] password;
 
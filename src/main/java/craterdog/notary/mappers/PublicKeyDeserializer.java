@@ -13,8 +13,8 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import craterdog.notary.CryptoContext;
 import craterdog.security.MessageCryptex;
-import craterdog.security.RsaAesMessageCryptex;
 import java.io.IOException;
 import java.security.PublicKey;
 
@@ -25,7 +25,7 @@ import java.security.PublicKey;
  */
 public class PublicKeyDeserializer extends JsonDeserializer<PublicKey> {
 
-    static private final MessageCryptex cryptex = new RsaAesMessageCryptex();
+    static private final MessageCryptex cryptex = CryptoContext.getCryptex();
 
     @Override
     public PublicKey deserialize(JsonParser p, DeserializationContext ctxt)
@@ -13,8 +13,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.CryptoContext;
 import craterdog.security.MessageCryptex;
-import craterdog.security.RsaAesMessageCryptex;
 import java.io.IOException;
 import java.security.PublicKey;
 
@@ -25,7 +25,7 @@ import java.security.PublicKey;
  */
 public class PublicKeySerializer extends JsonSerializer<PublicKey> {
 
-    static private final MessageCryptex cryptex = new RsaAesMessageCryptex();
+    static private final MessageCryptex cryptex = CryptoContext.getCryptex();
 
     @Override
     public void serialize(PublicKey publicKey, JsonGenerator generator, SerializerProvider provider)
@@ -0,0 +1,54 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.DocumentCitation;
+import craterdog.notary.SealAttributes;
+import craterdog.notary.Watermark;
+import java.io.IOException;
+
+/**
+ * This class handles the unmarshaling of a set of notary seal attributes field by field.
+ *
+ * @author Derk Norton
+ */
+public class SealAttributesDeserializer extends NotaryObjectDeserializer<SealAttributes> {
+
+    @Override
+    SealAttributes createObject() {
+        return new SealAttributes();
+    }
+
+    @Override
+    void deserializeField(SealAttributes attributes, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "documentType":
+                attributes.documentType = readString(p);
+                break;
+            case "documentHash":
+                attributes.documentHash = readString(p);
+                break;
+            case "watermark":
+                attributes.watermark = readObject(p, ctxt, Watermark.class);
+                break;
+            case "verificationCitation":
+                attributes.verificationCitation = readObject(p, ctxt, DocumentCitation.class);
+                break;
+            case "previousSealHash":
+                attributes.previousSealHash = readString(p);
+                break;
+            default:
+                attributes.put(name, readObject(p, ctxt, Object.class));
+        }
+    }
+
+}
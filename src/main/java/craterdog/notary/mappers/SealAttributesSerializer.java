@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.SealAttributes;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a set of notary seal attributes field by field.
+ *
+ * @author Derk Norton
+ */
+public class SealAttributesSerializer extends NotaryObjectSerializer<SealAttributes> {
+
+    @Override
+    void serializeFields(SealAttributes attributes, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeString(generator, "documentType", attributes.documentType);
+        writeString(generator, "documentHash", attributes.documentHash);
+        writeObject(generator, provider, "watermark", attributes.watermark);
+        writeObject(generator, provider, "verificationCitation", attributes.verificationCitation);
+        writeString(generator, "previousSealHash", attributes.previousSealHash);
+        writeAdditional(generator, provider, attributes.additional());
+    }
+
+}
@@ -0,0 +1,56 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import craterdog.notary.Watermark;
+import java.io.IOException;
+import org.joda.time.DateTime;
+
+/**
+ * This class handles the unmarshaling of a watermark field by field.
+ *
+ * @author Derk Norton
+ */
+public class WatermarkDeserializer extends NotaryObjectDeserializer<Watermark> {
+
+    @Override
+    Watermark createObject() {
+        return new Watermark();
+    }
+
+    @Override
+    void deserializeField(Watermark watermark, String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (name) {
+            case "hashingAlgorithm":
+                watermark.hashingAlgorithm = readString(p);
+                break;
+            case "signingAlgorithm":
+                watermark.signingAlgorithm = readString(p);
+                break;
+            case "majorVersion":
+                watermark.majorVersion = p.getValueAsInt();
+                break;
+            case "minorVersion":
+                watermark.minorVersion = p.getValueAsInt();
+                break;
+            case "creationTimestamp":
+                watermark.creationTimestamp = readObject(p, ctxt, DateTime.class);
+                break;
+            case "expirationTimestamp":
+                watermark.expirationTimestamp = readObject(p, ctxt, DateTime.class);
+                break;
+            default:
+                p.skipChildren();  // unknown fields are ignored
+        }
+    }
+
+}
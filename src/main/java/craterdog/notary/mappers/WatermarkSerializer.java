@@ -0,0 +1,34 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.notary.Watermark;
+import java.io.IOException;
+
+/**
+ * This class handles the marshaling of a watermark field by field.
+ *
+ * @author Derk Norton
+ */
+public class WatermarkSerializer extends NotaryObjectSerializer<Watermark> {
+
+    @Override
+    void serializeFields(Watermark watermark, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeString(generator, "hashingAlgorithm", watermark.hashingAlgorithm);
+        writeString(generator, "signingAlgorithm", watermark.signingAlgorithm);
+        generator.writeNumberField("majorVersion", watermark.majorVersion);
+        generator.writeNumberField("minorVersion", watermark.minorVersion);
+        writeObject(generator, provider, "creationTimestamp", watermark.creationTimestamp);
+        writeObject(generator, provider, "expirationTimestamp", watermark.expirationTimestamp);
+    }
+
+}
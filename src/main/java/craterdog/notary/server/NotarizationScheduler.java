@@ -0,0 +1,324 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import craterdog.notary.Notarization;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class schedules notarization requests onto a pool of signing threads that is sized to
+ * the number of available cores, keeping interactive requests responsive while bulk requests
+ * (e.g. backfills) are running.  Each priority has its own bounded queue.  When both queues
+ * have work the signing threads take up to the interactive weight of interactive requests for
+ * each bulk request, so bulk work is slowed down but never starved.
+ * <p>
+ * Every request carries a deadline.  A request is rejected with a
+ * <code>RejectedNotarizationException</code> when its queue is full, when the estimated wait
+ * for the requests ahead of it would already take it past its deadline, or when its deadline
+ * has passed by the time a signing thread takes it.  The estimate is based on moving averages
+ * of the signing time.  The queue depths, average waits and rejection counts are exposed as
+ * gauges for monitoring.
+ *
+ * @author Derk Norton
+ */
+public final class NotarizationScheduler implements AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(NotarizationScheduler.class);
+
+    static private final double SMOOTHING = 0.1;  // the weight of each new sample in a moving average
+
+    static private final long MAXIMUM_TIMEOUT_NANOS = Long.MAX_VALUE / 4;  // keeps the deadline arithmetic from overflowing
+
+    /**
+     * This enumeration defines the priorities of notarization requests.
+     */
+    public enum Priority {
+        /**
+         * For requests that a user or a latency sensitive service is waiting on.
+         */
+        INTERACTIVE,
+        /**
+         * For background requests (e.g. backfills) that only care about throughput.
+         */
+        BULK
+    }
+
+    private final Notarization notary;
+    private final NotaryKey notaryKey;
+    private final int interactiveWeight;
+    private final Lane interactive;
+    private final Lane bulk;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Thread[] signers;
+    private int interactiveStreak;  // guarded by the lock
+    private volatile boolean running = true;
+    private volatile double averageSigningNanos;
+
+
+    /**
+     * This constructor creates a new scheduler that signs documents using the specified notary
+     * key on a signing pool that is sized to the number of available cores.
+     *
+     * @param notary The notarization provider used to sign the documents.
+     * @param notaryKey The notary key used to sign the documents.
+     * @param interactiveCapacity The maximum number of queued interactive requests.
+     * @param bulkCapacity The maximum number of queued bulk requests.
+     * @param interactiveWeight The number of interactive requests that are taken for each bulk
+     * request when both kinds are waiting.
+     */
+    public NotarizationScheduler(Notarization notary, NotaryKey notaryKey, int interactiveCapacity, int bulkCapacity, int interactiveWeight) {
+        if (interactiveCapacity < 1 || bulkCapacity < 1 || interactiveWeight < 1) {
+            throw new IllegalArgumentException("The queue capacities and interactive weight must be positive.");
+        }
+        this.notary = notary;
+        this.notaryKey = notaryKey;
+        this.interactiveWeight = interactiveWeight;
+        this.interactive = new Lane(Priority.INTERACTIVE, interactiveCapacity);
+        this.bulk = new Lane(Priority.BULK, bulkCapacity);
+        this.signers = new Thread[Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < signers.length; i++) {
+            signers[i] = new Thread(this::signRequests, "notarization-scheduler-" + i);
+            signers[i].setDaemon(true);
+            signers[i].start();
+        }
+    }
+
+
+    /**
+     * This method queues a document for notarization.  The returned future completes
+     * exceptionally with a <code>RejectedNotarizationException</code> if the request is
+     * rejected.
+     *
+     * @param priority The priority of the request.
+     * @param documentType The type of document being notarized.
+     * @param document The document to be notarized.
+     * @param timeoutMillis The number of milliseconds within which the seal is needed.
+     * @return A future that will complete with the notary seal for the document.
+     */
+    public CompletableFuture<NotarySeal> notarizeDocument(Priority priority, String documentType, String document, long timeoutMillis) {
+        Lane lane = laneFor(priority);
+        long now = System.nanoTime();
+        long timeout = Math.max(0, Math.min(TimeUnit.MILLISECONDS.toNanos(timeoutMillis), MAXIMUM_TIMEOUT_NANOS));
+        Request request = new Request(documentType, document, now, now + timeout);
+        lock.lock();
+        try {
+            if (!running) {
+                reject(lane, request, "notarization.scheduler.is.closed");
+            } else if (lane.queue.size() >= lane.capacity) {
+                reject(lane, request, "notarization.queue.is.full");
+            } else if (now + Math.min(estimateWaitNanos(lane), MAXIMUM_TIMEOUT_NANOS) - request.deadline > 0) {  // nano times may wrap
+                reject(lane, request, "notarization.deadline.cannot.be.met");
+            } else {
+                lane.queue.add(request);
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return request.seal;
+    }
+
+
+    /**
+     * This method returns the number of requests with the specified priority that are waiting
+     * for a signing thread.
+     *
+     * @param priority The priority of the requests.
+     * @return The number of queued requests.
+     */
+    public int getQueueDepth(Priority priority) {
+        Lane lane = laneFor(priority);
+        lock.lock();
+        try {
+            return lane.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * This method returns a moving average of the time that requests with the specified
+     * priority waited in their queue before being signed.
+     *
+     * @param priority The priority of the requests.
+     * @return The average wait in milliseconds.
+     */
+    public double getAverageWaitMillis(Priority priority) {
+        return laneFor(priority).averageWaitNanos / 1e6;
+    }
+
+
+    /**
+     * This method returns the number of requests with the specified priority that have been
+     * rejected.
+     *
+     * @param priority The priority of the requests.
+     * @return The number of rejected requests.
+     */
+    public long getRejectionCount(Priority priority) {
+        return laneFor(priority).rejections.get();
+    }
+
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            for (Lane lane : new Lane[] { interactive, bulk }) {
+                Request request;
+                while ((request = lane.queue.poll()) != null) {
+                    reject(lane, request, "notarization.scheduler.is.closed");
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    private Lane laneFor(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : bulk;
+    }
+
+
+    /*
+     * The requests ahead of a new interactive request are the other interactive requests plus
+     * the bulk requests that will be interleaved with them, and a new bulk request may have to
+     * wait for every queued request.  This method must be called while holding the lock.
+     */
+    private long estimateWaitNanos(Lane lane) {
+        int ahead;
+        if (lane == interactive) {
+            ahead = interactive.queue.size() + Math.min(bulk.queue.size(), interactive.queue.size() / interactiveWeight);
+        } else {
+            ahead = interactive.queue.size() + bulk.queue.size();
+        }
+        return (long) (averageSigningNanos * (ahead / signers.length + 1));
+    }
+
+
+    private void reject(Lane lane, Request request, String messageTag) {
+        lane.rejections.incrementAndGet();
+        logger.debug("Rejecting a {} notarization request: {}", lane.priority, messageTag);
+        request.seal.completeExceptionally(new RejectedNotarizationException(messageTag, lane.priority));
+    }
+
+
+    /*
+     * This method must be called while holding the lock.  It implements the weighted fair
+     * choice between the two queues.
+     */
+    private Lane nextLane() {
+        boolean interactiveWaiting = !interactive.queue.isEmpty();
+        boolean bulkWaiting = !bulk.queue.isEmpty();
+        if (interactiveWaiting && (!bulkWaiting || interactiveStreak < interactiveWeight)) {
+            interactiveStreak++;
+            return interactive;
+        }
+        if (bulkWaiting) {
+            interactiveStreak = 0;
+            return bulk;
+        }
+        return null;
+    }
+
+
+    private void signRequests() {
+        while (true) {
+            Lane lane;
+            Request request;
+            lock.lock();
+            try {
+                while ((lane = nextLane()) == null) {
+                    if (!running) return;
+                    available.awaitUninterruptibly();
+                }
+                request = lane.queue.poll();
+            } finally {
+                lock.unlock();
+            }
+            long start = System.nanoTime();
+            lane.recordWait(start - request.arrival);
+            if (start - request.deadline > 0) {  // nano times may wrap
+                reject(lane, request, "notarization.deadline.has.passed");
+                continue;
+            }
+            try {
+                request.seal.complete(notary.notarizeDocument(request.documentType, request.document, notaryKey));
+            } catch (Throwable e) {
+                // any failure (e.g. an error from a signing backend) must not kill the signing thread
+                request.seal.completeExceptionally(e);
+            }
+            long elapsed = System.nanoTime() - start;
+            double average = averageSigningNanos;
+            averageSigningNanos = average == 0.0 ? elapsed : average + SMOOTHING * (elapsed - average);
+        }
+    }
+
+
+    /*
+     * This class captures the queue and gauges for a single priority.
+     */
+    static private final class Lane {
+
+        final Priority priority;
+        final int capacity;
+        final ArrayDeque<Request> queue = new ArrayDeque<>();  // guarded by the lock
+        final AtomicLong rejections = new AtomicLong();
+        volatile double averageWaitNanos;
+
+        Lane(Priority priority, int capacity) {
+            this.priority = priority;
+            this.capacity = capacity;
+        }
+
+        synchronized void recordWait(long waitNanos) {
+            double average = averageWaitNanos;
+            averageWaitNanos = average == 0.0 ? waitNanos : average + SMOOTHING * (waitNanos - average);
+        }
+
+    }
+
+
+    /*
+     * This class captures a pending notarization request.
+     */
+    static private final class Request {
+
+        final String documentType;
+        final String document;
+        final long arrival;
+        final long deadline;
+        final CompletableFuture<NotarySeal> seal = new CompletableFuture<>();
+
+        Request(String documentType, String document, long arrival, long deadline) {
+            this.documentType = documentType;
+            this.document = document;
+            this.arrival = arrival;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
@@ -0,0 +1,364 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import craterdog.notary.Notarization;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import craterdog.notary.ValidationException;
+import craterdog.notary.mappers.NotaryModule;
+import craterdog.smart.SmartObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements an embedded HTTP service for a digital notary using the HTTP server
+ * that ships with the JDK.  It exposes the following endpoints:
+ * <ul>
+ * <li><code>POST /notarize?documentType=...</code> - notarizes the request body and returns
+ * the notary seal.</li>
+ * <li><code>POST /validate</code> - validates a JSON request containing a <code>document</code>,
+ * its <code>seal</code> and optionally the <code>certificate</code> of the notary that signed
+ * it.  Seals are only validated against the certificate of this notary, so any other
+ * certificate is refused.  The response names the location of the certificate that was
+ * used.</li>
+ * <li><code>GET /certificate</code> - returns the certificate of this notary.</li>
+ * </ul>
+ * Notarization requests are grouped into micro-batches by a <code>SealBatcher</code> and signed
+ * in parallel.  The request handlers block while waiting for their seals so on JDK 21 or later
+ * a virtual thread per task executor should be passed in as the handler executor.  Request
+ * bodies larger than a megabyte are refused, as are notarizations that cannot be signed
+ * within thirty seconds.
+ *
+ * @author Derk Norton
+ */
+public final class NotaryServer implements AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(NotaryServer.class);
+
+    static private final ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+
+    static private final int MAXIMUM_BODY_SIZE = 1024 * 1024;
+
+    static private final long NOTARIZATION_TIMEOUT_SECONDS = 30;
+
+    private final Notarization notary;
+    private final NotaryKey notaryKey;
+    private final SealBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService ownedExecutor;
+
+
+    /**
+     * This constructor creates a new notary service that handles requests using a cached pool
+     * of handler threads.
+     *
+     * @param address The address on which the service listens.
+     * @param notary The notarization provider.
+     * @param notaryKey The notary key used to sign documents.
+     * @param maximumBatchSize The maximum number of notarization requests in a batch.
+     * @param maximumDelayMillis The maximum number of milliseconds that a notarization request
+     * waits for its batch to fill.
+     * @throws IOException The service could not bind to the address.
+     */
+    public NotaryServer(InetSocketAddress address, Notarization notary, NotaryKey notaryKey,
+            int maximumBatchSize, long maximumDelayMillis) throws IOException {
+        this(address, notary, notaryKey, maximumBatchSize, maximumDelayMillis, null);
+    }
+
+
+    /**
+     * This constructor creates a new notary service that handles requests using the specified
+     * executor.
+     *
+     * @param address The address on which the service listens.
+     * @param notary The notarization provider.
+     * @param notaryKey The notary key used to sign documents.
+     * @param maximumBatchSize The maximum number of notarization requests in a batch.
+     * @param maximumDelayMillis The maximum number of milliseconds that a notarization request
+     * waits for its batch to fill.
+     * @param executor The executor used to run the request handlers, or null for a cached
+     * thread pool.
+     * @throws IOException The service could not bind to the address.
+     */
+    public NotaryServer(InetSocketAddress address, Notarization notary, NotaryKey notaryKey,
+            int maximumBatchSize, long maximumDelayMillis, Executor executor) throws IOException {
+        this.notary = notary;
+        this.notaryKey = notaryKey;
+        this.batcher = new SealBatcher(notary, notaryKey, maximumBatchSize, maximumDelayMillis);
+        this.ownedExecutor = executor == null ? Executors.newCachedThreadPool() : null;
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor == null ? ownedExecutor : executor);
+        this.server.createContext("/notarize", new NotarizeHandler());
+        this.server.createContext("/validate", new ValidateHandler());
+        this.server.createContext("/certificate", new CertificateHandler());
+    }
+
+
+    /**
+     * This method starts the service listening for requests.
+     */
+    public void start() {
+        logger.info("Starting the notary service on {}...", server.getAddress());
+        server.start();
+    }
+
+
+    /**
+     * This method returns the address on which the service is listening.
+     *
+     * @return The address of the service.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+
+    @Override
+    public void close() {
+        logger.info("Stopping the notary service on {}...", server.getAddress());
+        server.stop(0);
+        batcher.close();
+        if (ownedExecutor != null) ownedExecutor.shutdown();
+    }
+
+
+    /**
+     * This method starts a notary service using a newly generated notary key.  The arguments
+     * are the port number and base URI of the identity registry.
+     *
+     * @param args The command line arguments.
+     * @throws Exception The service could not be started.
+     */
+    static public void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        URI baseUri = new URI(args.length > 1 ? args[1] : "http://localhost/IdentityRegistry");
+        Notarization notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryServer server = new NotaryServer(new InetSocketAddress(port), notary, notaryKey, 64, 2);
+        server.start();
+    }
+
+
+    static private void sendResponse(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = (body instanceof String ? (String) body : mapper.writeValueAsString(body)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+
+    static private String readBody(HttpExchange exchange) throws IOException, RequestException {
+        try (InputStream input = exchange.getRequestBody()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+                if (output.size() + count > MAXIMUM_BODY_SIZE) {
+                    throw new RequestException(413, "request.body.is.too.large");
+                }
+                output.write(buffer, 0, count);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+
+    static private String queryParameter(HttpExchange exchange, String name) throws UnsupportedEncodingException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            if (index > 0 && pair.substring(0, index).equals(name)) {
+                return URLDecoder.decode(pair.substring(index + 1), "UTF-8");
+            }
+        }
+        return null;
+    }
+
+
+    static private Map<String, Object> errorBody(String messageTag, Map<String, Object> errors) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("messageTag", messageTag);
+        if (errors != null) body.put("errors", errors);
+        return body;
+    }
+
+
+    /*
+     * This exception class captures a request that must be refused with a specific HTTP status.
+     */
+    static private final class RequestException extends Exception {
+
+        final int status;
+
+        RequestException(int status, String messageTag) {
+            super(messageTag);
+            this.status = status;
+        }
+
+    }
+
+
+    /*
+     * This abstract class handles the method checking and error reporting that is common to
+     * all endpoints.
+     */
+    private abstract class NotaryHandler implements HttpHandler {
+
+        private final String method;
+
+        NotaryHandler(String method) {
+            this.method = method;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    sendResponse(exchange, 405, errorBody("method.is.not.allowed", null));
+                } else {
+                    handleRequest(exchange);
+                }
+            } catch (RequestException e) {
+                sendResponse(exchange, e.status, errorBody(e.getMessage(), null));
+            } catch (JsonProcessingException e) {
+                sendResponse(exchange, 400, errorBody("request.body.is.malformed", null));
+            } catch (RejectedNotarizationException e) {
+                sendResponse(exchange, 503, errorBody(e.getMessage(), null));
+            } catch (ValidationException e) {
+                sendResponse(exchange, 422, errorBody(e.getMessage(), e.errors));
+            } catch (Exception e) {
+                logger.error("An unexpected exception occurred while handling a notary request.", e);
+                sendResponse(exchange, 500, errorBody("unexpected.server.error", null));
+            } finally {
+                exchange.close();
+            }
+        }
+
+        abstract void handleRequest(HttpExchange exchange) throws Exception;
+
+    }
+
+
+    private final class NotarizeHandler extends NotaryHandler {
+
+        NotarizeHandler() {
+            super("POST");
+        }
+
+        @Override
+        void handleRequest(HttpExchange exchange) throws Exception {
+            String documentType = queryParameter(exchange, "documentType");
+            String document = readBody(exchange);
+            Map<String, Object> errors = new LinkedHashMap<>();
+            if (documentType == null || documentType.isEmpty()) {
+                errors.put("document.type.is.missing", documentType);
+            }
+            if (document.isEmpty()) {
+                errors.put("document.is.missing", document);
+            }
+            notary.throwExceptionOnErrors("invalid.notarization.request", errors);
+            CompletableFuture<NotarySeal> future = batcher.notarizeDocument(documentType, document);
+            try {
+                NotarySeal seal = future.get(NOTARIZATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                sendResponse(exchange, 200, seal.toString());
+            } catch (TimeoutException e) {
+                future.cancel(false);
+                throw new RequestException(503, "notarization.request.timed.out");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ValidationException) throw (ValidationException) e.getCause();
+                if (e.getCause() instanceof RejectedNotarizationException) throw (RejectedNotarizationException) e.getCause();
+                throw e;
+            }
+        }
+
+    }
+
+
+    private final class ValidateHandler extends NotaryHandler {
+
+        ValidateHandler() {
+            super("POST");
+        }
+
+        @Override
+        void handleRequest(HttpExchange exchange) throws Exception {
+            JsonNode request = mapper.readTree(readBody(exchange));
+            if (request == null || !request.isObject()) {
+                throw new RequestException(400, "request.body.is.malformed");
+            }
+            Map<String, Object> errors = new LinkedHashMap<>();
+            JsonNode document = request.get("document");
+            JsonNode seal = request.get("seal");
+            JsonNode certificate = request.get("certificate");
+            NotaryCertificate trusted = notaryKey.verificationCertificate;
+            if (certificate != null && !trusted.equals(mapper.treeToValue(certificate, NotaryCertificate.class))) {
+                // a caller supplied certificate would let any self-signed key pass as valid
+                throw new RequestException(403, "certificate.is.not.trusted");
+            }
+            notary.validateDocument(
+                    document == null ? null : document.asText(),
+                    seal == null ? null : mapper.treeToValue(seal, NotarySeal.class),
+                    trusted,
+                    errors);
+            notary.throwExceptionOnErrors("invalid.notary.seal", errors);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("valid", true);
+            response.put("certificate", trusted.attributes.myLocation.toString());
+            sendResponse(exchange, 200, response);
+        }
+
+    }
+
+
+    private final class CertificateHandler extends NotaryHandler {
+
+        CertificateHandler() {
+            super("GET");
+        }
+
+        @Override
+        void handleRequest(HttpExchange exchange) throws Exception {
+            sendResponse(exchange, 200, notaryKey.verificationCertificate.toString());
+        }
+
+    }
+
+}
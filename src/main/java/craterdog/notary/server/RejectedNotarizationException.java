@@ -0,0 +1,54 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import org.joda.time.DateTime;
+
+
+/**
+ * This exception class captures the reason that a notarization scheduler or seal batcher
+ * refused to notarize a document.  The message is a message resource tag, one of:
+ * <ul>
+ * <li><code>notarization.queue.is.full</code></li>
+ * <li><code>notarization.deadline.cannot.be.met</code></li>
+ * <li><code>notarization.deadline.has.passed</code></li>
+ * <li><code>notarization.scheduler.is.closed</code></li>
+ * </ul>
+ * A rejected request was never signed so it is always safe to retry it later.
+ *
+ * @author Derk Norton
+ */
+public class RejectedNotarizationException extends RuntimeException {
+
+    /**
+     * A timestamp of when the exception occurred.
+     */
+    public final DateTime timestamp;
+
+    /**
+     * The priority of the rejected request, or null if the request was not prioritized.
+     */
+    public final NotarizationScheduler.Priority priority;
+
+
+    /**
+     * This constructor captures the message resource tag for the rejection along with the
+     * priority of the rejected request.
+     *
+     * @param messageTag The message resource tag for the rejection.
+     * @param priority The priority of the rejected request.
+     */
+    public RejectedNotarizationException(String messageTag, NotarizationScheduler.Priority priority) {
+        super(messageTag);
+        this.timestamp = DateTime.now();
+        this.priority = priority;
+    }
+
+}
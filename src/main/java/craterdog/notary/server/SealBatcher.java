@@ -0,0 +1,218 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import craterdog.notary.Notarization;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class groups incoming notarization requests into micro-batches and signs each batch in
+ * parallel on a pool of signing threads.  A batch is dispatched as soon as it is full or the
+ * oldest request in it has waited for the maximum batching delay, whichever comes first.  The
+ * batch is split into one slice per signing thread so that each slice is a single task.
+ * Requests that arrive while the queue is full complete exceptionally with a
+ * <code>RejectedNotarizationException</code>.
+ *
+ * @author Derk Norton
+ */
+public final class SealBatcher implements AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(SealBatcher.class);
+
+    static private final int DEFAULT_QUEUE_DEPTH = 4096;
+
+    private final Notarization notary;
+    private final NotaryKey notaryKey;
+    private final int maximumBatchSize;
+    private final long maximumDelayNanos;
+    private final BlockingQueue<Request> requests;
+    private final int signingThreads;
+    private final ExecutorService signingPool;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+
+    /**
+     * This constructor creates a new batcher that signs documents using the specified notary
+     * key on a signing pool that is sized to the number of available cores.
+     *
+     * @param notary The notarization provider used to sign the documents.
+     * @param notaryKey The notary key used to sign the documents.
+     * @param maximumBatchSize The maximum number of requests in a batch.
+     * @param maximumDelayMillis The maximum number of milliseconds that a request waits for
+     * its batch to fill.
+     */
+    public SealBatcher(Notarization notary, NotaryKey notaryKey, int maximumBatchSize, long maximumDelayMillis) {
+        this(notary, notaryKey, maximumBatchSize, maximumDelayMillis, DEFAULT_QUEUE_DEPTH);
+    }
+
+
+    /**
+     * This constructor creates a new batcher that signs documents using the specified notary
+     * key on a signing pool that is sized to the number of available cores, and that queues at
+     * most the specified number of requests.
+     *
+     * @param notary The notarization provider used to sign the documents.
+     * @param notaryKey The notary key used to sign the documents.
+     * @param maximumBatchSize The maximum number of requests in a batch.
+     * @param maximumDelayMillis The maximum number of milliseconds that a request waits for
+     * its batch to fill.
+     * @param maximumQueueDepth The maximum number of requests waiting to be batched.
+     */
+    public SealBatcher(Notarization notary, NotaryKey notaryKey, int maximumBatchSize, long maximumDelayMillis, int maximumQueueDepth) {
+        this.notary = notary;
+        this.notaryKey = notaryKey;
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumDelayNanos = TimeUnit.MILLISECONDS.toNanos(maximumDelayMillis);
+        this.requests = new ArrayBlockingQueue<>(maximumQueueDepth);
+        this.signingThreads = Runtime.getRuntime().availableProcessors();
+        this.signingPool = Executors.newFixedThreadPool(signingThreads);
+        this.dispatcher = new Thread(this::dispatchBatches, "seal-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+
+    /**
+     * This method queues a document for notarization in the next batch.
+     *
+     * @param documentType The type of document being notarized.
+     * @param document The document to be notarized.
+     * @return A future that will complete with the notary seal for the document.
+     */
+    public CompletableFuture<NotarySeal> notarizeDocument(String documentType, String document) {
+        Request request = new Request(documentType, document);
+        if (!running) {
+            request.seal.completeExceptionally(new IllegalStateException("The seal batcher has been closed."));
+        } else if (!requests.offer(request)) {
+            request.seal.completeExceptionally(new RejectedNotarizationException("notarization.queue.is.full", null));
+        } else if (!running && requests.remove(request)) {
+            // the batcher was closed after the check above but before its queue was drained
+            request.seal.completeExceptionally(new IllegalStateException("The seal batcher has been closed."));
+        }
+        return request.seal;
+    }
+
+
+    /**
+     * This method returns the number of requests waiting to be batched.
+     *
+     * @return The number of queued requests.
+     */
+    public int getQueueDepth() {
+        return requests.size();
+    }
+
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        signingPool.shutdown();
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.seal.completeExceptionally(new IllegalStateException("The seal batcher has been closed."));
+        }
+    }
+
+
+    private void dispatchBatches() {
+        List<Request> batch = new ArrayList<>(maximumBatchSize);
+        while (running) {
+            try {
+                Request first = requests.take();
+                batch.add(first);
+                long deadline = first.arrival + maximumDelayNanos;
+                while (batch.size() < maximumBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? requests.poll(remaining, TimeUnit.NANOSECONDS) : requests.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                logger.debug("Dispatching a batch of {} notarization requests...", batch.size());
+                dispatchBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // the batcher is being closed
+                fail(batch, e);
+                batch.clear();
+            }
+        }
+        fail(batch, new IllegalStateException("The seal batcher has been closed."));
+    }
+
+
+    /*
+     * The batch is split into at most one slice per signing thread.  A slice that the pool
+     * rejects (because the batcher is being closed) is failed rather than lost.
+     */
+    private void dispatchBatch(List<Request> batch) {
+        int slices = Math.min(signingThreads, batch.size());
+        for (int i = 0; i < slices; i++) {
+            List<Request> slice = new ArrayList<>(batch.subList(i * batch.size() / slices, (i + 1) * batch.size() / slices));
+            try {
+                signingPool.execute(() -> sign(slice));
+            } catch (RejectedExecutionException e) {
+                fail(slice, e);
+            }
+        }
+    }
+
+
+    private void sign(List<Request> slice) {
+        for (Request request : slice) {
+            try {
+                request.seal.complete(notary.notarizeDocument(request.documentType, request.document, notaryKey));
+            } catch (Throwable e) {
+                // any failure (e.g. an error from a signing backend) must not strand the rest of the slice
+                request.seal.completeExceptionally(e);
+            }
+        }
+    }
+
+
+    static private void fail(List<Request> requests, Throwable cause) {
+        for (Request request : requests) {
+            request.seal.completeExceptionally(cause);
+        }
+    }
+
+
+    /*
+     * This class captures a pending notarization request.
+     */
+    static private final class Request {
+
+        final String documentType;
+        final String document;
+        final long arrival = System.nanoTime();
+        final CompletableFuture<NotarySeal> seal = new CompletableFuture<>();
+
+        Request(String documentType, String document) {
+            this.documentType = documentType;
+            this.document = document;
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.signing;
+
+import craterdog.notary.NotaryKey;
+import craterdog.notary.SigningBackend;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements a signing backend that forwards signing requests to a local signing
+ * daemon over a single socket channel.  Requests are pipelined: any number of them may be
+ * outstanding on the connection at once and a dedicated reader thread matches the responses
+ * to their requests.
+ * <p>
+ * On JDK 16 or later the daemon address should be a <code>UnixDomainSocketAddress</code> so
+ * that the signing keys never leave the host and no network round trip is needed.  Any other
+ * socket address (e.g. a loopback address) may be used on earlier JDKs.
+ *
+ * @author Derk Norton
+ */
+public final class DaemonSigningBackend implements SigningBackend, AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(DaemonSigningBackend.class);
+
+    private final SocketChannel channel;
+    private final long timeoutMillis;
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Map<Long, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Thread reader;
+    private volatile IOException failure;
+
+
+    /**
+     * This constructor connects to the signing daemon at the specified address.
+     *
+     * @param address The address of the signing daemon.
+     * @param timeoutMillis The maximum number of milliseconds to wait for each signature.
+     * @throws IOException The connection to the daemon could not be established.
+     */
+    public DaemonSigningBackend(SocketAddress address, long timeoutMillis) throws IOException {
+        this.channel = SocketChannel.open(address);
+        this.timeoutMillis = timeoutMillis;
+        this.reader = new Thread(this::readResponses, "signing-daemon-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+
+    @Override
+    public byte[] signBytes(NotaryKey notaryKey, byte[] bytes) {
+        URI keyLocation = notaryKey.verificationCitation.documentLocation;
+        CompletableFuture<byte[]> signature = signBytes(keyLocation, bytes);
+        try {
+            return signature.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("The signing daemon was unable to sign the bytes using key: " + keyLocation, e.getCause());
+        } catch (InterruptedException e) {
+            signature.cancel(false);  // removes the request from the pending requests
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The signing request was interrupted for key: " + keyLocation, e);
+        } catch (TimeoutException e) {
+            signature.cancel(false);  // removes the request from the pending requests
+            throw new RuntimeException("The signing daemon did not sign the bytes in time using key: " + keyLocation, e);
+        }
+    }
+
+
+    /**
+     * This method sends a signing request to the daemon without waiting for the response.  If
+     * the returned future is cancelled the request is forgotten and any late response to it
+     * is ignored.
+     *
+     * @param keyLocation The location of the verification certificate for the signing key.
+     * @param bytes The bytes to be signed.
+     * @return A future that will complete with the signature.
+     */
+    public CompletableFuture<byte[]> signBytes(URI keyLocation, byte[] bytes) {
+        CompletableFuture<byte[]> signature = new CompletableFuture<>();
+        if (failure != null) {
+            signature.completeExceptionally(failure);
+            return signature;
+        }
+        long requestId = nextRequestId.incrementAndGet();
+        pending.put(requestId, signature);
+        signature.whenComplete((result, exception) -> pending.remove(requestId, signature));
+        IOException failed = failure;
+        if (failed != null) {
+            // the connection failed after the check above, possibly after the pending requests were failed
+            pending.remove(requestId);
+            signature.completeExceptionally(failed);
+            return signature;
+        }
+        byte[] keyId = keyLocation.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = ByteBuffer.allocate(2 + keyId.length).putShort((short) keyId.length).put(keyId).array();
+        try {
+            synchronized (writeLock) {
+                SigningProtocol.writeFrame(channel, requestId, SigningProtocol.SIGN_OPCODE, prefix, bytes);
+            }
+        } catch (IOException e) {
+            pending.remove(requestId);
+            signature.completeExceptionally(e);
+        }
+        return signature;
+    }
+
+
+    /**
+     * This method returns the number of signing requests that are waiting for a response.
+     *
+     * @return The number of outstanding requests.
+     */
+    public int getOutstandingRequests() {
+        return pending.size();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (failure == null) failure = new IOException("The signing backend was closed.");
+        try {
+            channel.close();
+        } finally {
+            failPending();
+        }
+    }
+
+
+    private void readResponses() {
+        try {
+            ByteBuffer frame;
+            while ((frame = SigningProtocol.readFrame(channel)) != null) {
+                long requestId = frame.getLong();
+                byte status = frame.get();
+                byte[] payload = new byte[frame.remaining()];
+                frame.get(payload);
+                CompletableFuture<byte[]> signature = pending.remove(requestId);
+                if (signature == null) {
+                    logger.warn("Received a response for an unknown or abandoned signing request: {}", requestId);
+                } else if (status == SigningProtocol.STATUS_OK) {
+                    signature.complete(payload);
+                } else {
+                    signature.completeExceptionally(new IOException(new String(payload, StandardCharsets.UTF_8)));
+                }
+            }
+            if (failure == null) failure = new IOException("The connection to the signing daemon was closed.");
+        } catch (IOException e) {
+            if (failure == null) failure = e;  // a close reports its own failure
+        }
+        failPending();
+    }
+
+
+    /*
+     * The failure must be set before this method is called so that any request added after
+     * the pending requests are failed sees it.
+     */
+    private void failPending() {
+        for (Long requestId : pending.keySet()) {
+            CompletableFuture<byte[]> signature = pending.remove(requestId);
+            if (signature != null) signature.completeExceptionally(failure);
+        }
+    }
+
+}
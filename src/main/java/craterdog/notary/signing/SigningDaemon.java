@@ -0,0 +1,159 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.signing;
+
+import craterdog.notary.LocalSigningBackend;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.SigningBackend;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements a signing daemon that holds the unlocked notary keys and signs bytes on
+ * behalf of the <code>DaemonSigningBackend</code> clients that connect to it.  Each connection
+ * has its own reader thread and the signatures are generated on a shared pool of signing threads
+ * so that pipelined requests are signed in parallel.
+ * <p>
+ * The daemon accepts connections on a server socket channel that is opened and bound by the
+ * caller.  On JDK 16 or later this should be a Unix domain socket channel, opened using
+ * <code>ServerSocketChannel.open(StandardProtocolFamily.UNIX)</code>, whose socket file is only
+ * accessible to the application user.
+ *
+ * @author Derk Norton
+ */
+public final class SigningDaemon implements AutoCloseable {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(SigningDaemon.class);
+
+    private final ServerSocketChannel serverChannel;
+    private final Map<String, NotaryKey> notaryKeys = new ConcurrentHashMap<>();
+    private final SigningBackend backend = new LocalSigningBackend();
+    private final ExecutorService signingPool;
+    private final Thread acceptor;
+
+
+    /**
+     * This constructor creates a new signing daemon that accepts connections on the specified
+     * bound server socket channel.
+     *
+     * @param serverChannel The bound server socket channel.
+     */
+    public SigningDaemon(ServerSocketChannel serverChannel) {
+        this.serverChannel = serverChannel;
+        this.signingPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.acceptor = new Thread(this::acceptConnections, "signing-daemon-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+
+    /**
+     * This method makes the specified notary key available for signing.  The key is identified
+     * by the location of its verification certificate.
+     *
+     * @param notaryKey The notary key including its private signing key.
+     */
+    public void addNotaryKey(NotaryKey notaryKey) {
+        notaryKeys.put(notaryKey.verificationCitation.documentLocation.toString(), notaryKey);
+    }
+
+
+    /**
+     * This method removes the specified notary key so that it can no longer be used for signing.
+     *
+     * @param notaryKey The notary key to be removed.
+     */
+    public void removeNotaryKey(NotaryKey notaryKey) {
+        notaryKeys.remove(notaryKey.verificationCitation.documentLocation.toString());
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        signingPool.shutdown();
+    }
+
+
+    private void acceptConnections() {
+        try {
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                Thread connection = new Thread(() -> serveConnection(channel), "signing-daemon-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } catch (ClosedChannelException e) {
+            logger.debug("The signing daemon has been closed...");
+        } catch (IOException e) {
+            logger.error("The signing daemon is unable to accept connections.", e);
+        }
+    }
+
+
+    private void serveConnection(SocketChannel channel) {
+        Object writeLock = new Object();
+        try (SocketChannel connection = channel) {
+            ByteBuffer frame;
+            while ((frame = SigningProtocol.readFrame(connection)) != null) {
+                long requestId = frame.getLong();
+                byte opcode = frame.get();
+                byte[] keyId = new byte[frame.getShort() & 0xFFFF];
+                frame.get(keyId);
+                byte[] bytes = new byte[frame.remaining()];
+                frame.get(bytes);
+                signingPool.execute(() -> sign(connection, writeLock, requestId, opcode, new String(keyId, StandardCharsets.UTF_8), bytes));
+            }
+        } catch (IOException e) {
+            logger.debug("A signing daemon connection failed: {}", e.getMessage());
+        }
+    }
+
+
+    private void sign(SocketChannel connection, Object writeLock, long requestId, byte opcode, String keyId, byte[] bytes) {
+        byte status = SigningProtocol.STATUS_OK;
+        byte[] payload;
+        NotaryKey notaryKey = notaryKeys.get(keyId);
+        if (opcode != SigningProtocol.SIGN_OPCODE) {
+            status = SigningProtocol.STATUS_ERROR;
+            payload = ("Unsupported signing opcode: " + opcode).getBytes(StandardCharsets.UTF_8);
+        } else if (notaryKey == null) {
+            status = SigningProtocol.STATUS_ERROR;
+            payload = ("Unknown signing key: " + keyId).getBytes(StandardCharsets.UTF_8);
+        } else {
+            try {
+                payload = backend.signBytes(notaryKey, bytes);
+            } catch (RuntimeException e) {
+                logger.error("The signing daemon was unable to sign the bytes using key: " + keyId, e);
+                status = SigningProtocol.STATUS_ERROR;
+                payload = ("Unable to sign using key: " + keyId).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        try {
+            synchronized (writeLock) {
+                SigningProtocol.writeFrame(connection, requestId, status, null, payload);
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to send a signing response: {}", e.getMessage());
+        }
+    }
+
+}
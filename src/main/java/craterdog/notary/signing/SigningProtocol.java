@@ -0,0 +1,104 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.signing;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * This class defines the compact framed binary protocol that is spoken between a signing
+ * daemon and its clients.  Every frame starts with a four byte length (not including the
+ * length itself) followed by an eight byte request identifier.  Requests and responses are
+ * matched using the request identifier so a client may have many requests outstanding on
+ * the same connection and the daemon may answer them in any order.
+ * <pre>
+ * request:  length | requestId | opcode (1 byte) | keyIdLength (2 bytes) | keyId (UTF-8) | bytes
+ * response: length | requestId | status (1 byte) | signature, or error message (UTF-8)
+ * </pre>
+ *
+ * @author Derk Norton
+ */
+final class SigningProtocol {
+
+    static final byte SIGN_OPCODE = 1;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    static final int HEADER_LENGTH = 4 + 8 + 1;
+    static final int MAXIMUM_FRAME_LENGTH = 16 * 1024 * 1024;
+
+
+    private SigningProtocol() {
+    }
+
+
+    /**
+     * This method reads the next frame from the specified channel.  The returned buffer is
+     * positioned just after the length field.
+     *
+     * @param channel The channel to read from.
+     * @return The frame, or null if the channel was closed cleanly between frames.
+     * @throws IOException The frame could not be read.
+     */
+    static ByteBuffer readFrame(ReadableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        if (!readFully(channel, length, true)) return null;
+        int frameLength = length.getInt(0);
+        if (frameLength < HEADER_LENGTH - 4 || frameLength > MAXIMUM_FRAME_LENGTH) {
+            throw new IOException("The signing protocol frame length is invalid: " + frameLength);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(frameLength);
+        readFully(channel, frame, false);
+        frame.flip();
+        return frame;
+    }
+
+
+    /**
+     * This method writes a complete frame to the specified channel.
+     *
+     * @param channel The channel to write to.
+     * @param requestId The request identifier for the frame.
+     * @param code The opcode or status for the frame.
+     * @param prefix Any bytes that precede the payload, or null.
+     * @param payload The payload for the frame.
+     * @throws IOException The frame could not be written.
+     */
+    static void writeFrame(WritableByteChannel channel, long requestId, byte code, byte[] prefix, byte[] payload) throws IOException {
+        int prefixLength = prefix == null ? 0 : prefix.length;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + prefixLength + payload.length);
+        frame.putInt(frame.capacity() - 4);
+        frame.putLong(requestId);
+        frame.put(code);
+        if (prefix != null) frame.put(prefix);
+        frame.put(payload);
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+
+    static private boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) return false;
+                throw new EOFException("The signing protocol connection was closed in the middle of a frame.");
+            }
+        }
+        return true;
+    }
+
+}
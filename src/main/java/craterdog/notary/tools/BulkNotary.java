@@ -0,0 +1,514 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import craterdog.notary.DocumentHasher;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import craterdog.notary.mappers.NdjsonCodec;
+import craterdog.notary.mappers.NotaryModule;
+import craterdog.smart.SmartObject;
+import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class notarizes and verifies every file in a directory tree.  The tree is walked in
+ * parallel on a fork-join pool, each file is hashed using memory mapped I/O as it is found, and
+ * the digests are signed on a bounded pool of signing threads.  When the signing pool falls
+ * behind, the walking threads sign the digests themselves, which keeps the number of pending
+ * digests bounded.  The seals are written either to an NDJSON manifest of
+ * <code>ManifestEntry</code> records or to a sidecar file next to each file.  Symbolic links
+ * are not followed, and manifest paths that resolve outside of the directory tree are
+ * reported rather than verified.
+ * <p>
+ * The command line usage is:
+ * <pre>
+ * notarize [key file] [directory] [--manifest file] [--type document type] [--threads count]
+ * verify [certificate file] [directory] [--manifest file] [--threads count]
+ * </pre>
+ * The key file contains a serialized notary key.  Its password is read from the
+ * <code>NOTARY_KEY_PASSWORD</code> environment variable, or from the console if it is not set.
+ * The certificate file contains the notary certificate that verifies the seals; a notary key
+ * file may be used instead, in which case its certificate is used and no password is needed.
+ * Without a manifest the seals are written to (or read from) sidecar files.  The exit status
+ * of the verify mode is non-zero if any problems were found.
+ *
+ * @author Derk Norton
+ */
+public final class BulkNotary {
+
+    static private final XLogger logger = XLoggerFactory.getXLogger(BulkNotary.class);
+
+    /**
+     * The extension appended to the name of a file to get the name of its sidecar file.
+     */
+    static public final String SIDECAR_EXTENSION = ".seal.json";
+
+    static private final String PASSWORD_VARIABLE = "NOTARY_KEY_PASSWORD";
+    static private final ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+
+    private final V1NotarizationProvider notary;
+    private final int threads;
+    private final DocumentHasher hasher = new DocumentHasher();
+    private final NdjsonCodec<ManifestEntry> codec = new NdjsonCodec<>(ManifestEntry.class);
+
+
+    /**
+     * This constructor creates a bulk notary that uses the specified number of threads for
+     * walking and hashing, and the same number for signing.
+     *
+     * @param notary The notarization provider.
+     * @param threads The number of threads in each pool.
+     */
+    public BulkNotary(V1NotarizationProvider notary, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        this.notary = notary;
+        this.threads = threads;
+    }
+
+
+    /**
+     * This method notarizes every file in the specified directory tree.  Existing sidecar files
+     * and the manifest itself are skipped.
+     *
+     * @param root The root of the directory tree.
+     * @param documentType The document type recorded in each seal.
+     * @param notaryKey The notary key used to sign the seals.
+     * @param manifest The path of the NDJSON manifest to be written, or null to write sidecar
+     * files instead.
+     * @return A report of the files that were notarized.
+     * @throws IOException The tree could not be walked or the seals could not be written.
+     */
+    public Report notarize(Path root, String documentType, NotaryKey notaryKey, Path manifest) throws IOException {
+        logger.entry(root, documentType, manifest);
+        Report report = new Report();
+        String algorithm = hasher.getAlgorithm(notary.hashingAlgorithm);
+        ThreadPoolExecutor signingPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(4 * threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try (OutputStream output = manifest == null ? null : Files.newOutputStream(manifest)) {
+            NdjsonCodec<ManifestEntry>.RecordWriter writer = output == null ? null : codec.createWriter(output);
+            walk(root, manifest, (file, path) -> {
+                byte[] digest = hasher.hash(file);  // memory mapped
+                long size = Files.size(file);
+                signingPool.execute(() -> {
+                    try {
+                        ManifestEntry entry = new ManifestEntry();
+                        entry.path = path;
+                        entry.size = size;
+                        entry.seal = notary.notarizeDigest(documentType, digest, algorithm, notaryKey);
+                        if (writer == null) {
+                            Files.write(sidecarFor(file), mapper.writeValueAsBytes(entry.seal));
+                        } else {
+                            synchronized (writer) {
+                                writer.write(entry);
+                            }
+                        }
+                        report.processed(size);
+                    } catch (IOException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            });
+            signingPool.shutdown();
+            awaitTermination(signingPool);
+            if (writer != null) writer.close();
+        } finally {
+            signingPool.shutdownNow();
+        }
+        if (failure.get() instanceof IOException) throw (IOException) failure.get();
+        if (failure.get() != null) throw (RuntimeException) failure.get();
+        report.finish();
+        logger.exit(report);
+        return report;
+    }
+
+
+    /**
+     * This method verifies every file in the specified directory tree against its seal.
+     * Files whose contents do not match their seals, files that have a seal but no longer
+     * exist, files that have no seal, and manifest paths outside of the tree are all reported.
+     * A sidecar file or manifest line that cannot be parsed is reported as invalid and the
+     * verification continues.
+     *
+     * @param root The root of the directory tree.
+     * @param certificate The certificate of the notary that signed the seals.
+     * @param manifest The path of the NDJSON manifest to be read, or null to read sidecar
+     * files instead.
+     * @return A report of the files that were verified and any problems that were found.
+     * @throws IOException The tree could not be walked or the seals could not be read.
+     */
+    public Report verify(Path root, NotaryCertificate certificate, Path manifest) throws IOException {
+        logger.entry(root, manifest);
+        Report report = new Report();
+        if (manifest == null) {
+            walk(root, null, (file, path) -> {
+                Path sidecar = sidecarFor(file);
+                if (Files.exists(sidecar)) {
+                    NotarySeal seal;
+                    try {
+                        seal = mapper.readValue(sidecar.toFile(), NotarySeal.class);
+                    } catch (JsonProcessingException e) {
+                        report.problem("INVALID", path, "seal.is.malformed");
+                        return;
+                    }
+                    verifyFile(root, path, seal, certificate, report);
+                } else {
+                    report.problem("UNSEALED", path, null);
+                }
+            });
+            walkSidecars(root, (sidecar, path) -> {
+                String name = path.substring(0, path.length() - SIDECAR_EXTENSION.length());
+                if (!Files.exists(root.resolve(name))) report.problem("MISSING", name, null);
+            });
+        } else {
+            Path realRoot = root.toRealPath();
+            Set<String> sealed = ConcurrentHashMap.newKeySet();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            String name = manifest.getFileName().toString();
+            try (Stream<ManifestEntry> entries = codec.stream(manifest, true, e -> report.problem("INVALID", name, "manifest.entry.is.malformed"))) {
+                pool.submit(() -> entries.forEach(entry -> {
+                    sealed.add(entry.path);
+                    try {
+                        if (isInside(realRoot, entry.path)) {
+                            verifyFile(realRoot, entry.path, entry.seal, certificate, report);
+                        } else {
+                            report.problem("INVALID", entry.path, null);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The verification was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            walk(root, manifest, (file, path) -> {
+                if (!sealed.contains(path)) report.problem("UNSEALED", path, null);
+            });
+        }
+        report.finish();
+        logger.exit(report);
+        return report;
+    }
+
+
+    /*
+     * The paths in a manifest are untrusted so they must not escape the tree, either directly
+     * (e.g. "../x" or an absolute path) or through a symbolic link within the tree.
+     */
+    static private boolean isInside(Path realRoot, String path) throws IOException {
+        if (path == null || path.isEmpty()) return false;
+        Path file = realRoot.resolve(path).normalize();
+        if (!file.startsWith(realRoot) || file.equals(realRoot)) return false;
+        return !Files.exists(file, LinkOption.NOFOLLOW_LINKS) || file.toRealPath().startsWith(realRoot);
+    }
+
+
+    private void verifyFile(Path root, String path, NotarySeal seal, NotaryCertificate certificate, Report report) throws IOException {
+        Path file = root.resolve(path);
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+            report.problem("MISSING", path, null);
+            return;
+        }
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateDocument(file, seal, certificate, errors);  // memory mapped
+        report.processed(Files.size(file));
+        if (!errors.isEmpty()) {
+            report.problem("MISMATCH", path, errors.keySet().iterator().next());
+        }
+    }
+
+
+    /*
+     * This interface is implemented by the actions performed on each file that is found.
+     */
+    @FunctionalInterface
+    private interface FileAction {
+        void apply(Path file, String path) throws IOException;
+    }
+
+
+    private void walk(Path root, Path manifest, FileAction action) throws IOException {
+        Path excluded = manifest == null ? null : manifest.toAbsolutePath().normalize();
+        invoke(new WalkTask(root, root, file -> !file.toString().endsWith(SIDECAR_EXTENSION)
+                && (excluded == null || !excluded.equals(file.toAbsolutePath().normalize())), action));
+    }
+
+
+    private void walkSidecars(Path root, FileAction action) throws IOException {
+        invoke(new WalkTask(root, root, file -> file.toString().endsWith(SIDECAR_EXTENSION), action));
+    }
+
+
+    private void invoke(WalkTask task) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    static private Path sidecarFor(Path file) {
+        return file.resolveSibling(file.getFileName() + SIDECAR_EXTENSION);
+    }
+
+
+    static private void awaitTermination(ThreadPoolExecutor pool) throws IOException {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for {} pending seals to be signed...", pool.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The notarization was interrupted.", e);
+        }
+    }
+
+
+    static private IOException rethrow(Throwable cause) {
+        if (cause instanceof UncheckedIOException) return ((UncheckedIOException) cause).getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        return new IOException(cause);
+    }
+
+
+    /**
+     * This method runs the bulk notary from the command line.
+     *
+     * @param args The mode, key file, directory and options.
+     * @throws Exception The files could not be notarized or verified.
+     */
+    static public void main(String[] args) throws Exception {
+        if (args.length < 3 || !(args[0].equals("notarize") || args[0].equals("verify"))) {
+            System.err.println("usage: notarize [key file] [directory] [--manifest file] [--type document type] [--threads count]");
+            System.err.println("       verify [certificate file] [directory] [--manifest file] [--threads count]");
+            System.exit(2);
+        }
+        Path manifest = null;
+        String documentType = "File";
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--manifest":
+                    manifest = Paths.get(args[i + 1]);
+                    break;
+                case "--type":
+                    documentType = args[i + 1];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        String json = new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8);
+        BulkNotary bulkNotary = new BulkNotary(notary, threads);
+        Path root = Paths.get(args[2]);
+        Report report;
+        if (args[0].equals("notarize")) {
+            NotaryKey notaryKey = notary.deserializeNotaryKey(json, readPassword());
+            report = bulkNotary.notarize(root, documentType, notaryKey, manifest);
+        } else {
+            report = bulkNotary.verify(root, readCertificate(json), manifest);
+        }
+        report.print(System.out);
+        if (!report.getProblems().isEmpty()) System.exit(1);
+    }
+
+
+    /*
+     * A notary key file contains its certificate in the clear so the signing key need not be
+     * decrypted just to verify seals.
+     */
+    static private NotaryCertificate readCertificate(String json) throws IOException {
+        JsonNode node = mapper.readTree(json);
+        if (node != null && node.has("verificationCertificate")) node = node.get("verificationCertificate");
+        return mapper.treeToValue(node, NotaryCertificate.class);
+    }
+
+
+    static private char[] readPassword() {
+        String password = System.getenv(PASSWORD_VARIABLE);
+        if (password != null) return password.toCharArray();
+        Console console = System.console();
+        if (console == null) {
+            throw new IllegalStateException("The " + PASSWORD_VARIABLE + " environment variable must be set when there is no console.");
+        }
+        return console.readPassword("Notary key password: ");
+    }
+
+
+    /*
+     * This task walks a directory, forking a subtask for each subdirectory and applying the
+     * action to each matching regular file.  Symbolic links are skipped so that a link cycle
+     * cannot make the walk run forever and no file outside of the tree is processed.
+     */
+    static private final class WalkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final Path directory;
+        private final Predicate<Path> filter;
+        private final FileAction action;
+
+        WalkTask(Path root, Path directory, Predicate<Path> filter, FileAction action) {
+            this.root = root;
+            this.directory = directory;
+            this.filter = filter;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            List<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        WalkTask subtask = new WalkTask(root, entry, filter, action);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    } else if (Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS) && filter.test(entry)) {
+                        action.apply(entry, root.relativize(entry).toString().replace(entry.getFileSystem().getSeparator(), "/"));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (WalkTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+    }
+
+
+    /**
+     * This class reports the files that were processed, the throughput, and any problems that
+     * were found.  It is updated concurrently by the walking and signing threads.
+     */
+    static public final class Report {
+
+        private final long start = System.nanoTime();
+        private final LongAdder files = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final List<String> problems = Collections.synchronizedList(new ArrayList<>());
+        private long elapsedNanos;
+
+        void processed(long size) {
+            files.increment();
+            bytes.add(size);
+        }
+
+        void problem(String kind, String path, String messageTag) {
+            problems.add(kind + " " + path + (messageTag == null ? "" : " (" + messageTag + ")"));
+        }
+
+        void finish() {
+            elapsedNanos = System.nanoTime() - start;
+        }
+
+        /**
+         * This method returns the number of files that were notarized or verified.
+         *
+         * @return The number of files.
+         */
+        public long getFileCount() {
+            return files.sum();
+        }
+
+        /**
+         * This method returns the total size of the files that were notarized or verified.
+         *
+         * @return The number of bytes.
+         */
+        public long getByteCount() {
+            return bytes.sum();
+        }
+
+        /**
+         * This method returns the problems that were found, one per file, in the form
+         * <code>[MISMATCH|MISSING|UNSEALED|INVALID] [path] ([message tag])</code>.
+         *
+         * @return The sorted list of problems.
+         */
+        public List<String> getProblems() {
+            List<String> sorted = new ArrayList<>(problems);
+            Collections.sort(sorted);
+            return sorted;
+        }
+
+        /**
+         * This method prints the report.
+         *
+         * @param output The stream to print the report to.
+         */
+        public void print(PrintStream output) {
+            double seconds = Math.max(elapsedNanos, 1) / 1e9;
+            for (String problem : getProblems()) {
+                output.println(problem);
+            }
+            output.printf("files:      %d (%d bytes)%n", getFileCount(), getByteCount());
+            output.printf("problems:   %d%n", problems.size());
+            output.printf("elapsed:    %.3f seconds%n", seconds);
+            output.printf("throughput: %.1f files/second, %.1f MB/second%n", getFileCount() / seconds, getByteCount() / seconds / 1e6);
+        }
+
+    }
+
+}
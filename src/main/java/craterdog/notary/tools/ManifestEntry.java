@@ -0,0 +1,40 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.tools;
+
+import craterdog.notary.NotarySeal;
+import craterdog.smart.SmartObject;
+
+
+/**
+ * This class defines a line in the NDJSON manifest written by the <code>BulkNotary</code>
+ * class.  It associates a file in the notarized directory tree with its notary seal.
+ *
+ * @author Derk Norton
+ */
+public final class ManifestEntry extends SmartObject<ManifestEntry> {
+
+    /**
+     * The path of the file relative to the root of the directory tree, using '/' as the
+     * separator.
+     */
+    public String path;
+
+    /**
+     * The size of the file in bytes when it was notarized.
+     */
+    public long size;
+
+    /**
+     * The notary seal for the file.
+     */
+    public NotarySeal seal;
+
+}
@@ -9,17 +9,34 @@
  ************************************************************************/
 package craterdog.notary;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import craterdog.notary.mappers.NotaryModule;
 import craterdog.primitives.Tag;
+import craterdog.smart.SmartObject;
+import craterdog.utils.Base32Utils;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
@@ -181,6 +198,783 @@ public class V1NotarizationProviderTest {
     }
 
 
+    @Test
+    public void testTreeHashing() throws URISyntaxException, IOException {
+        logger.info("Testing tree hashing of large documents...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider().withTreeHashing(DocumentHasher.MINIMUM_CHUNK_SIZE);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Writing a multi-chunk document to a file...");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.append("Line ").append(i).append(" of a very large document.\n");
+        }
+        String document = builder.toString();
+        Path file = Files.createTempFile("document", ".txt");
+        Files.write(file, document.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            logger.info("  Notarizing the file using tree hashing...");
+            NotarySeal seal = notary.notarizeDocument("Large Document", file, notaryKey);
+            assertTrue("  The tree mode was not recorded.", seal.attributes.watermark.hashingAlgorithm.contains(DocumentHasher.TREE_MODE));
+
+            logger.info("  Verifying the notary seal using a sequential provider...");
+            Notarization validator = new V1NotarizationProvider();
+            Map<String, Object> errors = new LinkedHashMap<>();
+            validator.validateDocument(file, seal, certificate, errors);
+            assertTrue("  Invalid notary seal for the file.", errors.isEmpty());
+            validator.validateDocument(document, seal, certificate, errors);
+            assertTrue("  Invalid notary seal for the string.", errors.isEmpty());
+
+            logger.info("  Verifying that a modified document is detected...");
+            validator.validateDocument(document + ".", seal, certificate, errors);
+            assertTrue("  The modified document was not detected.", errors.containsKey("document.hash.is.invalid"));
+        } finally {
+            Files.delete(file);
+        }
+
+        logger.info("Tree hashing test completed.\n");
+    }
+
+
+    @Test
+    public void testDigestNotarization() throws URISyntaxException {
+        logger.info("Testing notarization of client generated digests...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Hashing the document locally...");
+        String documentType = "Example Document";
+        String document = "This is a very important legal document that must be notarized!";
+        byte[] digest = new DocumentHasher().hash(document.getBytes());
+        String hashingAlgorithm = notary.hashingAlgorithm;
+
+        logger.info("  Notarizing the digest and validating it against the document...");
+        NotarySeal seal = notary.notarizeDigest(documentType, digest, hashingAlgorithm, notaryKey);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  Invalid notary seal for the digest.", errors.isEmpty());
+
+        logger.info("  Notarizing the document and validating it against the digest...");
+        seal = notary.notarizeDocument(documentType, document, notaryKey);
+        notary.validateDigest(digest, hashingAlgorithm, seal, certificate, errors);
+        assertTrue("  Invalid notary seal for the document.", errors.isEmpty());
+
+        logger.info("  Verifying that an invalid digest is rejected...");
+        try {
+            notary.notarizeDigest(documentType, new byte[16], hashingAlgorithm, notaryKey);
+            fail("  The short digest should have caused a failure.");
+        } catch (ValidationException e) {
+            // expected
+        }
+
+        logger.info("Digest notarization test completed.\n");
+    }
+
+
+    @Test
+    public void testSealChain() throws URISyntaxException {
+        logger.info("Testing chained notary seals for an audit log...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Notarizing the log entries...");
+        SealChain chain = new SealChain(notary, notaryKey, 10);
+        List<NotarySeal> seals = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            seals.add(chain.notarizeEntry("Log Entry", "Entry " + i));
+        }
+        seals.add(chain.notarizeCheckpoint("Log Entry", "Entry 24"));
+        assertEquals("  The chain has the wrong length.", 25, chain.getLength());
+
+        logger.info("  Verifying the chain...");
+        Map<String, Object> errors = new LinkedHashMap<>();
+        SealChainVerifier verifier = new SealChainVerifier(notary, certificate, errors);
+        for (int i = 0; i < seals.size(); i++) {
+            verifier.verifyEntry("Entry " + i, seals.get(i));
+        }
+        assertTrue("  Invalid seal chain.", verifier.finish());
+        assertEquals("  The head hashes do not match.", chain.getHeadHash(), verifier.getHeadHash());
+
+        logger.info("  Verifying that a modified entry is detected...");
+        seals.get(3).attributes.documentHash = seals.get(4).attributes.documentHash;
+        verifier = new SealChainVerifier(notary, certificate, errors);
+        assertFalse("  The modified seal was not detected.", verifier.verifySeals(seals.iterator()));
+        assertTrue("  The broken link was not reported.", errors.containsKey("chain.seal.link.is.broken"));
+
+        logger.info("  Verifying that a chain without a final checkpoint is rejected...");
+        errors.clear();
+        verifier = new SealChainVerifier(notary, certificate, errors);
+        assertFalse("  The missing checkpoint was not detected.", verifier.verifySeals(seals.subList(0, 3).iterator()));
+
+        logger.info("Chained notary seal test completed.\n");
+    }
+
+
+    @Test
+    public void testLazySealValidation() throws URISyntaxException, IOException {
+        logger.info("Testing validation of lazily parsed notary seals...");
+
+        logger.info("  Generating a renewed notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri, notary.generateNotaryKey(baseUri));
+        String certificateJson = notaryKey.verificationCertificate.toString();
+
+        logger.info("  Notarizing a document...");
+        String document = "This is a very important legal document that must be notarized!";
+        NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+        String sealJson = seal.toString();
+
+        logger.info("  Validating the document against the received bytes...");
+        Map<String, Object> errors = new LinkedHashMap<>();
+        LazyNotarySeal lazySeal = new LazyNotarySeal(sealJson);
+        LazyNotaryCertificate lazyCertificate = new LazyNotaryCertificate(certificateJson);
+        assertTrue("  The signed bytes were not taken from the received seal.",
+                Arrays.equals(seal.attributes.toString().getBytes(StandardCharsets.UTF_8), lazySeal.getSignedBytes()));
+        notary.validateDocument(document, lazySeal, lazyCertificate, errors);
+        assertTrue("  Invalid lazily parsed notary seal.", errors.isEmpty());
+
+        logger.info("  Validating a seal that was not pretty printed...");
+        String compactJson = new ObjectMapper().writeValueAsString(new ObjectMapper().readTree(sealJson));
+        notary.validateDocument(document, new LazyNotarySeal(compactJson), lazyCertificate, errors);
+        assertTrue("  Invalid compact notary seal.", errors.isEmpty());
+
+        logger.info("  Verifying that modified seal bytes are detected...");
+        String modifiedJson = sealJson.replace("Example Document", "Example Documenu");
+        notary.validateDocument(document, new LazyNotarySeal(modifiedJson), lazyCertificate, errors);
+        assertTrue("  The modified seal was not detected.", errors.containsKey("document.signature.is.not.valid"));
+
+        logger.info("Lazy notary seal validation test completed.\n");
+    }
+
+
+    @Test
+    public void testKeyRotation() throws URISyntaxException, InterruptedException {
+        logger.info("Testing background rotation of notary keys...");
+
+        logger.info("  Creating a rotating key that is already within its rotation lead time...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey initialKey = notary.generateNotaryKey(baseUri);
+        String document = "This is a very important legal document that must be notarized!";
+        NotarySeal oldSeal = notary.notarizeDocument("Example Document", document, initialKey);
+        long leadSeconds = 2L * Notarization.VALID_FOR_ONE_YEAR;
+        try (RotatingNotaryKey rotatingKey = new RotatingNotaryKey(notary, baseUri, initialKey, leadSeconds, 60)) {
+
+            logger.info("  Waiting for the background rotation...");
+            long deadline = System.currentTimeMillis() + 30000;
+            while (rotatingKey.getNotaryKey() == initialKey && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            NotaryKey notaryKey = rotatingKey.getNotaryKey();
+            assertTrue("  The notary key was not rotated.", notaryKey != initialKey);
+            assertEquals("  The new certificate has the wrong sequence number.", 2, notaryKey.verificationCertificate.attributes.sequenceNumber);
+
+            logger.info("  Validating the new certificate against the previous one...");
+            Map<String, Object> errors = new LinkedHashMap<>();
+            NotaryCertificate previousCertificate = rotatingKey.getPreviousCertificate();
+            notary.validateNotaryCertificate(notaryKey.verificationCertificate, previousCertificate, errors);
+            assertTrue("  Invalid rotated certificate.", errors.isEmpty());
+
+            logger.info("  Validating seals signed with the previous and current keys...");
+            NotarySeal newSeal = notary.notarizeDocument("Example Document", document, notaryKey);
+            for (NotarySeal seal : Arrays.asList(oldSeal, newSeal)) {
+                NotaryCertificate certificate = rotatingKey.getVerificationCertificate(seal.attributes.verificationCitation);
+                notary.validateDocument(document, seal, certificate, errors);
+                assertTrue("  Invalid notary seal.", errors.isEmpty());
+            }
+        }
+
+        logger.info("Notary key rotation test completed.\n");
+    }
+
+
+    @Test
+    public void testVerificationCache() throws URISyntaxException, IOException {
+        logger.info("Testing the cache of successful seal verifications...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        SealVerificationCache cache = new SealVerificationCache(1024, 60);
+        V1NotarizationProvider notary = new V1NotarizationProvider().withVerificationCache(cache);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Validating a document twice...");
+        String document = "This is a very important legal document that must be notarized!";
+        NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  Invalid notary seal.", errors.isEmpty());
+        assertTrue("  The verification was not cached.", cache.isVerified(seal, certificate));
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  Invalid cached notary seal.", errors.isEmpty());
+        assertEquals("  The cache has the wrong size.", 1, cache.size());
+
+        logger.info("  Verifying that a modified seal is not vouched for by the cache...");
+        seal.attributes.documentType = "Modified Document";
+        assertFalse("  The modified seal matched the cache.", cache.isVerified(seal, certificate));
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  The modified seal was not detected.", errors.containsKey("document.signature.is.not.valid"));
+        assertEquals("  The failed verification was cached.", 1, cache.size());
+
+        logger.info("  Verifying that a tampered seal reusing a cached signature is rejected...");
+        seal.attributes.documentType = "Example Document";
+        NotarySeal tampered = NotarySeal.fromString(NotarySeal.class, seal.toString());
+        tampered.attributes.put("approved", true);
+        assertEquals("  The tampered seal does not reuse the signature.", seal.selfSignature, tampered.selfSignature);
+        assertTrue("  The original seal is no longer cached.", cache.isVerified(seal, certificate));
+        assertFalse("  The tampered seal matched the cache.", cache.isVerified(tampered, certificate));
+        errors.clear();
+        notary.validateDocument(document, tampered, certificate, errors);
+        assertTrue("  The tampered seal was not detected.", errors.containsKey("document.signature.is.not.valid"));
+
+        logger.info("  Verifying that the cache is keyed by the certificate signature...");
+        NotaryCertificate other = notary.generateNotaryKey(baseUri).verificationCertificate;
+        other.attributes.myLocation = certificate.attributes.myLocation;
+        assertEquals("  The key does not match the signed bytes.", SealVerificationCache.generateKey(seal, certificate),
+                SealVerificationCache.generateKey(seal, seal.attributes.toString().getBytes(StandardCharsets.UTF_8), certificate));
+        assertFalse("  A different certificate matched the cache.", cache.isVerified(seal, other));
+
+        logger.info("Seal verification cache test completed.\n");
+    }
+
+
+    @Test
+    public void testCompactSeals() throws URISyntaxException, IOException {
+        logger.info("Testing the compact representation of notary seals...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Compacting notarized and parsed seals...");
+        SealInterner interner = new SealInterner();
+        List<CompactNotarySeal> compactSeals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            NotarySeal seal = notary.notarizeDocument("Example Document", "Document " + i, notaryKey);
+            NotarySeal parsed = NotarySeal.fromString(NotarySeal.class, seal.toString());
+            for (NotarySeal original : Arrays.asList(seal, parsed)) {
+                CompactNotarySeal compactSeal = new CompactNotarySeal(original, interner);
+                assertEquals("  The compact seal does not match the original.", original.toString(), compactSeal.toString());
+                compactSeals.add(compactSeal);
+            }
+        }
+        assertTrue("  The verification citations are not shared.",
+                compactSeals.get(0).getVerificationCitation() == compactSeals.get(5).getVerificationCitation());
+
+        logger.info("  Validating the reconstructed seals...");
+        Map<String, Object> errors = new LinkedHashMap<>();
+        for (int i = 0; i < compactSeals.size(); i++) {
+            notary.validateDocument("Document " + i / 2, compactSeals.get(i).toNotarySeal(), certificate, errors);
+            assertTrue("  Invalid reconstructed notary seal.", errors.isEmpty());
+        }
+
+        logger.info("  Comparing compact seals that share a signature...");
+        NotarySeal first = compactSeals.get(0).toNotarySeal();
+        NotarySeal second = compactSeals.get(2).toNotarySeal();
+        first.selfSignature = null;
+        second.selfSignature = null;
+        assertFalse("  Different unsigned seals are equal.",
+                new CompactNotarySeal(first, interner).equals(new CompactNotarySeal(second, interner)));
+        second.attributes = first.attributes;
+        assertEquals("  Identical unsigned seals are not equal.",
+                new CompactNotarySeal(first, interner), new CompactNotarySeal(second, interner));
+        second.attributes = NotarySeal.fromString(NotarySeal.class, first.toString()).attributes;
+        second.attributes.any().put("approved", true);
+        assertEquals("  The additional attribute was not added.", true, second.attributes.get("approved"));
+        assertFalse("  Seals with different additional attributes are equal.",
+                new CompactNotarySeal(first, interner).equals(new CompactNotarySeal(second, interner)));
+
+        logger.info("Compact notary seal test completed.\n");
+    }
+
+
+    @Test
+    public void testRevocation() throws URISyntaxException, IOException {
+        logger.info("Testing the revocation of certificates and seals...");
+
+        logger.info("  Generating a new notary key...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        RevocationRegistry registry = new RevocationRegistry(1000, 0.001);
+        V1NotarizationProvider notary = new V1NotarizationProvider()
+                .withVerificationCache(new SealVerificationCache(1024, 60))
+                .withRevocationRegistry(registry);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Validating a seal before it is revoked...");
+        String document = "This is a very important legal document that must be notarized!";
+        NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+        NotarySeal otherSeal = notary.notarizeDocument("Example Document", document, notaryKey);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  Invalid notary seal.", errors.isEmpty());
+
+        logger.info("  Revoking the seal...");
+        registry.revokeSeal(seal.selfSignature);
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  The revoked seal was accepted.", errors.containsKey("seal.has.been.revoked"));
+        errors.clear();
+        notary.validateDocument(document, otherSeal, certificate, errors);
+        assertTrue("  A seal that was not revoked was rejected.", errors.isEmpty());
+
+        logger.info("  Revoking the certificate and reloading the registry from a snapshot...");
+        registry.revokeCertificate(certificate.attributes.myLocation);
+        Path snapshot = Files.createTempFile("revocations", ".txt");
+        try {
+            registry.saveSnapshot(snapshot);
+            RevocationRegistry reloaded = new RevocationRegistry(1000, 0.001);
+            reloaded.loadSnapshot(snapshot);
+            assertEquals("  The reloaded registry has the wrong size.", 2, reloaded.size());
+            assertTrue("  The certificate revocation was lost.", reloaded.isCertificateRevoked(certificate.attributes.myLocation));
+            assertTrue("  The seal revocation was lost.", reloaded.isSealRevoked(seal.selfSignature));
+            assertFalse("  A seal that was not revoked was reloaded.", reloaded.isSealRevoked(otherSeal.selfSignature));
+            notary = new V1NotarizationProvider().withRevocationRegistry(reloaded);
+            notary.validateDocument(document, otherSeal, certificate, errors);
+            assertTrue("  The revoked certificate was accepted.", errors.containsKey("certificate.has.been.revoked"));
+        } finally {
+            Files.delete(snapshot);
+        }
+
+        logger.info("Revocation test completed.\n");
+    }
+
+
+    @Test
+    public void testLocationGenerator() throws Exception {
+        logger.info("Testing the generation of unique locations on many threads...");
+
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        LocationGenerator generator = new ThreadLocalLocationGenerator();
+        Set<URI> locations = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    locations.add(generator.generateLocation(baseUri, "certificate"));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("  The generated locations are not unique.", 8000, locations.size());
+        String expected = baseUri + "/certificate/" + new Tag();
+        assertEquals("  The location has the wrong format.", expected.length(), locations.iterator().next().toString().length());
+
+        logger.info("  Generating a notary key using the location generator...");
+        V1NotarizationProvider notary = new V1NotarizationProvider().withLocationGenerator(generator);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        assertTrue("  The certificate location is wrong.",
+                notaryKey.verificationCertificate.attributes.myLocation.toString().startsWith(baseUri + "/certificate/"));
+
+        logger.info("Location generator test completed.\n");
+    }
+
+
+    @Test
+    public void testWarmUp() throws Exception {
+        logger.info("Testing the warm up of the notarization provider...");
+
+        logger.info("  Verifying that the notary classes share a single cryptex...");
+        assertTrue("  The crypto context returned different cryptexes.", CryptoContext.getCryptex() == CryptoContext.getCryptex());
+
+        logger.info("  Warming up a provider that uses a signing backend that must not be called...");
+        V1NotarizationProvider notary = new V1NotarizationProvider().withSigningBackend((key, bytes) -> {
+            throw new IllegalStateException("The warm up used the signing backend.");
+        });
+        notary.warmUp(3);
+
+        logger.info("Warm up test completed.\n");
+    }
+
+
+    @Test
+    public void testNotarizationRegistry() throws Exception {
+        logger.info("Testing the routing of validations by the notarization registry...");
+
+        logger.info("  Discovering the notarization providers...");
+        NotarizationRegistry registry = new NotarizationRegistry();
+        assertEquals("  The wrong number of providers was discovered.", 1, registry.getProviders().size());
+        Notarization notary = registry.getLatestProvider();
+        assertTrue("  The wrong provider was discovered.", notary instanceof V1NotarizationProvider);
+
+        logger.info("  Validating seals using sequential and tree hashing...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        NotaryKey previousKey = notary.generateNotaryKey(baseUri);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri, previousKey);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+        String document = "This is an example document.";
+        NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+        NotarySeal treeSeal = ((V1NotarizationProvider) notary).withTreeHashing(4096).notarizeDocument("Example Document", document, notaryKey);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        registry.validateNotaryCertificate(certificate, previousKey.verificationCertificate, errors);
+        registry.validateDocument(document, seal, certificate, errors);
+        registry.validateDocument(document, treeSeal, certificate, errors);
+        assertTrue("  The seals were not routed correctly: " + errors, errors.isEmpty());
+        assertTrue("  The provider lookup was not cached.", registry.getProvider(seal.attributes.watermark) == notary);
+
+        logger.info("  Looking up forged watermarks...");
+        Watermark forged = Watermark.fromString(Watermark.class, treeSeal.attributes.watermark.toString());
+        forged.hashingAlgorithm = seal.attributes.watermark.hashingAlgorithm + DocumentHasher.TREE_MODE + "8192";
+        assertTrue("  A valid tree mode was not supported.", registry.getProvider(forged) == notary);
+        forged.hashingAlgorithm = seal.attributes.watermark.hashingAlgorithm + DocumentHasher.TREE_MODE + "random";
+        assertTrue("  A malformed tree mode was supported.", registry.getProvider(forged) == null);
+        forged.hashingAlgorithm = seal.attributes.watermark.hashingAlgorithm;
+        forged.minorVersion = -1;
+        assertTrue("  A negative minor version was supported.", registry.getProvider(forged) == null);
+
+        logger.info("  Validating a seal with an unsupported version...");
+        seal.attributes.watermark.majorVersion = 2;
+        registry.validateDocument(document, seal, certificate, errors);
+        assertTrue("  The unsupported version was not detected.", errors.containsKey("notary.version.is.not.supported"));
+
+        logger.info("Notarization registry test completed.\n");
+    }
+
+
+    @Test
+    public void testDeduplication() throws Exception {
+        logger.info("Testing the deduplication of notarization requests...");
+
+        logger.info("  Creating a provider that counts its signing operations...");
+        AtomicInteger signatures = new AtomicInteger();
+        SigningBackend localBackend = new LocalSigningBackend();
+        V1NotarizationProvider notary = new V1NotarizationProvider()
+                .withSigningBackend((key, bytes) -> {
+                    signatures.incrementAndGet();
+                    return localBackend.signBytes(key, bytes);
+                })
+                .withDeduplication(new NotarizationDeduplicator(60, 100));
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        signatures.set(0);
+
+        logger.info("  Notarizing the same document from several threads at once...");
+        String document = "This is an example document.";
+        NotarySeal[] seals = new NotarySeal[8];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[seals.length];
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    seals[index] = notary.notarizeDocument("Example Document", document, notaryKey);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("  The duplicate requests were not coalesced.", 1, signatures.get());
+        for (NotarySeal seal : seals) {
+            assertTrue("  A different seal was returned.", seal == seals[0]);
+        }
+
+        logger.info("  Retrying the request and notarizing a different document type...");
+        assertTrue("  The retry was not deduplicated.", notary.notarizeDocument("Example Document", document, notaryKey) == seals[0]);
+        NotarySeal other = notary.notarizeDocument("Other Document", document, notaryKey);
+        assertEquals("  The different document type was deduplicated.", 2, signatures.get());
+
+        logger.info("  Validating the seals...");
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateDocument(document, seals[0], notaryKey.verificationCertificate, errors);
+        notary.validateDocument(document, other, notaryKey.verificationCertificate, errors);
+        assertTrue("  The deduplicated seals are invalid.", errors.isEmpty());
+
+        logger.info("Deduplication test completed.\n");
+    }
+
+
+    @Test
+    public void testFieldNotarization() throws Exception {
+        logger.info("Testing the field level notarization of a JSON document...");
+
+        logger.info("  Notarizing the fields of a JSON document...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+        String document = "{\"name\": \"Jane Doe\", \"age\": 42, \"address\": {\"city\": \"Boulder\", \"zip\": \"80302\"}, \"roles\": [\"admin\", \"user\"], \"notes\": {}}";
+        FieldTree fields = new FieldTree(document);
+        assertEquals("  The wrong number of fields was found.", 7, fields.size());
+        NotarySeal seal = notary.notarizeFields("Example Record", fields, notaryKey);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateFields(fields, seal, certificate, errors);
+        assertTrue("  The field seal is invalid: " + errors, errors.isEmpty());
+
+        logger.info("  Checking that the field order does not matter...");
+        String reordered = "{\"roles\": [\"admin\", \"user\"], \"notes\": {}, \"address\": {\"zip\": \"80302\", \"city\": \"Boulder\"}, \"age\": 42, \"name\": \"Jane Doe\"}";
+        assertEquals("  The root hash depends on the field order.", fields.getRootHash(), new FieldTree(reordered, fields.getSaltKey()).getRootHash());
+
+        logger.info("  Validating a single field using only its proof...");
+        FieldProof proof = fields.proveField("/address/city");
+        assertEquals("  The proof discloses the wrong value.", "\"Boulder\"", proof.value);
+        FieldProof parsed = new ObjectMapper().readValue(proof.toString(), FieldProof.class);
+        notary.validateField(parsed, seal, certificate, errors);
+        for (String path : Arrays.asList("/name", "/age", "/address/zip", "/roles/0", "/roles/1", "/notes")) {
+            notary.validateField(fields.proveField(path), seal, certificate, errors);
+        }
+        assertTrue("  A valid field proof was rejected: " + errors, errors.isEmpty());
+        parsed.value = "\"Denver\"";
+        notary.validateField(parsed, seal, certificate, errors);
+        assertTrue("  A forged field value was not detected.", errors.containsKey("document.hash.is.invalid"));
+        errors.clear();
+
+        logger.info("  Rehashing the document after small edits...");
+        String rootHash = fields.getRootHash();
+        fields.setField("/address/city", "\"Denver\"");
+        assertFalse("  The root hash did not change.", rootHash.equals(fields.getRootHash()));
+        FieldTree rebuilt = new FieldTree(document.replace("Boulder", "Denver"), fields.getSaltKey());
+        assertEquals("  The updated root hash is wrong.", rebuilt.getRootHash(), fields.getRootHash());
+        fields.setField("/notes/summary", "\"A new note.\"");
+        fields.removeField("/roles");
+        assertEquals("  The wrong number of fields remain.", 5, fields.size());
+        String edited = "{\"name\": \"Jane Doe\", \"age\": 42, \"address\": {\"city\": \"Denver\", \"zip\": \"80302\"}, \"notes\": {\"summary\": \"A new note.\"}}";
+        assertEquals("  The edited root hash is wrong.", new FieldTree(edited, fields.getSaltKey()).getRootHash(), fields.getRootHash());
+        notary.validateFields(fields, seal, certificate, errors);
+        assertTrue("  The edited document was not detected.", errors.containsKey("document.hash.is.invalid"));
+
+        logger.info("  Checking that the fields seal cannot validate the whole document...");
+        errors.clear();
+        notary.validateDocument(document, seal, certificate, errors);
+        assertTrue("  The fields seal validated the whole document.", errors.containsKey("seal.hashing.algorithm.is.not.supported"));
+
+        logger.info("Field notarization test completed.\n");
+    }
+
+
+    @Test
+    public void testAppendedDocument() throws Exception {
+        logger.info("Testing the notarization of an append-only document...");
+
+        logger.info("  Comparing resumed hashes with plain SHA-256 hashes...");
+        Random random = new Random(42);
+        for (int size : new int[] { 0, 1, 55, 56, 63, 64, 65, 119, 120, 1000, 4097 }) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            int split = size == 0 ? 0 : random.nextInt(size);
+            ResumableHasher hasher = new ResumableHasher();
+            hasher.update(Arrays.copyOfRange(bytes, 0, split));
+            String state = hasher.getState();
+            assertEquals("  The hash state contains document bytes.", 40, Base32Utils.decode(state).length);
+            hasher = ResumableHasher.fromState(state);
+            hasher.update(Arrays.copyOfRange(bytes, (int) hasher.getLength(), size));  // re-read the partial block
+            byte[] expected = MessageDigest.getInstance("SHA-256").digest(bytes);
+            assertTrue("  The resumed hash is wrong for " + size + " bytes.", Arrays.equals(expected, hasher.digest()));
+        }
+
+        logger.info("  Notarizing a log file as it grows...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+        ObjectMapper mapper = SmartObject.createMapper();
+        Path file = Files.createTempFile("log", ".txt");
+        try {
+            List<NotarySeal> seals = new ArrayList<>();
+            NotarySeal previous = null;
+            for (int i = 0; i < 4; i++) {
+                StringBuilder builder = new StringBuilder();
+                for (int j = 0; j < 100 * (i + 1); j++) {
+                    builder.append("Entry ").append(i).append('.').append(j).append(" of the log.\n");
+                }
+                Files.write(file, builder.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                NotarySeal seal = notary.notarizeAppendedDocument("Log File", file, previous, notaryKey);
+                previous = mapper.readValue(seal.toString(), NotarySeal.class);  // as if it were stored
+                seals.add(previous);
+            }
+            Map<String, Object> errors = new LinkedHashMap<>();
+            notary.validateDocument(file, previous, certificate, errors);
+            assertTrue("  The last seal does not cover the whole file: " + errors, errors.isEmpty());
+
+            logger.info("  Validating the chain of seals after the file has grown...");
+            Files.write(file, "A trailing entry.\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            previous = null;
+            for (NotarySeal seal : seals) {
+                notary.validateAppendedDocument(file, previous, seal, certificate, errors);
+                previous = seal;
+            }
+            assertTrue("  The chain of seals is invalid: " + errors, errors.isEmpty());
+            notary.validateAppendedDocument(file, seals.get(0), seals.get(2), certificate, errors);
+            assertTrue("  A broken chain was not detected.", errors.containsKey("seal.previous.hash.is.invalid"));
+            errors.clear();
+
+            logger.info("  Verifying that a rewritten file is detected...");
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[10] = (byte) '#';
+            Files.write(file, bytes);
+            notary.validateAppendedDocument(file, null, seals.get(0), certificate, errors);
+            assertTrue("  The rewritten file was not detected.", errors.containsKey("document.hash.is.invalid"));
+            seals.get(0).attributes.put("hashState", seals.get(1).attributes.get("hashState"));
+            try {
+                notary.notarizeAppendedDocument("Log File", file, seals.get(0), notaryKey);
+                fail("  The invalid hash state was not detected.");
+            } catch (ValidationException e) {
+                logger.info("  The invalid hash state was detected.");
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        logger.info("Appended document test completed.\n");
+    }
+
+
+    @Test
+    public void testCoSignedSeal() throws Exception {
+        logger.info("Testing the notarization of documents by several notaries...");
+
+        logger.info("  Generating the notary keys for three notaries...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        List<NotaryKey> notaryKeys = new ArrayList<>();
+        List<NotaryCertificate> certificates = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+            notaryKeys.add(notaryKey);
+            certificates.add(0, notaryKey.verificationCertificate);  // the order does not matter
+        }
+
+        logger.info("  Co-signing a document in parallel with a two of three threshold...");
+        String document = "This is an example contract.";
+        CoSignedSeal seal = notary.notarizeCoSignedDocument("Example Contract", document, notaryKeys, 2);
+        outputExample("CoSignedSeal.json", seal);
+        CoSignedSeal parsed = SmartObject.createMapper().readValue(seal.toString(), CoSignedSeal.class);
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateCoSignedDocument(document, parsed, certificates, errors);
+        assertTrue("  The co-signed seal is invalid: " + errors, errors.isEmpty());
+
+        logger.info("  Validating a seal signed by only some of the notaries...");
+        CoSignedSeal partial = notary.generateCoSignedSeal("Example Contract", document, certificates.subList(0, 3), 2);
+        notary.coSignSeal(partial, notaryKeys.get(2));
+        notary.validateCoSignedDocument(document, partial, certificates, errors);
+        assertTrue("  A seal below its threshold was accepted.", errors.containsKey("seal.signature.threshold.is.not.met"));
+        errors.clear();
+        notary.coSignSeal(partial, notaryKeys.get(0));
+        notary.validateCoSignedDocument(document, partial, certificates, errors);
+        assertTrue("  A seal meeting its threshold was rejected: " + errors, errors.isEmpty());
+
+        logger.info("  Validating a seal with forged and missing signatures...");
+        parsed.signatures.set(1, parsed.signatures.get(0));
+        notary.validateCoSignedDocument(document, parsed, certificates, errors);
+        assertTrue("  A seal with one forged signature was rejected: " + errors, errors.isEmpty());
+        parsed.signatures.set(2, null);
+        notary.validateCoSignedDocument(document, parsed, certificates, errors);
+        assertTrue("  A seal with too few valid signatures was accepted.", errors.containsKey("seal.signature.threshold.is.not.met"));
+        errors.clear();
+        notary.validateCoSignedDocument(document + ".", seal, certificates, errors);
+        assertTrue("  The modified document was not detected.", errors.containsKey("document.hash.is.invalid"));
+
+        logger.info("  Validating a seal that cites the same notary twice...");
+        try {
+            notary.generateCoSignedSeal("Example Contract", document, Arrays.asList(certificates.get(0), certificates.get(0), certificates.get(1)), 2);
+            fail("  A seal citing the same notary twice was generated.");
+        } catch (IllegalArgumentException e) {
+            logger.info("  The duplicate citation was rejected: " + e.getMessage());
+        }
+        CoSignedSeal duplicated = notary.generateCoSignedSeal("Example Contract", document, certificates, 2);
+        duplicated.attributes.verificationCitations.set(1, duplicated.attributes.verificationCitations.get(0));
+        NotaryKey signer = notaryKeys.get(2);  // the certificates were added in reverse order
+        notary.coSignSeal(duplicated, signer);
+        duplicated.signatures.set(1, duplicated.signatures.get(0));
+        notary.validateCoSignedDocument(document, duplicated, certificates, errors);
+        assertTrue("  A seal citing the same notary twice was accepted.", errors.containsKey("seal.verification.citation.is.duplicated"));
+        errors.clear();
+
+        logger.info("  Attempting to co-sign with a notary that is not cited...");
+        try {
+            notary.coSignSeal(partial, notary.generateNotaryKey(baseUri));
+            fail("  The uncited notary was allowed to co-sign.");
+        } catch (ValidationException e) {
+            logger.info("  The uncited notary was rejected.");
+        }
+
+        logger.info("Co-signed seal test completed.\n");
+    }
+
+
+    @Test
+    public void testCertificateHistory() throws Exception {
+        logger.info("Testing the validation of long identity chains using checkpoints...");
+
+        logger.info("  Renewing the notary key for an identity many times...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        IdentityChain chain = new IdentityChain(notary, new URI("http://foo.bar/IdentityManagement"));
+        List<NotaryCertificate> certificates = new ArrayList<>();
+        certificates.add(chain.getNotaryKey().verificationCertificate);
+        for (int i = 1; i < 40; i++) {
+            certificates.add(chain.renewNotaryKey().verificationCertificate);
+            assertTrue("  Too many keys were retained.", chain.getCheckpointKeys().size() <= 7);
+        }
+        NotaryCertificate first = certificates.get(0);
+        NotaryCertificate last = certificates.get(certificates.size() - 1);
+        assertEquals("  The wrong number of checkpoint seals was generated.", 3, certificates.get(24).checkpointSeals.size());
+
+        logger.info("  Validating the last certificate against the first one...");
+        ObjectMapper mapper = SmartObject.createMapper(new NotaryModule());
+        NotaryCertificate parsed = mapper.readValue(mapper.writeValueAsString(last), NotaryCertificate.class);
+        assertEquals("  The checkpoint seals did not survive a round trip.", last.toString(), parsed.toString());
+        AtomicInteger lookups = new AtomicInteger();
+        Map<String, Object> errors = new LinkedHashMap<>();
+        notary.validateCertificateHistory(parsed, first, sequenceNumber -> {
+            lookups.incrementAndGet();
+            return certificates.get(sequenceNumber - 1);
+        }, errors);
+        assertTrue("  The certificate history is invalid: " + errors, errors.isEmpty());
+        assertTrue("  Too many certificates were verified: " + lookups.get(), lookups.get() <= 10);
+        notary.validateCertificateHistory(certificates.get(20), certificates.get(5), sequenceNumber -> certificates.get(sequenceNumber - 1), errors);
+        assertTrue("  The partial certificate history is invalid: " + errors, errors.isEmpty());
+
+        logger.info("  Validating a chain without checkpoint seals...");
+        List<NotaryCertificate> plain = new ArrayList<>();
+        NotaryKey plainKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        plain.add(plainKey.verificationCertificate);
+        for (int i = 1; i < 8; i++) {
+            plainKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"), plainKey);
+            plain.add(plainKey.verificationCertificate);
+        }
+        lookups.set(0);
+        notary.validateCertificateHistory(plain.get(7), plain.get(0), sequenceNumber -> {
+            lookups.incrementAndGet();
+            return plain.get(sequenceNumber - 1);
+        }, errors);
+        assertTrue("  The plain certificate history is invalid: " + errors, errors.isEmpty());
+        assertEquals("  The plain chain was not walked one certificate at a time.", 6, lookups.get());
+
+        logger.info("  Validating a certificate from a forged chain...");
+        NotaryKey forgedKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        NotaryKey forgedNextKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"), forgedKey);
+        NotaryCertificate forged = forgedNextKey.verificationCertificate;
+        forged.attributes.identityLocation = first.attributes.identityLocation;
+        forged.selfSignature = notary.generateDocumentSignature(forged.attributes.toString(), forgedNextKey);
+        forged.certificationSeal = notary.notarizeDocument("Self Signature", forged.selfSignature, forgedKey);
+        notary.validateCertificateHistory(forged, first, sequenceNumber -> certificates.get(sequenceNumber - 1), errors);
+        assertFalse("  The forged certificate was accepted.", errors.isEmpty());
+
+        logger.info("Certificate history test completed.\n");
+    }
+
+
     void outputExample(String filename, Object object) {
         File examples = new File("target/examples");
         examples.mkdirs();
@@ -0,0 +1,86 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.benchmarks;
+
+import craterdog.notary.LocationGenerator;
+import craterdog.notary.ThreadLocalLocationGenerator;
+import craterdog.primitives.Tag;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * This class measures how the generation of certificate locations scales with the number of
+ * threads, comparing the shared random source used by <code>new Tag()</code> with the per-thread
+ * generators of the <code>ThreadLocalLocationGenerator</code> class.  The optional command line
+ * argument is the number of seconds to run each measurement.
+ *
+ * @author Derk Norton
+ */
+public final class LocationGeneratorBenchmark {
+
+    static private final URI baseUri = URI.create("http://foo.bar/IdentityManagement");
+
+    private LocationGeneratorBenchmark() {
+    }
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args The number of seconds to run each measurement.
+     * @throws Exception The benchmark could not be run.
+     */
+    static public void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+        LocationGenerator sharedGenerator = (base, category) -> URI.create(base + "/" + category + "/" + new Tag());
+        LocationGenerator threadLocalGenerator = new ThreadLocalLocationGenerator();
+        System.out.printf("%8s %20s %20s%n", "threads", "shared (ops/s)", "thread local (ops/s)");
+        for (int threads = 1; threads <= 2 * cores; threads *= 2) {
+            double shared = measure(sharedGenerator, threads, seconds);
+            double threadLocal = measure(threadLocalGenerator, threads, seconds);
+            System.out.printf("%8d %20.0f %20.0f%n", threads, shared, threadLocal);
+        }
+    }
+
+
+    static private double measure(LocationGenerator generator, int threads, long seconds) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long durationNanos = seconds * 1_000_000_000L;
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long end = System.nanoTime() + durationNanos;
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    generator.generateLocation(baseUri, "certificate");
+                    count++;
+                }
+                operations.add(count);
+            });
+            workers[i].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+}
@@ -0,0 +1,77 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.benchmarks;
+
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * This class measures the time it takes a freshly started process to produce its first notary
+ * seal, and the latency of the first few seals that follow.  Since the cost being measured is
+ * the one time initialization of the process, each measurement requires a new JVM.  Run it once
+ * without arguments and once with the argument <code>warm</code> to compare a cold provider
+ * with one that was warmed up (the warm up time is reported separately).
+ *
+ * @author Derk Norton
+ */
+public final class StartupBenchmark {
+
+    static private final URI baseUri = URI.create("http://foo.bar/IdentityManagement");
+
+    private StartupBenchmark() {
+    }
+
+
+    /**
+     * This method runs the benchmark.
+     *
+     * @param args The optional argument <code>warm</code>.
+     * @throws Exception The benchmark could not be run.
+     */
+    static public void main(String[] args) throws Exception {
+        boolean warm = args.length > 0 && args[0].equals("warm");
+        long begin = System.nanoTime();
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        if (warm) {
+            notary.warmUp();
+            System.out.printf("%-28s %10.1f ms%n", "warm up:", elapsed(begin));
+        }
+
+        long start = System.nanoTime();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        System.out.printf("%-28s %10.1f ms%n", "first notary key:", elapsed(start));
+
+        for (int i = 1; i <= 5; i++) {
+            start = System.nanoTime();
+            String document = "This is example document number " + i + ".";
+            NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+            Map<String, Object> errors = new LinkedHashMap<>();
+            notary.validateDocument(document, seal, notaryKey.verificationCertificate, errors);
+            notary.throwExceptionOnErrors("invalid.seal", errors);
+            System.out.printf("%-28s %10.1f ms%n", "seal " + i + " (sign and verify):", elapsed(start));
+        }
+
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.printf("%-28s %10.1f ms%n", "main to last seal:", elapsed(begin));
+        System.out.printf("%-28s %10d ms%n", "JVM uptime:", uptime);
+    }
+
+
+    static private double elapsed(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+}
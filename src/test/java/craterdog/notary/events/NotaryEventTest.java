@@ -0,0 +1,154 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.events;
+
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the flight recorder events.
+ *
+ * @author Derk Norton
+ */
+public class NotaryEventTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(NotaryEventTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running NotaryEvent Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("NotaryEvent Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testRecording() throws Exception {
+        logger.info("Testing the recording of the notary events...");
+
+        logger.info("  Starting a recording using the bundled profile...");
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("notary.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        Path file = Files.createTempFile("notary", ".jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+
+            logger.info("  Generating, serializing and deserializing a notary key...");
+            V1NotarizationProvider notary = new V1NotarizationProvider();
+            NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+            char[] password = "secret".toCharArray();
+            notaryKey = notary.deserializeNotaryKey(notary.serializeNotaryKey(notaryKey, password), password);
+
+            logger.info("  Notarizing a document and validating it twice...");
+            String document = "This is an example document.";
+            NotarySeal seal = notary.notarizeDocument("Example Document", document, notaryKey);
+            notary.validateDocument(document, seal, notaryKey.verificationCertificate, new LinkedHashMap<>());
+            notary.validateDocument("This is a forged document.", seal, notaryKey.verificationCertificate, new LinkedHashMap<>());
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        logger.info("  Reading the recorded events...");
+        Map<String, Integer> counts = new HashMap<>();
+        String location = null;
+        try {
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                String name = event.getEventType().getName();
+                if (!name.startsWith("craterdog.notary.")) continue;
+                counts.merge(name, 1, Integer::sum);
+                if (name.equals("craterdog.notary.Notarization")) {
+                    assertEquals("  The document type is wrong.", "Example Document", event.getString("documentType"));
+                    assertEquals("  The document size is wrong.", 28L, event.getLong("documentSize"));
+                    assertEquals("  The outcome is wrong.", NotaryEvent.SUCCESS, event.getString("outcome"));
+                    location = event.getString("certificateLocation");
+                }
+                if (name.equals("craterdog.notary.Validation") && !event.getString("outcome").equals(NotaryEvent.SUCCESS)) {
+                    assertEquals("  The failed validation has the wrong outcome.", "document.hash.is.invalid", event.getString("outcome"));
+                    assertTrue("  The verification was not timed.", event.getLong("verificationDuration") > 0);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals("  The key generation was not recorded.", Integer.valueOf(1), counts.get("craterdog.notary.KeyGeneration"));
+        assertEquals("  The key serialization was not recorded.", Integer.valueOf(1), counts.get("craterdog.notary.KeySerialization"));
+        assertEquals("  The key deserialization was not recorded.", Integer.valueOf(1), counts.get("craterdog.notary.KeyDeserialization"));
+        assertEquals("  The notarization was not recorded.", Integer.valueOf(1), counts.get("craterdog.notary.Notarization"));
+        assertEquals("  The validations were not recorded.", Integer.valueOf(2), counts.get("craterdog.notary.Validation"));
+        assertTrue("  The certificate location was not recorded.", location.startsWith("http://foo.bar/IdentityManagement/certificate/"));
+
+        logger.info("Recording test completed.\n");
+    }
+
+
+    @Test
+    public void testFlightRecorderIsOptional() throws Exception {
+        logger.info("Testing that the provider does not depend on the flight recorder...");
+
+        logger.info("  Checking that the flight recorder was detected...");
+        assertTrue("  The flight recorder was not detected.", NotaryEvents.isFlightRecorderAvailable());
+
+        logger.info("  Checking that the provider does not link against the flight recorder...");
+        String resource = "/" + V1NotarizationProvider.class.getName().replace('.', '/') + ".class";
+        try (InputStream input = getClass().getResourceAsStream(resource)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+                output.write(buffer, 0, count);
+            }
+            String constants = new String(output.toByteArray(), StandardCharsets.ISO_8859_1);
+            assertFalse("  The provider refers to the flight recorder.", constants.contains("jdk/jfr/"));
+            assertFalse("  The provider refers to a flight recorder event.", constants.contains("craterdog/notary/events/Jfr"));
+        }
+
+        logger.info("Optional flight recorder test completed.\n");
+    }
+
+}
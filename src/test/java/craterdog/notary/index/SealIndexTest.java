@@ -0,0 +1,115 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.index;
+
+import craterdog.notary.DocumentHasher;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>SealIndex</code> class.
+ *
+ * @author Derk Norton
+ */
+public class SealIndexTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SealIndexTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running SealIndex Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("SealIndex Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testIndexAndReopen() throws Exception {
+        logger.info("Testing the indexing of document hashes...");
+
+        int count = 20000;
+        byte[][] hashes = new byte[count][DocumentHasher.DIGEST_LENGTH];
+        Random random = new Random(42);
+        for (byte[] hash : hashes) {
+            random.nextBytes(hash);
+        }
+
+        Path file = Files.createTempFile("seals", ".index");
+        Files.delete(file);  // let the index create the file
+        try {
+            logger.info("  Indexing the document hashes while they are being looked up...");
+            try (SealIndex index = new SealIndex(file, count)) {
+                AtomicBoolean writing = new AtomicBoolean(true);
+                AtomicLong mismatches = new AtomicLong();
+                Thread reader = new Thread(() -> {
+                    while (writing.get()) {
+                        for (int i = 0; i < count; i += 97) {
+                            long reference = index.get(hashes[i]);
+                            if (reference != -1 && reference != i * 10L) mismatches.incrementAndGet();
+                        }
+                    }
+                });
+                reader.start();
+                for (int i = 0; i < count; i++) {
+                    assertEquals("  The document hash was already indexed.", -1, index.put(hashes[i], i * 10L));
+                }
+                writing.set(false);
+                reader.join();
+                assertEquals("  A lookup returned the wrong reference.", 0, mismatches.get());
+                assertEquals("  The index has the wrong size.", count, index.size());
+            }
+
+            logger.info("  Reopening the index and looking up the document hashes...");
+            try (SealIndex index = new SealIndex(file, 0)) {
+                assertEquals("  The reopened index has the wrong size.", count, index.size());
+                for (int i = 0; i < count; i++) {
+                    assertEquals("  A document hash has the wrong reference.", i * 10L, index.get(hashes[i]));
+                }
+                byte[] missing = new byte[DocumentHasher.DIGEST_LENGTH];
+                random.nextBytes(missing);
+                assertFalse("  A missing document hash was found.", index.contains(missing));
+
+                logger.info("  Replacing a reference...");
+                assertEquals("  The previous reference is wrong.", 50L, index.put(hashes[5], 7L));
+                assertTrue("  The replaced document hash is missing.", index.contains(hashes[5]));
+                assertEquals("  The reference was not replaced.", 7L, index.get(hashes[5]));
+                assertEquals("  The replacement changed the size.", count, index.size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        logger.info("Seal index test completed.\n");
+    }
+
+}
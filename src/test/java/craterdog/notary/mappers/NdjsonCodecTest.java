@@ -0,0 +1,123 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import craterdog.notary.Notarization;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>NdjsonCodec</code> class.
+ *
+ * @author Derk Norton
+ */
+public class NdjsonCodecTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(NdjsonCodecTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running NdjsonCodec Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("NdjsonCodec Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testBulkRoundTrip() throws Exception {
+        logger.info("Testing the bulk export and import of notary seals...");
+
+        logger.info("  Notarizing the documents...");
+        Notarization notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+        List<NotarySeal> seals = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            seals.add(notary.notarizeDocument("Example Document", "Document " + i, notaryKey));
+        }
+
+        Path file = Files.createTempFile("seals", ".ndjson");
+        try {
+            logger.info("  Exporting the notary seals...");
+            NdjsonCodec<NotarySeal> codec = NdjsonCodec.forSeals();
+            try (OutputStream output = Files.newOutputStream(file);
+                    NdjsonCodec<NotarySeal>.RecordWriter writer = codec.createWriter(output)) {
+                for (NotarySeal seal : seals) {
+                    writer.write(seal);
+                }
+            }
+            assertEquals("  The wrong number of lines were written.", seals.size(), Files.readAllLines(file).size());
+
+            logger.info("  Importing the notary seals sequentially...");
+            try (InputStream input = Files.newInputStream(file)) {
+                Iterator<NotarySeal> iterator = codec.read(input);
+                for (NotarySeal seal : seals) {
+                    assertEquals("  The round trip failed.", seal, iterator.next());
+                }
+                assertFalse("  Too many notary seals were read.", iterator.hasNext());
+            }
+
+            logger.info("  Validating the notary seals in parallel...");
+            try (Stream<NotarySeal> stream = codec.stream(file, true)) {
+                long valid = stream.filter(seal -> {
+                    Map<String, Object> errors = new LinkedHashMap<>();
+                    String document = "Document " + seals.indexOf(seal);
+                    notary.validateDocument(document, seal, certificate, errors);
+                    return errors.isEmpty();
+                }).count();
+                assertEquals("  Not all notary seals were valid.", seals.size(), valid);
+            }
+
+            logger.info("  Verifying the parallel stream order...");
+            try (Stream<NotarySeal> stream = codec.stream(file, true)) {
+                assertTrue("  The parallel stream was not ordered.", seals.equals(stream.collect(Collectors.toList())));
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        logger.info("Bulk export and import test completed.\n");
+    }
+
+}
@@ -0,0 +1,114 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.mappers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import craterdog.smart.SmartObject;
+import java.net.URI;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>NotaryModule</code> class.
+ *
+ * @author Derk Norton
+ */
+public class NotaryModuleTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(NotaryModuleTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running NotaryModule Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("NotaryModule Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testFieldByFieldMarshaling() throws Exception {
+        logger.info("Testing that the notary types are marshaled exactly like beans...");
+
+        logger.info("  Creating a bean mapper that only knows how to marshal the keys...");
+        SimpleModule keys = new SimpleModule("KeyModule");
+        keys.addSerializer(PublicKey.class, new PublicKeySerializer());
+        keys.addDeserializer(PublicKey.class, new PublicKeyDeserializer());
+        keys.addSerializer(PrivateKey.class, new PrivateKeySerializer());
+        keys.addDeserializer(PrivateKey.class, new PrivateKeyDeserializer());
+        ObjectMapper beanMapper = SmartObject.createMapper(keys);
+        ObjectMapper notaryMapper = SmartObject.createMapper(new NotaryModule());
+
+        logger.info("  Generating a renewed notary key and a seal with additional attributes...");
+        URI baseUri = new URI("http://foo.bar/IdentityManagement");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        Map<String, Object> additional = new LinkedHashMap<>();
+        additional.put("name", "Example Notary");
+        additional.put("missing", null);
+        additional.put("roles", Arrays.asList("signer", "auditor"));
+        NotaryKey previousKey = notary.generateNotaryKey(baseUri);
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri, additional, previousKey);
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+        NotarySeal seal = notary.notarizeDocument("Example Document", "This is an example document.", notaryKey);
+        seal.attributes.put("department", "Legal");
+        seal.attributes.previousSealHash = seal.attributes.documentHash;
+
+        logger.info("  Comparing the marshaled forms...");
+        for (Object object : Arrays.asList(seal, certificate, notaryKey.verificationCitation, seal.attributes.watermark)) {
+            String expected = beanMapper.writeValueAsString(object);
+            assertEquals("  The marshaled form has changed.", expected, notaryMapper.writeValueAsString(object));
+            assertEquals("  The marshaled form differs from the string form.", expected, object.toString());
+        }
+
+        logger.info("  Comparing the unmarshaled forms...");
+        String json = certificate.toString();
+        NotaryCertificate parsed = notaryMapper.readValue(json, NotaryCertificate.class);
+        assertEquals("  The unmarshaled certificate is different.", beanMapper.readValue(json, NotaryCertificate.class).toString(), parsed.toString());
+        assertEquals("  The additional attributes were lost.", "Example Notary", parsed.attributes.get("name"));
+        assertEquals("  The round trip changed the certificate.", json, parsed.toString());
+        NotarySeal parsedSeal = notaryMapper.readValue(seal.toString(), NotarySeal.class);
+        assertEquals("  The round trip changed the seal.", seal.toString(), parsedSeal.toString());
+
+        logger.info("  Validating the certificate chain after the round trip...");
+        Map<String, Object> errors = new LinkedHashMap<>();
+        NotaryCertificate previous = notaryMapper.readValue(previousKey.verificationCertificate.toString(), NotaryCertificate.class);
+        notary.validateNotaryCertificate(parsed, previous, errors);
+        assertTrue("  The unmarshaled certificate is invalid.", errors.isEmpty());
+
+        logger.info("Field by field marshaling test completed.\n");
+    }
+
+}
@@ -0,0 +1,160 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * This class generates load against the notarize endpoint of a running <code>NotaryServer</code>
+ * and reports the latency percentiles and throughput of the requests.  The command line
+ * arguments are the base URL of the service, the number of client threads, the duration of
+ * the run in seconds and the size of each document in bytes.
+ *
+ * @author Derk Norton
+ */
+public final class NotaryLoadGenerator {
+
+    private final URL notarizeUrl;
+    private final int threads;
+    private final long durationNanos;
+    private final byte[] document;
+    private final AtomicLong failures = new AtomicLong();
+
+
+    /**
+     * This constructor creates a new load generator.
+     *
+     * @param baseUrl The base URL of the notary service.
+     * @param threads The number of concurrent client threads.
+     * @param durationSeconds The duration of the run in seconds.
+     * @param documentSize The size of each document in bytes.
+     * @throws IOException The base URL is not valid.
+     */
+    public NotaryLoadGenerator(String baseUrl, int threads, int durationSeconds, int documentSize) throws IOException {
+        this.notarizeUrl = new URL(baseUrl + "/notarize?documentType=Load%20Test");
+        this.threads = threads;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.document = new byte[documentSize];
+        Arrays.fill(this.document, (byte) 'x');
+    }
+
+
+    /**
+     * This method runs the load test and prints a report of the results.
+     *
+     * @throws InterruptedException The run was interrupted.
+     */
+    public void run() throws InterruptedException {
+        long[][] latencies = new long[threads][];
+        int[] counts = new int[threads];
+        Thread[] clients = new Thread[threads];
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        for (int i = 0; i < threads; i++) {
+            final int client = i;
+            clients[i] = new Thread(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < end) {
+                    long before = System.nanoTime();
+                    boolean succeeded = notarize();
+                    long latency = System.nanoTime() - before;
+                    if (!succeeded) {
+                        failures.incrementAndGet();
+                        continue;
+                    }
+                    if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                    samples[count++] = latency;
+                }
+                latencies[client] = samples;
+                counts[client] = count;
+            }, "load-client-" + i);
+            clients[i].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        for (int count : counts) total += count;
+        long[] all = new long[total];
+        int offset = 0;
+        for (int i = 0; i < threads; i++) {
+            System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("requests:   %d (%d failed)%n", total, failures.get());
+        System.out.printf("throughput: %.1f seals/second%n", total / elapsedSeconds);
+        System.out.printf("p50:        %.3f ms%n", percentile(all, 0.50));
+        System.out.printf("p99:        %.3f ms%n", percentile(all, 0.99));
+        System.out.printf("p999:       %.3f ms%n", percentile(all, 0.999));
+        System.out.printf("max:        %.3f ms%n", total == 0 ? 0.0 : all[total - 1] / 1e6);
+    }
+
+
+    /**
+     * This method runs the load generator from the command line.
+     *
+     * @param args The base URL, thread count, duration in seconds and document size.
+     * @throws Exception The load test could not be run.
+     */
+    static public void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int documentSize = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+        new NotaryLoadGenerator(baseUrl, threads, durationSeconds, documentSize).run();
+    }
+
+
+    private boolean notarize() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) notarizeUrl.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(document);
+            }
+            int status = connection.getResponseCode();
+            InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (input != null) {
+                try (InputStream body = input) {
+                    byte[] buffer = new byte[8192];
+                    while (body.read(buffer) > 0) {
+                        // drain the response so the connection can be reused
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+
+    static private double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+}
@@ -0,0 +1,345 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.server;
+
+import craterdog.notary.LocalSigningBackend;
+import craterdog.notary.Notarization;
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.SigningBackend;
+import craterdog.notary.V1NotarizationProvider;
+import craterdog.notary.server.NotarizationScheduler.Priority;
+import craterdog.smart.SmartObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>NotaryServer</code> class.
+ *
+ * @author Derk Norton
+ */
+public class NotaryServerTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(NotaryServerTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running NotaryServer Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("NotaryServer Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        logger.info("Testing a round trip through the notary service...");
+
+        Notarization notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        try (NotaryServer server = new NotaryServer(new InetSocketAddress("localhost", 0), notary, notaryKey, 16, 5)) {
+            server.start();
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+            logger.info("  Fetching the notary certificate...");
+            String json = send("GET", baseUrl + "/certificate", null);
+            NotaryCertificate certificate = SmartObject.fromString(NotaryCertificate.class, json);
+            assertEquals("  The wrong certificate was returned.", notaryKey.verificationCertificate, certificate);
+
+            logger.info("  Notarizing a document...");
+            String document = "This is a very important legal document that must be notarized!";
+            json = send("POST", baseUrl + "/notarize?documentType=Example%20Document", document);
+            NotarySeal seal = SmartObject.fromString(NotarySeal.class, json);
+            Map<String, Object> errors = new LinkedHashMap<>();
+            notary.validateDocument(document, seal, certificate, errors);
+            assertTrue("  Invalid notary seal.", errors.isEmpty());
+
+            logger.info("  Validating the document using the service...");
+            String request = "{\"document\":\"" + document + "\",\"seal\":" + seal + "}";
+            json = send("POST", baseUrl + "/validate", request);
+            assertTrue("  The notary seal was not valid.", json.contains("true"));
+            assertTrue("  The certificate was not named.", json.contains(certificate.attributes.myLocation.toString()));
+
+            logger.info("  Validating the document against a different certificate...");
+            request = "{\"document\":\"" + document + "\",\"seal\":" + seal + ",\"certificate\":" + certificate + "}";
+            assertEquals("  The certificate of this notary was refused.", 200, getStatus("POST", baseUrl + "/validate", request));
+            NotaryKey otherKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+            seal = notary.notarizeDocument("Example Document", document, otherKey);
+            request = "{\"document\":\"" + document + "\",\"seal\":" + seal + ",\"certificate\":" + otherKey.verificationCertificate + "}";
+            assertEquals("  An untrusted certificate was accepted.", 403, getStatus("POST", baseUrl + "/validate", request));
+        }
+
+        logger.info("Notary service round trip test completed.\n");
+    }
+
+
+    @Test
+    public void testBadRequests() throws Exception {
+        logger.info("Testing the rejection of bad requests by the notary service...");
+
+        Notarization notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        try (NotaryServer server = new NotaryServer(new InetSocketAddress("localhost", 0), notary, notaryKey, 16, 5)) {
+            server.start();
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+            logger.info("  Validating malformed requests...");
+            assertEquals("  Malformed JSON was not rejected.", 400, getStatus("POST", baseUrl + "/validate", "{\"document\":"));
+            assertEquals("  A missing body was not rejected.", 400, getStatus("POST", baseUrl + "/validate", ""));
+            assertEquals("  A malformed seal was not rejected.", 400, getStatus("POST", baseUrl + "/validate", "{\"seal\":[1,2]}"));
+
+            logger.info("  Notarizing a document that is too large...");
+            char[] document = new char[2 * 1024 * 1024];
+            Arrays.fill(document, 'x');
+            assertEquals("  A large document was not rejected.", 413,
+                    getStatus("POST", baseUrl + "/notarize?documentType=Example%20Document", new String(document)));
+        }
+
+        logger.info("Bad request test completed.\n");
+    }
+
+
+    @Test
+    public void testScheduler() throws Exception {
+        logger.info("Testing the admission control of the notarization scheduler...");
+
+        logger.info("  Creating a scheduler whose signing threads block until released...");
+        int cores = Runtime.getRuntime().availableProcessors();
+        CountDownLatch busy = new CountDownLatch(cores);
+        CountDownLatch release = new CountDownLatch(1);
+        SigningBackend localBackend = new LocalSigningBackend();
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        notary = notary.withSigningBackend((key, bytes) -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return localBackend.signBytes(key, bytes);
+        });
+        try (NotarizationScheduler scheduler = new NotarizationScheduler(notary, notaryKey, 2, 2, 4)) {
+            List<CompletableFuture<NotarySeal>> accepted = new ArrayList<>();
+            for (int i = 0; i < cores; i++) {
+                accepted.add(scheduler.notarizeDocument(Priority.BULK, "Example Document", "Document " + i, 60000));
+            }
+            busy.await();
+
+            logger.info("  Filling the queues...");
+            CompletableFuture<NotarySeal> stale = scheduler.notarizeDocument(Priority.INTERACTIVE, "Example Document", "Stale", 0);
+            accepted.add(scheduler.notarizeDocument(Priority.INTERACTIVE, "Example Document", "Interactive", 60000));
+            accepted.add(scheduler.notarizeDocument(Priority.BULK, "Example Document", "Bulk", 60000));
+            accepted.add(scheduler.notarizeDocument(Priority.BULK, "Example Document", "Bulk", 60000));
+            assertEquals("  The interactive queue depth is wrong.", 2, scheduler.getQueueDepth(Priority.INTERACTIVE));
+            assertEquals("  The bulk queue depth is wrong.", 2, scheduler.getQueueDepth(Priority.BULK));
+            CompletableFuture<NotarySeal> full = scheduler.notarizeDocument(Priority.BULK, "Example Document", "Overflow", 60000);
+            assertEquals("  The full queue was not detected.", "notarization.queue.is.full", getRejection(full));
+
+            logger.info("  Releasing the signing threads...");
+            release.countDown();
+            for (CompletableFuture<NotarySeal> seal : accepted) {
+                assertEquals("  The wrong seal was returned.", "Example Document", seal.get(30, TimeUnit.SECONDS).attributes.documentType);
+            }
+            assertEquals("  The passed deadline was not detected.", "notarization.deadline.has.passed", getRejection(stale));
+            assertEquals("  The interactive rejections were not counted.", 1, scheduler.getRejectionCount(Priority.INTERACTIVE));
+            assertEquals("  The bulk rejections were not counted.", 1, scheduler.getRejectionCount(Priority.BULK));
+            assertTrue("  The wait time was not measured.", scheduler.getAverageWaitMillis(Priority.BULK) > 0.0);
+        }
+
+        logger.info("Notarization scheduler test completed.\n");
+    }
+
+
+    @Test
+    public void testSchedulerFailures() throws Exception {
+        logger.info("Testing that signing failures do not stop the notarization scheduler...");
+
+        logger.info("  Creating a scheduler whose signing backend throws errors...");
+        SigningBackend localBackend = new LocalSigningBackend();
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        notary = notary.withSigningBackend((key, bytes) -> {
+            if (new String(bytes, StandardCharsets.UTF_8).contains("Broken Document")) {
+                throw new AssertionError("The signing backend failed.");
+            }
+            return localBackend.signBytes(key, bytes);
+        });
+        try (NotarizationScheduler scheduler = new NotarizationScheduler(notary, notaryKey, 2, 2, 4)) {
+
+            logger.info("  Failing a request on every signing thread...");
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int i = 0; i < cores; i++) {
+                try {
+                    scheduler.notarizeDocument(Priority.BULK, "Broken Document", "Document " + i, 60000).get(30, TimeUnit.SECONDS);
+                    fail("  The failed request should have completed exceptionally.");
+                } catch (ExecutionException e) {
+                    assertTrue("  The wrong exception was thrown.", e.getCause() instanceof AssertionError);
+                }
+            }
+
+            logger.info("  Notarizing a document after the failures...");
+            NotarySeal seal = scheduler.notarizeDocument(Priority.INTERACTIVE, "Example Document", "Document", 60000).get(30, TimeUnit.SECONDS);
+            assertEquals("  The wrong seal was returned.", "Example Document", seal.attributes.documentType);
+        }
+
+        logger.info("Notarization scheduler failure test completed.\n");
+    }
+
+
+    @Test
+    public void testSchedulerTimeouts() throws Exception {
+        logger.info("Testing the notarization scheduler with extreme timeouts...");
+
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        try (NotarizationScheduler scheduler = new NotarizationScheduler(notary, notaryKey, 2, 2, 4)) {
+
+            logger.info("  Notarizing documents that have no effective deadline...");
+            for (Priority priority : Priority.values()) {
+                NotarySeal seal = scheduler.notarizeDocument(priority, "Example Document", "Document", Long.MAX_VALUE).get(30, TimeUnit.SECONDS);
+                assertEquals("  The wrong seal was returned.", "Example Document", seal.attributes.documentType);
+            }
+
+            logger.info("  Notarizing a document whose deadline has already passed...");
+            CompletableFuture<NotarySeal> seal = scheduler.notarizeDocument(Priority.INTERACTIVE, "Example Document", "Document", Long.MIN_VALUE);
+            String rejection = getRejection(seal);
+            assertTrue("  The passed deadline was not detected: " + rejection, rejection != null && rejection.startsWith("notarization.deadline."));
+        }
+
+        logger.info("Notarization scheduler timeout test completed.\n");
+    }
+
+
+    @Test
+    public void testBatcherFailures() throws Exception {
+        logger.info("Testing that signing failures do not strand the rest of a batch...");
+
+        logger.info("  Creating a batcher whose signing backend throws errors...");
+        SigningBackend localBackend = new LocalSigningBackend();
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        notary = notary.withSigningBackend((key, bytes) -> {
+            if (new String(bytes, StandardCharsets.UTF_8).contains("Broken Document")) {
+                throw new AssertionError("The signing backend failed.");
+            }
+            return localBackend.signBytes(key, bytes);
+        });
+        int cores = Runtime.getRuntime().availableProcessors();
+        try (SealBatcher batcher = new SealBatcher(notary, notaryKey, 4 * cores, 1000)) {
+
+            logger.info("  Failing the first request of every slice in a batch...");
+            List<CompletableFuture<NotarySeal>> seals = new ArrayList<>();
+            for (int i = 0; i < 4 * cores; i++) {
+                seals.add(batcher.notarizeDocument(i % 4 == 0 ? "Broken Document" : "Example Document", "Document " + i));
+            }
+            for (int i = 0; i < seals.size(); i++) {
+                if (i % 4 == 0) {
+                    try {
+                        seals.get(i).get(30, TimeUnit.SECONDS);
+                        fail("  The failed request should have completed exceptionally.");
+                    } catch (ExecutionException e) {
+                        assertTrue("  The wrong exception was thrown.", e.getCause() instanceof AssertionError);
+                    }
+                } else {
+                    NotarySeal seal = seals.get(i).get(30, TimeUnit.SECONDS);
+                    assertEquals("  The wrong seal was returned.", "Example Document", seal.attributes.documentType);
+                }
+            }
+        }
+
+        logger.info("Seal batcher failure test completed.\n");
+    }
+
+
+    private String getRejection(CompletableFuture<NotarySeal> seal) throws Exception {
+        try {
+            seal.get(30, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            assertTrue("  The wrong exception was thrown.", e.getCause() instanceof RejectedNotarizationException);
+            return e.getCause().getMessage();
+        }
+    }
+
+
+    private int getStatus(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setDoOutput(true);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(bytes);
+        } catch (IOException e) {
+            // the service may refuse the request before reading all of it
+        }
+        return connection.getResponseCode();
+    }
+
+
+    private String send(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals("  The request failed.", 200, connection.getResponseCode());
+        try (InputStream input = connection.getInputStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+                output.write(buffer, 0, count);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.signing;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.V1NotarizationProvider;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>DaemonSigningBackend</code> class.
+ *
+ * @author Derk Norton
+ */
+public class DaemonSigningBackendTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(DaemonSigningBackendTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running DaemonSigningBackend Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("DaemonSigningBackend Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testPipelinedSigning() throws Exception {
+        logger.info("Testing pipelined signing using a signing daemon...");
+
+        logger.info("  Generating a new notary key...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        NotaryCertificate certificate = notaryKey.verificationCertificate;
+
+        logger.info("  Starting the signing daemon...");
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", 0));
+        try (SigningDaemon daemon = new SigningDaemon(serverChannel);
+                DaemonSigningBackend backend = new DaemonSigningBackend(serverChannel.getLocalAddress(), 10000)) {
+            daemon.addNotaryKey(notaryKey);
+
+            logger.info("  Notarizing documents without the signing key in the application...");
+            NotaryKey publicKey = new NotaryKey();
+            publicKey.watermark = notaryKey.watermark;
+            publicKey.verificationCertificate = certificate;
+            publicKey.verificationCitation = notaryKey.verificationCitation;
+            V1NotarizationProvider remoteNotary = notary.withSigningBackend(backend);
+            List<CompletableFuture<NotarySeal>> seals = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String document = "Document number " + i;
+                seals.add(CompletableFuture.supplyAsync(() -> remoteNotary.notarizeDocument("Example Document", document, publicKey)));
+            }
+
+            logger.info("  Verifying the notary seals...");
+            for (int i = 0; i < seals.size(); i++) {
+                Map<String, Object> errors = new LinkedHashMap<>();
+                notary.validateDocument("Document number " + i, seals.get(i).get(), certificate, errors);
+                assertTrue("  Invalid notary seal.", errors.isEmpty());
+            }
+
+            logger.info("  Verifying that an unknown key is rejected...");
+            daemon.removeNotaryKey(notaryKey);
+            try {
+                remoteNotary.notarizeDocument("Example Document", "Another document", publicKey);
+                fail("  The unknown key should have caused a failure.");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        }
+
+        logger.info("Pipelined signing test completed.\n");
+    }
+
+
+    @Test
+    public void testSigningTimeout() throws Exception {
+        logger.info("Testing signing requests that time out...");
+
+        logger.info("  Connecting to a signing daemon that never responds...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress("localhost", 0));
+            try (DaemonSigningBackend backend = new DaemonSigningBackend(serverChannel.getLocalAddress(), 100)) {
+
+                logger.info("  Verifying that timed out requests are forgotten...");
+                for (int i = 0; i < 3; i++) {
+                    try {
+                        backend.signBytes(notaryKey, new byte[] { (byte) i });
+                        fail("  The signing request should have timed out.");
+                    } catch (RuntimeException e) {
+                        // expected
+                    }
+                }
+                assertEquals("  The timed out requests are still pending.", 0, backend.getOutstandingRequests());
+            }
+        }
+
+        logger.info("Signing timeout test completed.\n");
+    }
+
+
+    @Test
+    public void testClose() throws Exception {
+        logger.info("Testing the closing of a backend with outstanding requests...");
+
+        logger.info("  Connecting to a signing daemon that never responds...");
+        URI keyLocation = new URI("http://foo.bar/IdentityManagement");
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress("localhost", 0));
+            DaemonSigningBackend backend = new DaemonSigningBackend(serverChannel.getLocalAddress(), 60000);
+            List<CompletableFuture<byte[]>> signatures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                signatures.add(backend.signBytes(keyLocation, new byte[] { (byte) i }));
+            }
+
+            logger.info("  Verifying that closing the backend fails the outstanding requests...");
+            backend.close();
+            for (CompletableFuture<byte[]> signature : signatures) {
+                try {
+                    signature.get(30, TimeUnit.SECONDS);
+                    fail("  The outstanding request should have failed.");
+                } catch (ExecutionException e) {
+                    // expected
+                }
+            }
+            assertEquals("  Requests are still pending.", 0, backend.getOutstandingRequests());
+            assertTrue("  A request after closing did not fail.", backend.signBytes(keyLocation, new byte[] { 0 }).isCompletedExceptionally());
+        }
+
+        logger.info("Backend close test completed.\n");
+    }
+
+}
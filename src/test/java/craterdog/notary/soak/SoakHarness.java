@@ -0,0 +1,359 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.soak;
+
+import craterdog.notary.NotaryCertificate;
+import craterdog.notary.NotaryKey;
+import craterdog.notary.NotarySeal;
+import craterdog.notary.RotatingNotaryKey;
+import craterdog.notary.V1NotarizationProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+
+/**
+ * This class drives a <code>V1NotarizationProvider</code> with a mixed workload for a long
+ * period of time to show how it behaves under sustained load: a mix of document sizes, a ratio
+ * of validations to notarizations, many concurrent threads, and key rotations in the middle of
+ * the run.  The latency of each operation is recorded in an HdrHistogram and the heap and
+ * garbage collection are sampled at a regular interval.  The output directory receives:
+ * <ul>
+ * <li><code>[operation].hlog</code> - the interval histograms of each operation, which can be
+ * plotted or merged with the HdrHistogram tools</li>
+ * <li><code>timeline.csv</code> - the throughput, latency, heap and garbage collection for
+ * each interval</li>
+ * <li><code>summary.properties</code> - the totals for the run in a stable format</li>
+ * </ul>
+ * The command line arguments are the workload profile (see <code>SoakProfile</code>) and the
+ * output directory.  The summaries of two runs, e.g. from two builds, are compared using the
+ * arguments <code>compare [baseline summary] [candidate summary]</code>.
+ *
+ * @author Derk Norton
+ */
+public final class SoakHarness {
+
+    static private final URI baseUri = URI.create("http://foo.bar/IdentityManagement");
+    static private final String[] OPERATIONS = { "notarize", "validate", "rotate" };
+    static private final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+    static private final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+    static private final int RECENT_SEALS = 16;  // per worker, for the validations
+
+    private final SoakProfile profile;
+    private final Path output;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, Histogram> totals = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> failures = new LinkedHashMap<>();
+    private final Map<URI, NotaryCertificate> certificates = new ConcurrentHashMap<>();
+    private final String[] documentBases;
+    private V1NotarizationProvider notary;
+    private RotatingNotaryKey rotatingKey;
+    private volatile boolean running = true;
+    private long heapHighWater;  // only accessed by the sampling thread
+
+
+    private SoakHarness(SoakProfile profile, Path output) {
+        this.profile = profile;
+        this.output = output;
+        for (String operation : OPERATIONS) {
+            recorders.put(operation, new Recorder(3));
+            totals.put(operation, new Histogram(3));
+            failures.put(operation, new AtomicLong());
+        }
+        this.documentBases = new String[profile.documentSizes.length];
+        for (int i = 0; i < documentBases.length; i++) {
+            char[] characters = new char[profile.documentSizes[i]];
+            Arrays.fill(characters, 'x');
+            documentBases[i] = new String(characters);
+        }
+    }
+
+
+    /**
+     * This method runs the soak harness.
+     *
+     * @param args The workload profile and output directory, or the word <code>compare</code>
+     * followed by the baseline and candidate summaries.
+     * @throws Exception The soak test could not be run.
+     */
+    static public void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("compare")) {
+            compare(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        SoakProfile profile = SoakProfile.load(args.length > 0 ? args[0] : "mixed");
+        Path output = Paths.get(args.length > 1 ? args[1] : "target/soak/" + profile.name);
+        new SoakHarness(profile, output).run();
+    }
+
+
+    private void run() throws Exception {
+        Files.createDirectories(output);
+        notary = new V1NotarizationProvider();
+        if (profile.treeHashingChunkSize > 0) notary = notary.withTreeHashing(profile.treeHashingChunkSize);
+        notary.warmUp();
+        NotaryKey notaryKey = notary.generateNotaryKey(baseUri);
+        certificates.put(notaryKey.verificationCertificate.attributes.myLocation, notaryKey.verificationCertificate);
+        long overlapSeconds = Math.max(60, 2L * profile.keyRotationSeconds);
+        rotatingKey = new RotatingNotaryKey(notary, baseUri, notaryKey, TimeUnit.DAYS.toSeconds(1), overlapSeconds);
+
+        Thread[] workers = new Thread[profile.threads];
+        for (int i = 0; i < workers.length; i++) {
+            long seed = i;
+            workers[i] = new Thread(() -> work(new Random(seed)), "soak-worker-" + i);
+            workers[i].setDaemon(true);
+        }
+        Thread rotator = new Thread(this::rotateKeys, "soak-rotator");
+        rotator.setDaemon(true);
+
+        System.out.printf("Running the %s profile with %d threads for %d seconds...%n", profile.name, profile.threads, profile.durationSeconds);
+        long start = System.currentTimeMillis();
+        long end = start + TimeUnit.SECONDS.toMillis(profile.durationSeconds);
+        Map<String, HistogramLogWriter> logs = new LinkedHashMap<>();
+        try (Writer timeline = Files.newBufferedWriter(output.resolve("timeline.csv"), StandardCharsets.UTF_8)) {
+            for (String operation : OPERATIONS) {
+                HistogramLogWriter log = new HistogramLogWriter(output.resolve(operation + ".hlog").toFile());
+                log.outputLogFormatVersion();
+                log.outputStartTime(start);
+                log.setBaseTime(start);
+                log.outputLegend();
+                logs.put(operation, log);
+            }
+            String header = "seconds,notarize/s,notarize p99 ms,validate/s,validate p99 ms,heap used MB,heap committed MB,gc count,gc ms";
+            timeline.write(header + "\n");
+            System.out.println(header);
+            for (Thread worker : workers) worker.start();
+            if (profile.keyRotationSeconds > 0) rotator.start();
+
+            long next = start;
+            long previousGcCount = 0;
+            long previousGcMillis = 0;
+            while (System.currentTimeMillis() < end) {
+                next += TimeUnit.SECONDS.toMillis(profile.reportIntervalSeconds);
+                Thread.sleep(Math.max(0, Math.min(next, end) - System.currentTimeMillis()));
+                long[] gc = sampleGarbageCollection();
+                String line = sample(logs, start) + String.format(",%d,%d", gc[0] - previousGcCount, gc[1] - previousGcMillis);
+                previousGcCount = gc[0];
+                previousGcMillis = gc[1];
+                timeline.write(line + "\n");
+                timeline.flush();
+                System.out.println(line);
+            }
+
+            running = false;
+            rotator.interrupt();
+            for (Thread worker : workers) worker.join();
+            rotator.join();
+            sample(logs, start);  // the operations that finished after the last interval
+        } finally {
+            for (HistogramLogWriter log : logs.values()) log.close();
+            rotatingKey.close();
+        }
+        writeSummary(System.currentTimeMillis() - start);
+    }
+
+
+    private void work(Random random) {
+        String[] documents = new String[RECENT_SEALS];
+        NotarySeal[] seals = new NotarySeal[RECENT_SEALS];
+        int sealCount = 0;
+        long counter = 0;
+        while (running) {
+            boolean validate = sealCount > 0 && random.nextDouble() < profile.validateRatio;
+            if (validate) {
+                int index = random.nextInt(Math.min(sealCount, RECENT_SEALS));
+                validate(documents[index], seals[index]);
+            } else {
+                int size = profile.nextDocumentSize(random);
+                String document = document(size, Thread.currentThread().getName() + ":" + counter++);
+                NotarySeal seal = notarize(document);
+                if (seal != null) {
+                    int index = sealCount++ % RECENT_SEALS;
+                    documents[index] = document;
+                    seals[index] = seal;
+                }
+            }
+        }
+    }
+
+
+    private NotarySeal notarize(String document) {
+        long begin = System.nanoTime();
+        try {
+            NotarySeal seal = notary.notarizeDocument("Soak Document", document, rotatingKey.getNotaryKey());
+            recorders.get("notarize").recordValue(System.nanoTime() - begin);
+            return seal;
+        } catch (RuntimeException e) {
+            failures.get("notarize").incrementAndGet();
+            return null;
+        }
+    }
+
+
+    private void validate(String document, NotarySeal seal) {
+        long begin = System.nanoTime();
+        try {
+            NotaryCertificate certificate = rotatingKey.getVerificationCertificate(seal.attributes.verificationCitation);
+            if (certificate == null) {
+                // the seal predates the overlap window so look it up as a registry would
+                certificate = certificates.get(seal.attributes.verificationCitation.documentLocation);
+            }
+            Map<String, Object> errors = new LinkedHashMap<>();
+            notary.validateDocument(document, seal, certificate, errors);
+            recorders.get("validate").recordValue(System.nanoTime() - begin);
+            if (!errors.isEmpty()) failures.get("validate").incrementAndGet();
+        } catch (RuntimeException e) {
+            failures.get("validate").incrementAndGet();
+        }
+    }
+
+
+    private void rotateKeys() {
+        while (running) {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(profile.keyRotationSeconds));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long begin = System.nanoTime();
+            try {
+                NotaryKey notaryKey = rotatingKey.rotateNow();
+                certificates.put(notaryKey.verificationCertificate.attributes.myLocation, notaryKey.verificationCertificate);
+                recorders.get("rotate").recordValue(System.nanoTime() - begin);
+            } catch (RuntimeException e) {
+                failures.get("rotate").incrementAndGet();
+            }
+        }
+    }
+
+
+    private String document(int size, String suffix) {
+        for (int i = 0; i < documentBases.length; i++) {
+            if (profile.documentSizes[i] == size) return documentBases[i] + suffix;
+        }
+        throw new IllegalArgumentException("Unknown document size: " + size);
+    }
+
+
+    /*
+     * This method moves the interval histograms into the logs and totals, and returns the
+     * start of a timeline line for the interval.
+     */
+    private String sample(Map<String, HistogramLogWriter> logs, long start) {
+        long now = System.currentTimeMillis();
+        StringBuilder line = new StringBuilder(String.format("%.0f", (now - start) / 1000.0));
+        for (String operation : OPERATIONS) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            logs.get(operation).outputIntervalHistogram(interval);
+            totals.get(operation).add(interval);
+            if (operation.equals("rotate")) continue;
+            double seconds = Math.max(1, interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+            line.append(String.format(",%.1f,%.3f", interval.getTotalCount() / seconds, interval.getValueAtPercentile(99.0) / 1e6));
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapHighWater = Math.max(heapHighWater, heap.getUsed());
+        line.append(String.format(",%d,%d", heap.getUsed() >> 20, heap.getCommitted() >> 20));
+        return line.toString();
+    }
+
+
+    static private long[] sampleGarbageCollection() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[] { count, millis };
+    }
+
+
+    private void writeSummary(long elapsedMillis) throws IOException {
+        Map<String, String> summary = new LinkedHashMap<>();
+        summary.put("profile", profile.name);
+        summary.put("threads", Integer.toString(profile.threads));
+        summary.put("java.version", System.getProperty("java.version"));
+        summary.put("cores", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        summary.put("elapsed.seconds", String.format("%.1f", elapsedMillis / 1000.0));
+        for (String operation : OPERATIONS) {
+            Histogram total = totals.get(operation);
+            summary.put(operation + ".count", Long.toString(total.getTotalCount()));
+            summary.put(operation + ".failures", Long.toString(failures.get(operation).get()));
+            summary.put(operation + ".throughput", String.format("%.2f", total.getTotalCount() * 1000.0 / elapsedMillis));
+            summary.put(operation + ".mean.ms", String.format("%.3f", total.getMean() / 1e6));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                summary.put(operation + "." + PERCENTILE_NAMES[i] + ".ms", String.format("%.3f", total.getValueAtPercentile(PERCENTILES[i]) / 1e6));
+            }
+            summary.put(operation + ".max.ms", String.format("%.3f", total.getMaxValue() / 1e6));
+        }
+        long[] gc = sampleGarbageCollection();
+        summary.put("gc.count", Long.toString(gc[0]));
+        summary.put("gc.ms", Long.toString(gc[1]));
+        summary.put("gc.percent", String.format("%.2f", gc[1] * 100.0 / elapsedMillis));
+        summary.put("heap.max.used.mb", Long.toString(heapHighWater >> 20));
+
+        try (PrintStream file = new PrintStream(Files.newOutputStream(output.resolve("summary.properties")), false, "UTF-8")) {
+            for (Map.Entry<String, String> entry : summary.entrySet()) {
+                file.println(entry.getKey() + "=" + entry.getValue());
+                System.out.println(entry.getKey() + "=" + entry.getValue());
+            }
+        }
+    }
+
+
+    static private void compare(Path baseline, Path candidate) throws IOException {
+        Properties before = load(baseline);
+        Properties after = load(candidate);
+        System.out.printf("%-24s %14s %14s %9s%n", "metric", "baseline", "candidate", "change");
+        for (String key : new TreeSet<>(after.stringPropertyNames())) {
+            String oldValue = before.getProperty(key);
+            String newValue = after.getProperty(key);
+            try {
+                double oldNumber = Double.parseDouble(oldValue);
+                double newNumber = Double.parseDouble(newValue);
+                String change = oldNumber == 0.0 ? "" : String.format("%+.1f%%", (newNumber - oldNumber) * 100.0 / oldNumber);
+                System.out.printf("%-24s %14s %14s %9s%n", key, oldValue, newValue, change);
+            } catch (NullPointerException | NumberFormatException e) {
+                System.out.printf("%-24s %14s %14s%n", key, oldValue, newValue);
+            }
+        }
+    }
+
+
+    static private Properties load(Path summary) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(summary)) {
+            properties.load(input);
+        }
+        return properties;
+    }
+
+}
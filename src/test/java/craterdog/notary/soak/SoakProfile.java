@@ -0,0 +1,127 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.soak;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.Random;
+
+
+/**
+ * This class defines a workload profile for the soak harness.  A profile is a properties file,
+ * either a path or the name of one of the profiles bundled in the <code>soak</code> resource
+ * directory, with the following keys:
+ * <ul>
+ * <li><code>threads</code> - the number of concurrent worker threads</li>
+ * <li><code>durationSeconds</code> - the length of the run</li>
+ * <li><code>validateRatio</code> - the fraction of operations that validate a recent seal
+ * rather than notarize a new document</li>
+ * <li><code>documentSizes</code> - the document sizes in bytes and their relative weights,
+ * e.g. <code>256:60,16384:35,1048576:5</code></li>
+ * <li><code>keyRotationSeconds</code> - the interval between key rotations, zero for none</li>
+ * <li><code>treeHashingChunkSize</code> - the chunk size for tree hashing, zero for sequential
+ * hashing</li>
+ * <li><code>reportIntervalSeconds</code> - the interval between samples of the latencies,
+ * heap and garbage collection</li>
+ * </ul>
+ * Any key can be overridden using a system property with the prefix <code>soak.</code>, for
+ * example <code>-Dsoak.durationSeconds=14400</code>.
+ *
+ * @author Derk Norton
+ */
+public final class SoakProfile {
+
+    final String name;
+    final int threads;
+    final long durationSeconds;
+    final double validateRatio;
+    final int[] documentSizes;
+    final int keyRotationSeconds;
+    final int treeHashingChunkSize;
+    final int reportIntervalSeconds;
+    private final int[] cumulativeWeights;
+
+
+    private SoakProfile(String name, Properties properties) {
+        this.name = name;
+        this.threads = Integer.parseInt(get(properties, "threads"));
+        this.durationSeconds = Long.parseLong(get(properties, "durationSeconds"));
+        this.validateRatio = Double.parseDouble(get(properties, "validateRatio"));
+        this.keyRotationSeconds = Integer.parseInt(get(properties, "keyRotationSeconds"));
+        this.treeHashingChunkSize = Integer.parseInt(get(properties, "treeHashingChunkSize"));
+        this.reportIntervalSeconds = Integer.parseInt(get(properties, "reportIntervalSeconds"));
+        String[] entries = get(properties, "documentSizes").split(",");
+        this.documentSizes = new int[entries.length];
+        this.cumulativeWeights = new int[entries.length];
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].trim().split(":");
+            documentSizes[i] = Integer.parseInt(parts[0]);
+            total += parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            cumulativeWeights[i] = total;
+        }
+        if (threads < 1 || durationSeconds < 1 || reportIntervalSeconds < 1 || validateRatio < 0.0 || validateRatio >= 1.0) {
+            throw new IllegalArgumentException("The soak profile is not valid: " + name);
+        }
+    }
+
+
+    /**
+     * This method loads the specified workload profile.
+     *
+     * @param profile The path to a profile, or the name of a bundled profile.
+     * @return The workload profile.
+     * @throws IOException The profile could not be read.
+     */
+    static public SoakProfile load(String profile) throws IOException {
+        Properties properties = new Properties();
+        Path path = Paths.get(profile);
+        if (Files.isRegularFile(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                properties.load(input);
+            }
+            String filename = path.getFileName().toString();
+            return new SoakProfile(filename.replaceFirst("\\.properties$", ""), properties);
+        }
+        try (InputStream input = SoakProfile.class.getResourceAsStream("/soak/" + profile + ".properties")) {
+            if (input == null) throw new IOException("The soak profile does not exist: " + profile);
+            properties.load(input);
+        }
+        return new SoakProfile(profile, properties);
+    }
+
+
+    /**
+     * This method chooses the size of the next document according to the weights of the
+     * document sizes.
+     *
+     * @param random The random number generator of the calling thread.
+     * @return The document size in bytes.
+     */
+    public int nextDocumentSize(Random random) {
+        int choice = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (choice < cumulativeWeights[i]) return documentSizes[i];
+        }
+        return documentSizes[documentSizes.length - 1];
+    }
+
+
+    static private String get(Properties properties, String key) {
+        String value = System.getProperty("soak." + key, properties.getProperty(key));
+        if (value == null) throw new IllegalArgumentException("The soak profile is missing the key: " + key);
+        return value.trim();
+    }
+
+}
@@ -0,0 +1,146 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package craterdog.notary.tools;
+
+import craterdog.notary.NotaryKey;
+import craterdog.notary.V1NotarizationProvider;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+/**
+ * This class implements unit tests for the <code>BulkNotary</code> class.
+ *
+ * @author Derk Norton
+ */
+public class BulkNotaryTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(BulkNotaryTest.class);
+
+
+    /**
+     * Log a message at the beginning of the tests.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        logger.info("Running BulkNotary Unit Tests...\n");
+    }
+
+
+    /**
+     * Log a message at the end of the tests.
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        logger.info("BulkNotary Unit Tests Completed.\n");
+    }
+
+
+    @Test
+    public void testBulkNotarization() throws Exception {
+        logger.info("Testing the notarization and verification of a directory tree...");
+
+        logger.info("  Writing a directory tree of files...");
+        V1NotarizationProvider notary = new V1NotarizationProvider();
+        NotaryKey notaryKey = notary.generateNotaryKey(new URI("http://foo.bar/IdentityManagement"));
+        BulkNotary bulkNotary = new BulkNotary(notary, 4);
+        Path root = Files.createTempDirectory("exports");
+        Path manifest = root.resolve("manifest.ndjson");  // inside the tree, so it must be skipped
+        try {
+            for (int i = 0; i < 20; i++) {
+                Path directory = root.resolve("batch" + i % 3).resolve("part" + i % 2);
+                Files.createDirectories(directory);
+                Files.write(directory.resolve("file" + i + ".csv"), ("id,value\n" + i + ",example\n").getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(root.resolve("empty.txt"), new byte[0]);
+            Files.createSymbolicLink(root.resolve("batch0/loop"), root);  // must not be followed
+
+            logger.info("  Notarizing the tree into a manifest and verifying it...");
+            BulkNotary.Report report = bulkNotary.notarize(root, "Export File", notaryKey, manifest);
+            assertEquals("  The wrong number of files was notarized.", 21, report.getFileCount());
+            report = bulkNotary.verify(root, notaryKey.verificationCertificate, manifest);
+            assertEquals("  The wrong number of files was verified.", 21, report.getFileCount());
+            assertTrue("  Problems were reported: " + report.getProblems(), report.getProblems().isEmpty());
+
+            logger.info("  Verifying a manifest entry that points outside of the tree...");
+            String line = Files.readAllLines(manifest, StandardCharsets.UTF_8).get(0);
+            Path tampered = Files.createTempFile("manifest", ".ndjson");
+            try {
+                Files.write(tampered, Arrays.asList(line.replaceFirst("\"path\":\"[^\"]*\"", "\"path\":\"../escape.csv\"")), StandardCharsets.UTF_8);
+                report = bulkNotary.verify(root, notaryKey.verificationCertificate, tampered);
+                assertTrue("  The escaping path was not rejected: " + report.getProblems(), report.getProblems().contains("INVALID ../escape.csv"));
+
+                logger.info("  Verifying a manifest containing a malformed entry...");
+                List<String> lines = new ArrayList<>(Files.readAllLines(manifest, StandardCharsets.UTF_8));
+                lines.add(1, "{\"path\":");
+                Files.write(tampered, lines, StandardCharsets.UTF_8);
+                report = bulkNotary.verify(root, notaryKey.verificationCertificate, tampered);
+                assertEquals("  The wrong number of files was verified.", 21, report.getFileCount());
+                assertTrue("  The malformed entry was not reported: " + report.getProblems(),
+                        report.getProblems().contains("INVALID " + tampered.getFileName() + " (manifest.entry.is.malformed)"));
+            } finally {
+                Files.delete(tampered);
+            }
+
+            logger.info("  Notarizing the tree into sidecar files and verifying it...");
+            report = bulkNotary.notarize(root, "Export File", notaryKey, null);
+            assertEquals("  The wrong number of sidecars was written.", 22, report.getFileCount());  // including the manifest
+            assertTrue("  A sidecar file is missing.", Files.exists(root.resolve("empty.txt" + BulkNotary.SIDECAR_EXTENSION)));
+            report = bulkNotary.verify(root, notaryKey.verificationCertificate, null);
+            assertTrue("  Problems were reported: " + report.getProblems(), report.getProblems().isEmpty());
+
+            logger.info("  Verifying a malformed sidecar file...");
+            Path sidecar = root.resolve("batch0/part0/file0.csv" + BulkNotary.SIDECAR_EXTENSION);
+            byte[] sidecarBytes = Files.readAllBytes(sidecar);
+            Files.write(sidecar, "{\"attributes\":".getBytes(StandardCharsets.UTF_8));
+            report = bulkNotary.verify(root, notaryKey.verificationCertificate, null);
+            assertEquals("  The malformed sidecar was not reported.", Arrays.asList(
+                    "INVALID batch0/part0/file0.csv (seal.is.malformed)"), report.getProblems());
+            Files.write(sidecar, sidecarBytes);
+
+            logger.info("  Modifying, deleting and adding files...");
+            Files.write(root.resolve("batch1/part1/file1.csv"), "id,value\n1,changed\n".getBytes(StandardCharsets.UTF_8));
+            Files.delete(root.resolve("batch2/part0/file2.csv"));
+            Files.write(root.resolve("batch0/new.csv"), "id,value\n".getBytes(StandardCharsets.UTF_8));
+            report = bulkNotary.verify(root, notaryKey.verificationCertificate, manifest);
+            assertEquals("  The wrong problems were reported.", Arrays.asList(
+                    "MISMATCH batch1/part1/file1.csv (document.hash.is.invalid)",
+                    "MISSING batch2/part0/file2.csv",
+                    "UNSEALED batch0/new.csv"), report.getProblems());
+            report = bulkNotary.verify(root, notaryKey.verificationCertificate, null);
+            assertEquals("  The wrong sidecar problems were reported.", Arrays.asList(
+                    "MISMATCH batch1/part1/file1.csv (document.hash.is.invalid)",
+                    "MISSING batch2/part0/file2.csv",
+                    "UNSEALED batch0/new.csv"), report.getProblems());
+            report.print(System.out);
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        logger.info("Bulk notarization test completed.\n");
+    }
+
+}